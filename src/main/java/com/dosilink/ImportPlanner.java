@@ -0,0 +1,232 @@
+package com.dosilink;
+
+import com.axelor.db.JPA;
+import com.axelor.db.tenants.CurrentTenant;
+import com.axelor.db.tenants.TenantResolver;
+import com.axelor.inject.Beans;
+import com.dosilink.datasource.ValidationReport;
+import com.dosilink.datasource.WorkbookSession;
+import com.dosilink.datasource.WorkbookValidator;
+import com.google.inject.persist.UnitOfWork;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the sheet imports of a workbook as a dependency graph. Every sheet used by a stage is
+ * decoded in parallel as soon as the import starts; a stage then writes, in its own transaction,
+ * once its sheets are decoded and the stages it depends on have committed. Stages must be declared
+ * after the stages they depend on; a dependency on a stage that is not part of the plan, as in a
+ * partial import, is taken as already met since its records are in the database.
+ *
+ * <p>With a {@link WorkbookValidator}, each sheet is checked on the pool as soon as it is decoded,
+ * and no stage starts before every sheet has passed: a workbook with a bad cell is rejected with
+ * nothing written. For a chunked import, whose sheets are not kept, the checks stream the sheets
+ * once more, in parallel.
+ *
+ * <p>The first stage to fail stops the import: the stages that have not started are skipped, as
+ * the sequential import stopped at the failed sheet, and the failure is thrown once the stages
+ * running at that moment are over. Since each stage commits on its own, the stages that committed
+ * before the failure, or were running alongside the failed one, stay in the database; an import
+ * that failed is to be run again, which finds their records by natural key or fingerprint.
+ *
+ * <p>For a chunked import the stages are not wrapped in a transaction: the importers commit each
+ * chunk of rows themselves.
+ */
+public class ImportPlanner {
+
+  public interface Stage {
+    void run() throws Exception;
+  }
+
+  private static class StageDefinition {
+    final String name;
+    final int[] sheets;
+    final Stage stage;
+    final String[] dependsOn;
+
+    StageDefinition(String name, int[] sheets, Stage stage, String[] dependsOn) {
+      this.name = name;
+      this.sheets = sheets;
+      this.stage = stage;
+      this.dependsOn = dependsOn;
+    }
+  }
+
+  private final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final WorkbookSession session;
+  private final int threads;
+  private final List<StageDefinition> stages = new ArrayList<>();
+  private WorkbookValidator validator;
+
+  public ImportPlanner(WorkbookSession session, int threads) {
+    this.session = session;
+    this.threads = Math.max(1, threads);
+  }
+
+  public ImportPlanner stage(String name, int[] sheets, Stage stage, String... dependsOn) {
+    stages.add(new StageDefinition(name, sheets, stage, dependsOn));
+    return this;
+  }
+
+  /** Checks the sheets with the validator before any stage starts. */
+  public ImportPlanner validate(WorkbookValidator validator) {
+    this.validator = validator;
+    return this;
+  }
+
+  /**
+   * Runs the stages, unless the validator rejects the workbook. Returns the report of the
+   * validator, with no problem when the workbook is not validated.
+   */
+  public ValidationReport execute() throws Exception {
+    String tenant = TenantResolver.currentTenantIdentifier();
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      Map<Integer, CompletableFuture<Void>> decoded = new LinkedHashMap<>();
+      for (StageDefinition definition : stages) {
+        for (int sheet : definition.sheets) {
+          decode(decoded, sheet, pool);
+        }
+      }
+      ValidationReport report = new ValidationReport();
+      if (validator != null) {
+        List<CompletableFuture<ValidationReport>> checks = new ArrayList<>();
+        for (int sheet : validator.getSheets()) {
+          List<CompletableFuture<Void>> read = new ArrayList<>();
+          for (int sheetRead : validator.getSheetsRead(sheet)) {
+            read.add(decode(decoded, sheetRead, pool));
+          }
+          // A sheet that cannot be decoded is reported by its check.
+          checks.add(
+              CompletableFuture.allOf(read.toArray(new CompletableFuture[0]))
+                  .handleAsync(
+                      (ignored, failure) -> inUnitOfWork(tenant, () -> validator.validate(sheet)),
+                      pool));
+        }
+        for (CompletableFuture<ValidationReport> check : checks) {
+          report.addAll(check.join());
+        }
+        if (!report.isValid()) {
+          return report;
+        }
+      }
+      AtomicReference<RuntimeException> failure = new AtomicReference<>();
+      Map<String, CompletableFuture<Void>> committed = new LinkedHashMap<>();
+      for (StageDefinition definition : stages) {
+        List<CompletableFuture<Void>> prerequisites = new ArrayList<>();
+        for (int sheet : definition.sheets) {
+          prerequisites.add(decoded.get(sheet));
+        }
+        for (String dependency : definition.dependsOn) {
+          CompletableFuture<Void> dependencyCommitted = committed.get(dependency);
+          if (dependencyCommitted != null) {
+            prerequisites.add(dependencyCommitted);
+          }
+        }
+        committed.put(
+            definition.name,
+            CompletableFuture.allOf(prerequisites.toArray(new CompletableFuture[0]))
+                .whenComplete(
+                    (ignored, error) -> {
+                      // A sheet that cannot be decoded stops the import as a failed stage does.
+                      if (error instanceof RuntimeException) {
+                        failure.compareAndSet(null, (RuntimeException) error);
+                      }
+                    })
+                .thenRunAsync(() -> runStage(tenant, definition, failure), pool));
+      }
+      try {
+        CompletableFuture.allOf(committed.values().toArray(new CompletableFuture[0])).join();
+      } catch (CompletionException e) {
+        // The failure of the first stage, not the one of a stage that waited on it.
+        RuntimeException first = failure.get();
+        if (first == null || first instanceof CompletionException) {
+          throw first == null ? e : first;
+        }
+        throw new CompletionException(first);
+      }
+      return report;
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof Exception) {
+        throw (Exception) e.getCause();
+      }
+      throw e;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /** Starts decoding a sheet on the pool, once. */
+  private CompletableFuture<Void> decode(
+      Map<Integer, CompletableFuture<Void>> decoded, int sheet, ExecutorService pool) {
+    return decoded.computeIfAbsent(
+        sheet, index -> CompletableFuture.runAsync(() -> session.getSheet(index), pool));
+  }
+
+  /** Runs a stage, unless another stage has failed, and records its failure if it is the first. */
+  private void runStage(
+      String tenant, StageDefinition definition, AtomicReference<RuntimeException> failure) {
+    if (failure.get() != null) {
+      logger.info("Skipped {} after the failure of another stage", definition.name);
+      return;
+    }
+    inUnitOfWork(
+        tenant,
+        () -> {
+          try {
+            logger.info("Importing {}", definition.name);
+            long start = System.currentTimeMillis();
+            if (session.getRequest().isChunked()) {
+              runUnchecked(definition.stage);
+            } else {
+              JPA.runInTransaction(() -> runUnchecked(definition.stage));
+            }
+            logger.info(
+                "Imported {} in {} ms", definition.name, System.currentTimeMillis() - start);
+          } catch (RuntimeException e) {
+            logger.error("Failure to import " + definition.name, e);
+            failure.compareAndSet(null, e);
+            throw e;
+          }
+          return null;
+        });
+  }
+
+  /** Runs work on a thread of the pool in the tenant of the import and a unit of work. */
+  private static <T> T inUnitOfWork(String tenant, Supplier<T> work) {
+    CurrentTenant currentTenant = new CurrentTenant();
+    UnitOfWork unitOfWork = Beans.get(UnitOfWork.class);
+    if (tenant != null) {
+      currentTenant.setCurrentTenant(tenant);
+    }
+    unitOfWork.begin();
+    try {
+      return work.get();
+    } finally {
+      unitOfWork.end();
+      currentTenant.removeCurrentTenant();
+    }
+  }
+
+  private static void runUnchecked(Stage stage) {
+    try {
+      stage.run();
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new CompletionException(e);
+    }
+  }
+}
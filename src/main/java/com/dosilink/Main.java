@@ -1,31 +1,103 @@
 package com.dosilink;
 
+import com.axelor.app.AppSettings;
+import com.dosilink.database.DeltaIndex;
+import com.dosilink.database.NaturalKeys;
+import com.dosilink.database.ReferenceCache;
 import com.dosilink.datasource.*;
+import com.dosilink.entity.GeneratorSteps;
 
 public class Main {
+  private static final String IMPORT_THREADS = "data.import.threads";
+
   public void executeMain(String sourceFile) {
-    try {
-      System.out.println("******************clientStructure sheet*****************");
-      ClientStructureXLS clientStructure = new ClientStructureXLS(sourceFile);
-      clientStructure.saveStructureClientSheet();
-      System.out.println("********************Training sheet**********************");
-      TrainingXLS trainingXLS = new TrainingXLS(sourceFile);
-      trainingXLS.saveTrainingSheet();
-      System.out.println("*******************MeasuringDevice sheet****************");
-      MeasuringDeviceXLS measuringDeviceXLS = new MeasuringDeviceXLS(sourceFile);
-      measuringDeviceXLS.saveMeasuringDeviceSheet();
-      System.out.println("*******************IRM sheet****************");
-      IrmXLS irmXLS = new IrmXLS(sourceFile);
-      irmXLS.saveIRMSheet();
-      System.out.println("*******************EPI/EPC sheet****************");
-      ProtectionEquipmentXLS protectionEquipmentXLS = new ProtectionEquipmentXLS(sourceFile);
-      protectionEquipmentXLS.saveProtectionEquipment();
-      System.out.println("*******************RadiationWorker sheet****************");
-      RadiationWorkerXLS radiationWorker = new RadiationWorkerXLS(sourceFile);
-      radiationWorker.saveRadiationWorkerSheet();
-      System.out.println("*******************GeneratorRX sheet****************");
-      XRayGeneratorXLS xRayGeneratorXLS = new XRayGeneratorXLS(sourceFile);
-      xRayGeneratorXLS.saveGeneratorSheet();
+    executeMain(new ImportRequest(sourceFile));
+  }
+
+  /** Imports the sheets and rows selected by the request, or the whole workbook if none is. */
+  public void executeMain(ImportRequest request) {
+    if (!request.isChunked()) {
+      request.chunkSize(AppSettings.get().getInt(ImportChunks.CHUNK_SIZE, 0));
+    }
+    if (!request.isDelta()) {
+      request.delta(AppSettings.get().getBoolean(DeltaIndex.DELTA, false));
+    }
+    // Records may have been edited or deleted in the application since the last import.
+    ReferenceCache.shared().invalidateTenant();
+    GeneratorSteps.refresh();
+    try (WorkbookSession session = new WorkbookSession(request)) {
+      int threads =
+          AppSettings.get()
+              .getInt(IMPORT_THREADS, Math.min(4, Runtime.getRuntime().availableProcessors()));
+      int structure = ClientStructureXLS.STRUCTURE_CLIENT_SHEET;
+      ImportPlanner planner = new ImportPlanner(session, threads);
+      if (AppSettings.get().getBoolean(WorkbookValidator.VALIDATE, true)) {
+        planner.validate(new WorkbookValidator(session));
+      }
+      if (request.includes(structure)) {
+        // Created before any stage holds a lock on the table the index is built on.
+        NaturalKeys.ensureIndex();
+        ClientStructureXLS clientStructure = new ClientStructureXLS(session);
+        planner.stage(
+            "clientStructure", new int[] {structure}, clientStructure::saveStructureClientSheet);
+      }
+      XRayGeneratorXLS xRayGeneratorXLS = new XRayGeneratorXLS(session);
+      if (request.includes(XRayGeneratorXLS.GENERATOR_SHEET)) {
+        planner.stage(
+            "workStations",
+            new int[] {XRayGeneratorXLS.GENERATOR_SHEET},
+            xRayGeneratorXLS::saveWorkStations);
+      }
+      if (request.includes(TrainingXLS.TRAINING_SHEET)) {
+        TrainingXLS trainingXLS = new TrainingXLS(session);
+        planner.stage(
+            "training",
+            new int[] {TrainingXLS.TRAINING_SHEET},
+            trainingXLS::saveTrainingSheet,
+            "clientStructure");
+      }
+      if (request.includes(MeasuringDeviceXLS.MEASURING_DEVICE_SHEET)) {
+        MeasuringDeviceXLS measuringDeviceXLS = new MeasuringDeviceXLS(session);
+        planner.stage(
+            "measuringDevice",
+            new int[] {MeasuringDeviceXLS.MEASURING_DEVICE_SHEET},
+            measuringDeviceXLS::saveMeasuringDeviceSheet,
+            "clientStructure");
+      }
+      if (request.includes(IrmXLS.IRM_SHEET)) {
+        IrmXLS irmXLS = new IrmXLS(session);
+        planner.stage(
+            "irm", new int[] {IrmXLS.IRM_SHEET}, irmXLS::saveIRMSheet, "clientStructure");
+      }
+      if (request.includes(ProtectionEquipmentXLS.PROTECTION_EQUIPMENT_SHEET)) {
+        ProtectionEquipmentXLS protectionEquipmentXLS = new ProtectionEquipmentXLS(session);
+        planner.stage(
+            "protectionEquipment",
+            new int[] {ProtectionEquipmentXLS.PROTECTION_EQUIPMENT_SHEET},
+            protectionEquipmentXLS::saveProtectionEquipment,
+            "clientStructure");
+      }
+      if (request.includes(RadiationWorkerXLS.RADIATION_WORKER_SHEET)) {
+        RadiationWorkerXLS radiationWorker = new RadiationWorkerXLS(session);
+        planner.stage(
+            "radiationWorker",
+            new int[] {RadiationWorkerXLS.RADIATION_WORKER_SHEET},
+            radiationWorker::saveRadiationWorkerSheet,
+            "clientStructure");
+      }
+      if (request.includes(XRayGeneratorXLS.GENERATOR_SHEET)) {
+        planner.stage(
+            "generatorRX",
+            new int[] {XRayGeneratorXLS.GENERATOR_SHEET},
+            xRayGeneratorXLS::saveGenerators,
+            "clientStructure",
+            "workStations");
+      }
+      ValidationReport report = planner.execute();
+      if (!report.isValid()) {
+        System.out.println("Workbook rejected, nothing imported: " + report);
+        return;
+      }
       System.out.println("*******************End WITH SUCCESS****************");
 
     } catch (Exception e) {
@@ -0,0 +1,163 @@
+package com.dosilink.database;
+
+import com.axelor.db.JPA;
+import com.axelor.meta.db.MetaJsonRecord;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import javax.transaction.Synchronization;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+/**
+ * Loads the records of an import into {@code meta_json_record} with {@code COPY ... FROM STDIN
+ * (FORMAT binary)}, for the onboarding of clients too large for batched inserts. The ids come from
+ * the {@link IdAllocator}, so a record has its final id as soon as it is added and the records of
+ * the next rows can refer to it in their {@code attrs}.
+ *
+ * <p>The records are encoded into a buffer that is copied to the database when it is full, before
+ * the records are read back by a query of {@link Database}, and before the transaction commits. The
+ * copy goes through the connection of the transaction, so a rollback drops the copied records as
+ * well. Records loaded this way bypass Hibernate: they are never in the persistence context.
+ */
+public class BulkLoader {
+
+  /** Whether imports other than delta imports load their records with COPY, false by default. */
+  public static final String BULK = "data.import.bulk";
+
+  private static final String COPY =
+      "COPY meta_json_record (id, version, created_on, json_model, name, attrs) "
+          + "FROM STDIN (FORMAT binary)";
+  private static final byte[] SIGNATURE = {
+    'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0
+  };
+  private static final LocalDateTime POSTGRES_EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+  private static final int BUFFER_SIZE = 8 * 1024 * 1024;
+  private static final byte JSONB_VERSION = 1;
+
+  private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 16);
+  private final DataOutputStream tuples = new DataOutputStream(buffer);
+  private int pending;
+  private boolean registered;
+  private Boolean jsonb;
+
+  /** Gives the record its id and queues it for the next copy. */
+  public MetaJsonRecord add(MetaJsonRecord record) {
+    if (jsonb == null) {
+      jsonb = isJsonb();
+    }
+    record.setId(IdAllocator.current().next());
+    record.setVersion(0);
+    try {
+      tuples.writeShort(6);
+      tuples.writeInt(8);
+      tuples.writeLong(record.getId());
+      tuples.writeInt(4);
+      tuples.writeInt(0);
+      tuples.writeInt(8);
+      tuples.writeLong(ChronoUnit.MICROS.between(POSTGRES_EPOCH, LocalDateTime.now()));
+      writeText(record.getJsonModel(), false);
+      writeText(record.getName(), false);
+      writeText(record.getAttrs(), jsonb);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    pending++;
+    registerFlush();
+    if (buffer.size() >= BUFFER_SIZE) {
+      flush();
+    }
+    return record;
+  }
+
+  /** Copies the queued records to the database. */
+  public void flush() {
+    if (pending == 0) {
+      return;
+    }
+    JPA.em()
+        .unwrap(Session.class)
+        .doWork(
+            connection -> {
+              PGCopyOutputStream copy =
+                  new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY, 1 << 16);
+              try {
+                DataOutputStream out = new DataOutputStream(copy);
+                out.write(SIGNATURE);
+                out.writeInt(0);
+                out.writeInt(0);
+                buffer.writeTo(out);
+                out.writeShort(-1);
+                out.flush();
+                copy.endCopy();
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              } finally {
+                if (copy.isActive()) {
+                  copy.cancelCopy();
+                }
+              }
+            });
+    discard();
+  }
+
+  private void discard() {
+    buffer.reset();
+    pending = 0;
+  }
+
+  /** Copies the queued records before the transaction commits, or drops them on a rollback. */
+  private void registerFlush() {
+    if (registered) {
+      return;
+    }
+    JPA.em()
+        .unwrap(Session.class)
+        .getTransaction()
+        .registerSynchronization(
+            new Synchronization() {
+              @Override
+              public void beforeCompletion() {
+                flush();
+              }
+
+              @Override
+              public void afterCompletion(int status) {
+                discard();
+                registered = false;
+              }
+            });
+    registered = true;
+  }
+
+  private void writeText(String value, boolean jsonbValue) throws IOException {
+    if (value == null) {
+      tuples.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (jsonbValue) {
+      tuples.writeInt(bytes.length + 1);
+      tuples.writeByte(JSONB_VERSION);
+    } else {
+      tuples.writeInt(bytes.length);
+    }
+    tuples.write(bytes);
+  }
+
+  /** Whether attrs is a jsonb column, whose binary form starts with a version byte. */
+  private static boolean isJsonb() {
+    Object type =
+        JPA.em()
+            .createNativeQuery(
+                "select data_type from information_schema.columns "
+                    + "where table_name = 'meta_json_record' and column_name = 'attrs'")
+            .getSingleResult();
+    return "jsonb".equals(type);
+  }
+}
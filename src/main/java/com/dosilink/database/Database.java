@@ -1,5 +1,6 @@
 package com.dosilink.database;
 
+import com.axelor.app.AppSettings;
 import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.Partner;
 import com.axelor.apps.base.db.repo.CompanyRepository;
@@ -7,127 +8,329 @@ import com.axelor.apps.base.db.repo.PartnerRepository;
 import com.axelor.apps.hr.db.Employee;
 import com.axelor.apps.hr.db.EmploymentContract;
 import com.axelor.apps.hr.db.EmploymentContractType;
+import com.axelor.apps.hr.db.repo.EmployeeRepository;
 import com.axelor.apps.hr.db.repo.EmploymentContractTypeRepository;
 import com.axelor.apps.message.db.EmailAddress;
+import com.axelor.db.JPA;
 import com.axelor.inject.Beans;
 import com.axelor.meta.db.MetaJsonRecord;
 import com.axelor.meta.db.repo.MetaJsonRecordRepository;
 import com.dosilink.entity.*;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.GeneratorColumns;
+import com.dosilink.datasource.SheetSchemas.IrmColumns;
+import com.dosilink.datasource.SheetSchemas.MeasuringDeviceColumns;
+import com.dosilink.datasource.SheetSchemas.ProtectionEquipmentColumns;
+import com.dosilink.datasource.SheetSchemas.StructureColumns;
+import com.dosilink.datasource.SheetSchemas.TrainingColumns;
+import com.dosilink.datasource.SheetSchemas.WorkerColumns;
 
 import java.time.LocalDate;
-import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 public class Database {
-    private static final int EMPLOYEE_CIVILITY = 0;
-    private static final int EMPLOYEE_PRENOM = 1;
-    private static final int EMPLOYEE_NAME = 2;
-    private static final int EMPLOYEE_EMAIL = 3;
-    private static final int EMPLOYEE_BIRTHDATE = 4;
-    private static final int EMPLOYEE_TYPE_CONTRACT = 5;
-    private static final int EMPLOYEE_DEBUT_CONTRACT = 6;
-    private static final int EMPLOYEE_FIN_CONTRACT = 7;
 
-    public MetaJsonRecord saveSite(Row row)  {
+    /**
+     * The columns each record is imported from, those of the records it refers to included. A
+     * change to another column of its row does not make a delta import save the record again.
+     */
+    private static final int[] INSTALLATION_TYPE_COLUMNS = {StructureColumns.INSTALLATION_TYPE};
+    private static final int[] MEASURING_DEVICE_TYPE_COLUMNS = {
+        StructureColumns.MEASURING_DEVICE_TYPE
+    };
+    private static final int[] FUNCTION_GRADE_COLUMNS = {StructureColumns.FUNCTION_GRADE};
+    private static final int[] BRAND_COLUMNS = {StructureColumns.BRAND_SUPPLIER};
+    private static final int[] BRAND_EPI_COLUMNS = {StructureColumns.BRAND_SUPPLIER_EPI};
+    private static final int[] WORK_STATION_COLUMNS = {GeneratorColumns.WORK_STATION};
+    private static final int[] GENERATOR_COLUMNS = {
+        GeneratorColumns.MODALITY,
+        GeneratorColumns.SERVICE,
+        GeneratorColumns.LOCATION,
+        GeneratorColumns.BRAND,
+        GeneratorColumns.MODEL,
+        GeneratorColumns.SERIAL_NUMBER,
+        GeneratorColumns.MACHINE_STATE,
+        GeneratorColumns.WORK_STATION,
+        GeneratorColumns.TECHNOLOGY,
+        GeneratorColumns.INSTALLATION_TYPE,
+        GeneratorColumns.COMMISSIONING_DATE
+    };
+    /** A control refers to its generator, which is imported again when its columns change. */
+    private static final int[] TECHNICAL_CONTROL_COLUMNS = GENERATOR_COLUMNS;
+    private static final int[] QUALITY_CONTROL_COLUMNS = {
+        GeneratorColumns.MODALITY,
+        GeneratorColumns.SERVICE,
+        GeneratorColumns.LOCATION,
+        GeneratorColumns.BRAND,
+        GeneratorColumns.MODEL,
+        GeneratorColumns.SERIAL_NUMBER,
+        GeneratorColumns.MACHINE_STATE,
+        GeneratorColumns.WORK_STATION,
+        GeneratorColumns.TECHNOLOGY,
+        GeneratorColumns.INSTALLATION_TYPE,
+        GeneratorColumns.COMMISSIONING_DATE,
+        GeneratorColumns.LAST_EQC,
+        GeneratorColumns.LAST_CQI,
+        GeneratorColumns.LAST_MONTHLY_CQI
+    };
+    private static final int[] IRM_COLUMNS = {
+        IrmColumns.SERVICE,
+        IrmColumns.LOCATION,
+        IrmColumns.MACHINE_STATE,
+        IrmColumns.WORK_STATION,
+        IrmColumns.POWER,
+        IrmColumns.BRAND,
+        IrmColumns.MODEL,
+        IrmColumns.SERIAL_NUMBER,
+        IrmColumns.COMMISSIONING_DATE
+    };
+    private static final int[] PROTECTION_EQUIPMENT_COLUMNS = {
+        ProtectionEquipmentColumns.TYPE,
+        ProtectionEquipmentColumns.DEVICE,
+        ProtectionEquipmentColumns.BRAND,
+        ProtectionEquipmentColumns.SERIAL_NUMBER,
+        ProtectionEquipmentColumns.SERVICE,
+        ProtectionEquipmentColumns.LOCATION,
+        ProtectionEquipmentColumns.THICKNESS,
+        ProtectionEquipmentColumns.STATE,
+        ProtectionEquipmentColumns.LAST_CHECK,
+        ProtectionEquipmentColumns.ACQUISITION_DATE
+    };
+    private static final int[] MEASURING_DEVICE_COLUMNS = {
+        MeasuringDeviceColumns.TYPE,
+        MeasuringDeviceColumns.BRAND,
+        MeasuringDeviceColumns.MODEL,
+        MeasuringDeviceColumns.SERIAL_NUMBER,
+        MeasuringDeviceColumns.SERVICE,
+        MeasuringDeviceColumns.LOCATION,
+        MeasuringDeviceColumns.LAST_CHECK,
+        MeasuringDeviceColumns.LAST_CALIBRATION
+    };
+    private static final int[] TRAINING_COLUMNS = {
+        TrainingColumns.TYPE,
+        TrainingColumns.NAME,
+        TrainingColumns.FUNCTION_GRADE,
+        TrainingColumns.PERIODIC,
+        TrainingColumns.PERIODICITY,
+        TrainingColumns.COMMENT
+    };
+    private static final int[] RADIATION_WORKER_COLUMNS = {
+        WorkerColumns.CIVILITY,
+        WorkerColumns.FIRST_NAME,
+        WorkerColumns.NAME,
+        WorkerColumns.EMAIL,
+        WorkerColumns.BIRTH_DATE,
+        WorkerColumns.CONTRACT_TYPE,
+        WorkerColumns.CONTRACT_START,
+        WorkerColumns.CONTRACT_END,
+        WorkerColumns.IONIZING_RADIATION_EXPOSURE,
+        WorkerColumns.MAGNETIC_FIELD_EXPOSURE,
+        WorkerColumns.SISERI_NUMBER,
+        WorkerColumns.FUNCTION_GRADE,
+        WorkerColumns.SERVICE,
+        WorkerColumns.RADIOLOGICAL_CLASSIFICATION
+    };
+
+    private final DeltaIndex delta;
+    private final RecordWriter writer = new RecordWriter();
+    private final BulkLoader bulk;
+    private final ReferenceCache references = ReferenceCache.shared();
+    private final NaturalKeys naturalKeys = new NaturalKeys();
+
+    public Database() {
+        this(null);
+    }
+
+    /** @param delta the index of the records already imported, for a delta import, or null */
+    public Database(DeltaIndex delta) {
+        this.delta = delta;
+        boolean bulkLoad = delta == null && AppSettings.get().getBoolean(BulkLoader.BULK, false);
+        this.bulk = bulkLoad ? new BulkLoader() : null;
+    }
+
+    /** Returns the repository to query the records with, once the records being loaded are in. */
+    private MetaJsonRecordRepository records() {
+        flushBulk();
+        writer.flush();
+        return Beans.get(MetaJsonRecordRepository.class);
+    }
+
+    /** Returns the records of a reference model that are not deleted, from the shared cache. */
+    ReferenceCache.References references(String jsonModel) {
+        return references.get(jsonModel,
+                () -> records().all(jsonModel).filter("self.attrs.deleted = 'false'").fetch());
+    }
+
+    private void flushBulk() {
+        if (bulk != null) {
+            bulk.flush();
+        }
+    }
+
+    /**
+     * Saves a record imported from a row, stamped with the fingerprint of the columns it is imported
+     * from (see the {@code *_COLUMNS} constants).
+     */
+    private MetaJsonRecord save(MetaJsonRecord record, SheetRow row, int[] columns) {
+        return save(record, null, Fingerprints.of(row, columns));
+    }
+
+    /** Saves a record the import creates on its own, which is the same for every workbook. */
+    private MetaJsonRecord save(MetaJsonRecord record) {
+        return save(record, null, Fingerprints.of(record.getName()));
+    }
+
+    /** Saves a record, with the site of a service or the service of a location as parent. */
+    private MetaJsonRecord save(MetaJsonRecord record, MetaJsonRecord parent, String fingerprint) {
+        record.setAttrs(DeltaIndex.withFingerprint(record.getAttrs(), fingerprint));
+        MetaJsonRecord saved;
+        if (bulk != null) {
+            saved = bulk.add(record);
+        } else if (delta == null) {
+            saved = writer.insert(record);
+        } else {
+            saved = delta.save(record, parent, fingerprint, writer);
+        }
+        references.add(saved);
+        return saved;
+    }
+
+    /** Whether a delta import already holds the radiation worker imported from this very row. */
+    public boolean isWorkerUnchanged(SheetRow row) {
+        return delta != null
+                && delta.findUnchanged("radiationWorker", row.getString(WorkerColumns.NAME),
+                        Fingerprints.of(row, RADIATION_WORKER_COLUMNS)) != null;
+    }
+
+    /**
+     * Saves a site, service or location once per natural key (see {@link NaturalKeys}): the record
+     * saved on an earlier row, or imported before, is returned instead of a copy. A record found in
+     * the database is updated if its attributes have changed.
+     */
+    private MetaJsonRecord upsert(MetaJsonRecord record, MetaJsonRecord parent) {
+        String key = NaturalKeys.keyOf(record, parent);
+        MetaJsonRecord saved = naturalKeys.saved(key);
+        if (saved != null) {
+            return saved;
+        }
+        // The fingerprint of the whole row would change with the services and locations on it.
+        String fingerprint = Fingerprints.of(record.getAttrs());
+        MetaJsonRecord existing = naturalKeys.existing(record, parent, this);
+        if (existing == null) {
+            saved = save(record, parent, fingerprint);
+        } else if (String.valueOf(existing.getAttrs()).contains(fingerprint)) {
+            saved = existing;
+        } else {
+            saved = updateAttrs(existing, DeltaIndex.withFingerprint(record.getAttrs(), fingerprint));
+        }
+        naturalKeys.put(key, saved);
+        return saved;
+    }
+
+    /**
+     * Returns the employee of the radiation worker a delta import updates from a row that has
+     * changed, or null when the row is imported as a new worker.
+     */
+    public Employee findChangedWorkerEmployee(SheetRow row) {
+        if (delta == null) {
+            return null;
+        }
+        MetaJsonRecord worker =
+                delta.findChanged("radiationWorker", row.getString(WorkerColumns.NAME));
+        Long employeeId = worker == null ? null : RadiationWorker.employeeIdOf(worker.getAttrs());
+        return employeeId == null ? null : Beans.get(EmployeeRepository.class).find(employeeId);
+    }
+
+    public MetaJsonRecord saveSite(SheetRow row)  {
         Site site = new Site(row);
-        return Beans.get(MetaJsonRecordRepository.class).save(site.toMetaJsonRecord());
+        return upsert(site.toMetaJsonRecord(), null);
     }
 
-    public MetaJsonRecord saveService(Row row, MetaJsonRecord site)  {
+    public MetaJsonRecord saveService(SheetRow row, MetaJsonRecord site)  {
         Service service = new Service(row, site);
-        return Beans.get(MetaJsonRecordRepository.class).save(service.toMetaJsonRecord());
+        return upsert(service.toMetaJsonRecord(), site);
     }
 
-    public MetaJsonRecord saveLocalisation(Row row, MetaJsonRecord service)  {
+    public MetaJsonRecord saveLocalisation(SheetRow row, MetaJsonRecord service)  {
         Localisation localisation = new Localisation(row, service);
-        return Beans.get(MetaJsonRecordRepository.class).save(localisation.toMetaJsonRecord());
+        return upsert(localisation.toMetaJsonRecord(), service);
     }
 
-    public MetaJsonRecord saveInstallationType(Row row)  {
+    public MetaJsonRecord saveInstallationType(SheetRow row)  {
         InstallationType installationType = new InstallationType(row);
-        return Beans.get(MetaJsonRecordRepository.class).save(installationType.toMetaJsonRecord());
+        return save(installationType.toMetaJsonRecord(), row, INSTALLATION_TYPE_COLUMNS);
     }
 
 
-    public MetaJsonRecord saveMeasuringDeviceType(Row row)  {
+    public MetaJsonRecord saveMeasuringDeviceType(SheetRow row)  {
         MeasuringDeviceType measuringDeviceType = new MeasuringDeviceType(row);
-        return Beans.get(MetaJsonRecordRepository.class).save(measuringDeviceType.toMetaJsonRecord());
+        return save(measuringDeviceType.toMetaJsonRecord(), row, MEASURING_DEVICE_TYPE_COLUMNS);
     }
 
-    public MetaJsonRecord saveFunctionGrade(Row row) {
+    public MetaJsonRecord saveFunctionGrade(SheetRow row) {
         FunctionGrade functionGrade = new FunctionGrade(row);
-        return Beans.get(MetaJsonRecordRepository.class).save(functionGrade.toMetaJsonRecord());
+        return save(functionGrade.toMetaJsonRecord(), row, FUNCTION_GRADE_COLUMNS);
     }
 
-    public MetaJsonRecord saveBrandOrSupplier(Row row) {
+    public MetaJsonRecord saveBrandOrSupplier(SheetRow row) {
         BrandOrSupplier brandOrSupplier = new BrandOrSupplier(row);
-        return Beans.get(MetaJsonRecordRepository.class).save(brandOrSupplier.toMetaJsonRecord());
+        return save(brandOrSupplier.toMetaJsonRecord(), row, BRAND_COLUMNS);
     }
-    public MetaJsonRecord saveBrandOrSupplierEpi(Row row) {
+    public MetaJsonRecord saveBrandOrSupplierEpi(SheetRow row) {
         BrandOrSupplierEPI brandOrSupplierEPI = new BrandOrSupplierEPI(row);
-        return Beans.get(MetaJsonRecordRepository.class).save(brandOrSupplierEPI.toMetaJsonRecord());
+        return save(brandOrSupplierEPI.toMetaJsonRecord(), row, BRAND_EPI_COLUMNS);
     }
-    public MetaJsonRecord saveWorkerStation(Row row) {
+    public MetaJsonRecord saveWorkerStation(SheetRow row) {
         WorkStation workStation = new WorkStation(row);
-        return Beans.get(MetaJsonRecordRepository.class).save(workStation.toMetaJsonRecord());
+        return save(workStation.toMetaJsonRecord(), row, WORK_STATION_COLUMNS);
     }
-    public MetaJsonRecord saveMeasuringDevice(Row row, MetaJsonRecord measuringDeviceType, MetaJsonRecord brand, MetaJsonRecord service, MetaJsonRecord location){
+    public MetaJsonRecord saveMeasuringDevice(SheetRow row, MetaJsonRecord measuringDeviceType, MetaJsonRecord brand, MetaJsonRecord service, MetaJsonRecord location){
         MeasuringDevice measuringDevice = new MeasuringDevice(row,measuringDeviceType,brand,service,location);
-        return Beans.get(MetaJsonRecordRepository.class).save(measuringDevice.toMetaJsonRecord());
+        return save(measuringDevice.toMetaJsonRecord(), row, MEASURING_DEVICE_COLUMNS);
     }
-    public MetaJsonRecord saveIRM(Row row, MetaJsonRecord service, MetaJsonRecord location, MetaJsonRecord brand){
+    public MetaJsonRecord saveIRM(SheetRow row, MetaJsonRecord service, MetaJsonRecord location, MetaJsonRecord brand){
         IRM irm = new IRM(row, service, location, brand);
-        return Beans.get(MetaJsonRecordRepository.class).save(irm.toMetaJsonRecord());
+        return save(irm.toMetaJsonRecord(), row, IRM_COLUMNS);
     }
-    public MetaJsonRecord saveProtectionEquipment(Row row, MetaJsonRecord brand, MetaJsonRecord service , MetaJsonRecord location){
+    public MetaJsonRecord saveProtectionEquipment(SheetRow row, MetaJsonRecord brand, MetaJsonRecord service , MetaJsonRecord location){
         ProtectionEquipment protectionEquipment = new ProtectionEquipment(row, brand, service, location);
-        return Beans.get(MetaJsonRecordRepository.class).save(protectionEquipment.toMetaJsonRecord());
+        return save(protectionEquipment.toMetaJsonRecord(), row, PROTECTION_EQUIPMENT_COLUMNS);
     }
-    public List<MetaJsonRecord> findMeasuringDeviceTypes(){
-        MetaJsonRecordRepository metaJsonRecordRepository = Beans.get(MetaJsonRecordRepository.class);
-        return metaJsonRecordRepository.all("MeasuringDeviceType").filter("self.attrs.deleted = 'false'").fetch();
+    public List<MetaJsonRecord> findMeasuringDeviceTypes() {
+        return references("MeasuringDeviceType").getRecords();
     }
     public List<MetaJsonRecord> findTrainingTypes() {
-        MetaJsonRecordRepository metaJsonRecordRepository = Beans.get(MetaJsonRecordRepository.class);
-        return metaJsonRecordRepository
-                .all("trainingType")
-                .filter("self.attrs.deleted = 'false'")
-                .fetch();
+        return references("trainingType").getRecords();
     }
     public List<MetaJsonRecord> findInstallationTypes() {
-        MetaJsonRecordRepository metaJsonRecordRepository = Beans.get(MetaJsonRecordRepository.class);
-        return metaJsonRecordRepository.all("InstallationType").filter("self.attrs.deleted = 'false'").fetch();
+        return references("InstallationType").getRecords();
     }
-    public MetaJsonRecord saveQualityControl(Row row, MetaJsonRecord service, MetaJsonRecord location, MetaJsonRecord modality, MetaJsonRecord xRayGenerator,MetaJsonRecord installationType){
+    public MetaJsonRecord saveQualityControl(SheetRow row, MetaJsonRecord service, MetaJsonRecord location, MetaJsonRecord modality, MetaJsonRecord xRayGenerator,MetaJsonRecord installationType){
         QualityControl qualityControl = new QualityControl(row,service,location,modality,xRayGenerator,installationType);
-        return Beans.get(MetaJsonRecordRepository.class).save(qualityControl.toMetaJsonRecord());
+        return save(qualityControl.toMetaJsonRecord(), row, QUALITY_CONTROL_COLUMNS);
     }
-    public MetaJsonRecord saveEquipmentTechnicalControl(Row row, MetaJsonRecord service, MetaJsonRecord location, MetaJsonRecord modality, MetaJsonRecord installationType, MetaJsonRecord xRayGenerator){
+    public MetaJsonRecord saveEquipmentTechnicalControl(SheetRow row, MetaJsonRecord service, MetaJsonRecord location, MetaJsonRecord modality, MetaJsonRecord installationType, MetaJsonRecord xRayGenerator){
         EquipmentTechnicalControl equipmentTechnicalControl = new EquipmentTechnicalControl(row, service, location, modality, installationType, xRayGenerator);
-        return Beans.get(MetaJsonRecordRepository.class).save(equipmentTechnicalControl.toMetaJsonRecord());
+        return save(equipmentTechnicalControl.toMetaJsonRecord(), row, TECHNICAL_CONTROL_COLUMNS);
     }
-    public List<MetaJsonRecord> findModality(){
-        MetaJsonRecordRepository metaJsonRecordRepository = Beans.get(MetaJsonRecordRepository.class);
-        return  metaJsonRecordRepository.all("Modality").filter("self.attrs.deleted = 'false'").fetch();
+    public List<MetaJsonRecord> findModality() {
+        return references("Modality").getRecords();
     }
-    public List<MetaJsonRecord> findBrand(){
-        MetaJsonRecordRepository metaJsonRecordRepository = Beans.get(MetaJsonRecordRepository.class);
-        return metaJsonRecordRepository.all("Brand").filter("self.attrs.deleted = 'false'").fetch();
+    public List<MetaJsonRecord> findBrand() {
+        return references("Brand").getRecords();
     }
-    public List<MetaJsonRecord> findLocations(){
-        MetaJsonRecordRepository metaJsonRecordRepository = Beans.get(MetaJsonRecordRepository.class);
-        return metaJsonRecordRepository.all("location").filter("self.attrs.deleted = 'false'").fetch();
+    public List<MetaJsonRecord> findLocations() {
+        return references("location").getRecords();
     }
     public List<MetaJsonRecord> saveDoseConstraint() {
         DoseConstraint doseConstraint = new DoseConstraint("Corps entier");
         DoseConstraint doseConstraint1 = new DoseConstraint("Extrémités");
         DoseConstraint doseConstraint2 = new DoseConstraint("Cristallin");
-        MetaJsonRecord metaDoseConstraint = Beans.get(MetaJsonRecordRepository.class).save(doseConstraint.toMetaJsonRecord());
-        MetaJsonRecord metaDoseConstraint1 = Beans.get(MetaJsonRecordRepository.class).save(doseConstraint1.toMetaJsonRecord());
-        MetaJsonRecord metaDoseConstraint2 = Beans.get(MetaJsonRecordRepository.class).save(doseConstraint2.toMetaJsonRecord());
+        MetaJsonRecord metaDoseConstraint = save(doseConstraint.toMetaJsonRecord());
+        MetaJsonRecord metaDoseConstraint1 = save(doseConstraint1.toMetaJsonRecord());
+        MetaJsonRecord metaDoseConstraint2 = save(doseConstraint2.toMetaJsonRecord());
         List<MetaJsonRecord> doseConstraints = new ArrayList<>();
         doseConstraints.add(metaDoseConstraint);
         doseConstraints.add(metaDoseConstraint1);
@@ -139,10 +342,10 @@ public class Database {
         PassiveDosimetry passiveDosimetry1 = new PassiveDosimetry("Bague");
         PassiveDosimetry passiveDosimetry2 = new PassiveDosimetry("Poignet");
         PassiveDosimetry passiveDosimetry3 = new PassiveDosimetry("Cristallin");
-        MetaJsonRecord metaPassiveDosimetry = Beans.get(MetaJsonRecordRepository.class).save(passiveDosimetry.toMetaJsonRecord());
-        MetaJsonRecord metaPassiveDosimetry1 = Beans.get(MetaJsonRecordRepository.class).save(passiveDosimetry1.toMetaJsonRecord());
-        MetaJsonRecord metaPassiveDosimetry2 = Beans.get(MetaJsonRecordRepository.class).save(passiveDosimetry2.toMetaJsonRecord());
-        MetaJsonRecord metaPassiveDosimetry3 = Beans.get(MetaJsonRecordRepository.class).save(passiveDosimetry3.toMetaJsonRecord());
+        MetaJsonRecord metaPassiveDosimetry = save(passiveDosimetry.toMetaJsonRecord());
+        MetaJsonRecord metaPassiveDosimetry1 = save(passiveDosimetry1.toMetaJsonRecord());
+        MetaJsonRecord metaPassiveDosimetry2 = save(passiveDosimetry2.toMetaJsonRecord());
+        MetaJsonRecord metaPassiveDosimetry3 = save(passiveDosimetry3.toMetaJsonRecord());
         List<MetaJsonRecord> passiveDosimetries = new ArrayList<>();
         passiveDosimetries.add(metaPassiveDosimetry);
         passiveDosimetries.add(metaPassiveDosimetry1);
@@ -153,46 +356,56 @@ public class Database {
     public List<MetaJsonRecord> saveIndividualEvaluation(){
         IndividualEvaluation individualEvaluation = new IndividualEvaluation("Avec EPI/EPC");
         IndividualEvaluation individualEvaluation1 = new IndividualEvaluation("Sans EPI/EPC");
-        MetaJsonRecord metaIndividualEvaluation = Beans.get(MetaJsonRecordRepository.class).save(individualEvaluation.toMetaJsonRecord());
-        MetaJsonRecord metaIndividualEvaluation1 = Beans.get(MetaJsonRecordRepository.class).save(individualEvaluation1.toMetaJsonRecord());
+        MetaJsonRecord metaIndividualEvaluation = save(individualEvaluation.toMetaJsonRecord());
+        MetaJsonRecord metaIndividualEvaluation1 = save(individualEvaluation1.toMetaJsonRecord());
         List<MetaJsonRecord> individualEvaluations = new ArrayList<>();
         individualEvaluations.add(metaIndividualEvaluation);
         individualEvaluations.add(metaIndividualEvaluation1);
         return individualEvaluations;
     }
+    /** Returns the names of the records of a model that are not deleted. */
+    public Set<String> findNames(String jsonModel) {
+        return references(jsonModel).getNames();
+    }
+    /**
+     * Replaces the attributes of a record, which may come from the cache of another import. A record
+     * saved by this import may still be queued for a copy or a batch: the queues are written first,
+     * so that the merge updates its row instead of inserting a copy of it.
+     */
+    public MetaJsonRecord updateAttrs(MetaJsonRecord record, String attrs) {
+        flushBulk();
+        writer.flush();
+        record.setAttrs(attrs);
+        return JPA.em().merge(record);
+    }
     public List<MetaJsonRecord> findWorkerStation() {
-        MetaJsonRecordRepository metaJsonRecordRepository = Beans.get(MetaJsonRecordRepository.class);
-        return  metaJsonRecordRepository.all("workerStation").filter("self.attrs.deleted = 'false'").fetch();
+        return references("workerStation").getRecords();
     }
     public List<MetaJsonRecord> findFunctionGrade() {
-        MetaJsonRecordRepository metaJsonRecordRepository = Beans.get(MetaJsonRecordRepository.class);
-        return metaJsonRecordRepository
-                .all("functionGrade")
-                .filter("self.attrs.deleted = 'false'")
-                .fetch();
+        return references("functionGrade").getRecords();
     }
     public List<MetaJsonRecord> findService() {
-        MetaJsonRecordRepository metaJsonRecordRepository = Beans.get(MetaJsonRecordRepository.class);
-        return metaJsonRecordRepository
-                .all("serviceAffectation")
-                .filter("self.attrs.deleted = 'false'")
-                .fetch();
+        return references("serviceAffectation").getRecords();
     }
 
-    public MetaJsonRecord saveTraining(Row row, MetaJsonRecord trainingType, MetaJsonRecord functionGrade) {
+    public MetaJsonRecord saveTraining(SheetRow row, MetaJsonRecord trainingType, MetaJsonRecord functionGrade) {
         Training training = new Training(row, trainingType, functionGrade);
-        return Beans.get(MetaJsonRecordRepository.class).save(training.toMetaJsonRecord());
+        return save(training.toMetaJsonRecord(), row, TRAINING_COLUMNS);
     }
-    public MetaJsonRecord saveGenerator(Row row, MetaJsonRecord modality, MetaJsonRecord service, MetaJsonRecord location, MetaJsonRecord brand, MetaJsonRecord workstations, MetaJsonRecord installationType){
+    public MetaJsonRecord saveGenerator(SheetRow row, MetaJsonRecord modality, MetaJsonRecord service, MetaJsonRecord location, MetaJsonRecord brand, MetaJsonRecord workstations, MetaJsonRecord installationType){
         XRayGenerator xRayGenerator = new XRayGenerator(row, modality, service, location, brand, workstations, installationType);
-        return Beans.get(MetaJsonRecordRepository.class).save(xRayGenerator.toMetaJsonRecord());
+        return save(xRayGenerator.toMetaJsonRecord(), row, GENERATOR_COLUMNS);
+    }
+    public Partner createPartner(SheetRow row){
+        return savePartner(row, new Partner());
     }
-    public Partner createPartner(Row row){
-        Partner partner = new Partner();
+
+    /** Fills a partner, new or the one of a worker imported before, from a row and saves it. */
+    private Partner savePartner(SheetRow row, Partner partner) {
         partner.setPartnerTypeSelect(2);
         partner.setIsContact(true);
-        if(validRow(row,EMPLOYEE_CIVILITY)){
-        switch (row.getCell(EMPLOYEE_CIVILITY).getStringCellValue()){
+        if(row.hasValue(WorkerColumns.CIVILITY)){
+        switch (row.getString(WorkerColumns.CIVILITY)){
             case "M.":
                 partner.setTitleSelect(1);
                 break;
@@ -206,44 +419,48 @@ public class Database {
                 partner.setTitleSelect(4);
                 break;
         }}
-        if(validRow(row,EMPLOYEE_NAME)) {
-            partner.setName(row.getCell(EMPLOYEE_NAME).getStringCellValue());
-            partner.setFullName(row.getCell(EMPLOYEE_NAME).getStringCellValue());
+        if(row.hasValue(WorkerColumns.NAME)) {
+            partner.setName(row.getString(WorkerColumns.NAME));
+            partner.setFullName(row.getString(WorkerColumns.NAME));
         }
-        if(validRow(row,EMPLOYEE_PRENOM)) {
-            partner.setFirstName(row.getCell(EMPLOYEE_PRENOM).getStringCellValue());
+        if(row.hasValue(WorkerColumns.FIRST_NAME)) {
+            partner.setFirstName(row.getString(WorkerColumns.FIRST_NAME));
         }
-        if (validRow(row,EMPLOYEE_EMAIL)) {
-            EmailAddress emailAddress = new EmailAddress(row.getCell(EMPLOYEE_EMAIL).getStringCellValue());
-            partner.setEmailAddress(emailAddress);
+        if (row.hasValue(WorkerColumns.EMAIL)) {
+            if (partner.getEmailAddress() == null) {
+                EmailAddress emailAddress = new EmailAddress(row.getString(WorkerColumns.EMAIL));
+                partner.setEmailAddress(emailAddress);
+            } else {
+                partner.getEmailAddress().setAddress(row.getString(WorkerColumns.EMAIL));
+            }
         }
         PartnerRepository partnerRepository = Beans.get(PartnerRepository.class);
         partnerRepository.save(partner);
 
         return partner;
     }
-    private EmploymentContractType findTypeContract(Row row){
+    private EmploymentContractType findTypeContract(SheetRow row){
         EmploymentContractTypeRepository employmentContractTypeRepositoryRepository = Beans.get(EmploymentContractTypeRepository.class);
-        if (validRow(row,EMPLOYEE_TYPE_CONTRACT)) {
-            EmploymentContractType employmentContract = employmentContractTypeRepositoryRepository.findByName(row.getCell(EMPLOYEE_TYPE_CONTRACT).getStringCellValue());
+        if (row.hasValue(WorkerColumns.CONTRACT_TYPE)) {
+            EmploymentContractType employmentContract = employmentContractTypeRepositoryRepository.findByName(row.getString(WorkerColumns.CONTRACT_TYPE));
             return employmentContract;
         }
         return null;
     }
-    private EmploymentContract createEmploymentContract(Row row){
+    private EmploymentContract createEmploymentContract(SheetRow row){
+        return fillEmploymentContract(row, new EmploymentContract());
+    }
+    private EmploymentContract fillEmploymentContract(SheetRow row, EmploymentContract employmentContract){
         CompanyRepository companyRepository = Beans.get(CompanyRepository.class);
         Company company = companyRepository.findByName("BIOMEDIQA");
-        EmploymentContract employmentContract = new EmploymentContract();
         employmentContract.setPayCompany(company);
         employmentContract.setContractType(findTypeContract(row));
-        if(validRow(row,EMPLOYEE_DEBUT_CONTRACT)) {
-            Date startDate = row.getCell(EMPLOYEE_DEBUT_CONTRACT).getDateCellValue();
-            LocalDate dateDebut = startDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        if(row.hasCell(WorkerColumns.CONTRACT_START)) {
+            LocalDate dateDebut = row.getLocalDate(WorkerColumns.CONTRACT_START);
             employmentContract.setStartDate(dateDebut);
         }
-        if(validRow(row,EMPLOYEE_FIN_CONTRACT)){
-            Date endDate = row.getCell(EMPLOYEE_FIN_CONTRACT).getDateCellValue();
-            LocalDate dateFin = endDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        if(row.hasCell(WorkerColumns.CONTRACT_END)){
+            LocalDate dateFin = row.getLocalDate(WorkerColumns.CONTRACT_END);
             employmentContract.setEndDate(dateFin);
         }else{
             employmentContract.setEndDate(null);
@@ -251,33 +468,51 @@ public class Database {
         return employmentContract;
     }
 
-    public Employee createEmployee(Row row ,MetaJsonRecord functionGrade,MetaJsonRecord service){
+    public Employee createEmployee(SheetRow row ,MetaJsonRecord functionGrade,MetaJsonRecord service){
         Employee employee = new Employee();
         employee.setContactPartner(createPartner(row));
-        if(validRow(row,EMPLOYEE_NAME)) {
-            employee.setName(row.getCell(EMPLOYEE_NAME).getStringCellValue());
-        }
-        if(validRow(row,EMPLOYEE_BIRTHDATE)) {
-            Date birthDate = row.getCell(EMPLOYEE_BIRTHDATE).getDateCellValue();
-            LocalDate date = birthDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-            employee.setBirthDate(date);
-        }
+        fillEmployee(row, employee);
         employee.addEmploymentContractListItem(createEmploymentContract(row));
         employee.setMainEmploymentContract(createEmploymentContract(row));
-        employee.setAttrs(" {\"deleted\": false, \"employeeService\": {\"id\":\""+ service.getId()+"\", \"name\": \""+service.getName()+"\", \"$version\": 0},\"employeeFunction\": {\"id\":\""+functionGrade.getId()+"\", \"name\":\""+functionGrade.getName()+"\", \"$version\": 0}, \"serviceAffectation\": {\"id\":\""+service.getId()+"\", \"name\": \""+service.getName()+"\"}}");
+        employee.setAttrs(EmployeeAttrs.of(service, functionGrade, null));
+        return employee;
+    }
+
+    /**
+     * Updates the employee of a worker imported before, found by {@link
+     * #findChangedWorkerEmployee}, and its partner and main contract, from a row that has changed.
+     */
+    public Employee updateEmployee(SheetRow row, Employee employee, MetaJsonRecord functionGrade, MetaJsonRecord service){
+        Partner partner = employee.getContactPartner();
+        employee.setContactPartner(savePartner(row, partner == null ? new Partner() : partner));
+        fillEmployee(row, employee);
+        if (employee.getMainEmploymentContract() == null) {
+            employee.addEmploymentContractListItem(createEmploymentContract(row));
+            employee.setMainEmploymentContract(createEmploymentContract(row));
+        } else {
+            fillEmploymentContract(row, employee.getMainEmploymentContract());
+        }
+        employee.setAttrs(EmployeeAttrs.of(service, functionGrade, null));
         return employee;
     }
+
+    private void fillEmployee(SheetRow row, Employee employee) {
+        if(row.hasValue(WorkerColumns.NAME)) {
+            employee.setName(row.getString(WorkerColumns.NAME));
+        }
+        if(row.hasCell(WorkerColumns.BIRTH_DATE)) {
+            LocalDate date = row.getLocalDate(WorkerColumns.BIRTH_DATE);
+            employee.setBirthDate(date);
+        }
+    }
     public void saveEmployee(Employee employee) {
-        com.axelor.apps.hr.db.repo.EmployeeRepository employeeRepository = Beans.get(com.axelor.apps.hr.db.repo.EmployeeRepository.class);
+        EmployeeRepository employeeRepository = Beans.get(EmployeeRepository.class);
            employeeRepository.save(employee);
     }
 
-    public MetaJsonRecord saveRadiationWorker(Row row, MetaJsonRecord functionGrade, MetaJsonRecord service, Employee employee, Partner partner, MetaJsonRecord [] doseConstraint, MetaJsonRecord [] individualEvaluation, MetaJsonRecord [] passiveDosimetry)
+    public MetaJsonRecord saveRadiationWorker(SheetRow row, MetaJsonRecord functionGrade, MetaJsonRecord service, Employee employee, Partner partner, MetaJsonRecord [] doseConstraint, MetaJsonRecord [] individualEvaluation, MetaJsonRecord [] passiveDosimetry)
     {
         RadiationWorker radiationWorker = new RadiationWorker(employee,row,functionGrade,service,partner,doseConstraint,individualEvaluation,passiveDosimetry);
-        return Beans.get(MetaJsonRecordRepository.class).save(radiationWorker.toMetaJsonRecord());
-    }
-    private boolean validRow(Row row, int NUM_COLUMN) {
-        return row.getCell(NUM_COLUMN) != null;
+        return save(radiationWorker.toMetaJsonRecord(), row, RADIATION_WORKER_COLUMNS);
     }
 }
@@ -0,0 +1,161 @@
+package com.dosilink.database;
+
+import com.axelor.db.JPA;
+import com.axelor.inject.Beans;
+import com.axelor.meta.db.MetaJsonRecord;
+import com.axelor.meta.db.repo.MetaJsonRecordRepository;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The records already in the database, by model and natural key, with the fingerprint of the row
+ * each was imported from. The key of a record is its normalized name (see {@link
+ * ReferenceResolver#normalize}) and, for the services and locations, the id of their parent (see
+ * {@link NaturalKeys}), so that a name typed with another case or spacing finds its record, and a
+ * service is never taken for the homonym of another site. A delta import goes through the index to save its records: a record whose row has
+ * not changed is left as it is, a record whose row has changed is updated in place, and only the
+ * records with no counterpart in the database are inserted.
+ *
+ * <p>Each record of the database is matched by at most one row of the workbook, so several rows
+ * with the same name, as homonym workers, are matched with as many records. The records of a model
+ * are loaded the first time a row of that model is saved.
+ */
+public class DeltaIndex {
+
+  /** Whether imports are delta imports by default. */
+  public static final String DELTA = "data.import.delta";
+
+  static final String FINGERPRINT = "importFingerprint";
+
+  private static class Entry {
+    final long id;
+    final String fingerprint;
+
+    Entry(long id, String fingerprint) {
+      this.id = id;
+      this.fingerprint = fingerprint;
+    }
+  }
+
+  private final Map<String, Map<String, Deque<Entry>>> models = new ConcurrentHashMap<>();
+
+  /** Returns the record of the database imported from the same row, or {@code null}. */
+  public MetaJsonRecord findUnchanged(String jsonModel, String name, String fingerprint) {
+    Map<String, Deque<Entry>> keys = load(jsonModel);
+    synchronized (keys) {
+      Entry entry = claim(keys, keyOf(name, null), fingerprint, true);
+      return entry == null ? null : Beans.get(MetaJsonRecordRepository.class).find(entry.id);
+    }
+  }
+
+  /**
+   * Returns the record of the database that a row whose fingerprint matches none is saved over, or
+   * {@code null} when the row is saved as a new record. The record is left in the index.
+   */
+  public MetaJsonRecord findChanged(String jsonModel, String name) {
+    Map<String, Deque<Entry>> keys = load(jsonModel);
+    Entry entry;
+    synchronized (keys) {
+      Deque<Entry> entries = name == null ? null : keys.get(keyOf(name, null));
+      entry = entries == null ? null : entries.peek();
+    }
+    return entry == null ? null : Beans.get(MetaJsonRecordRepository.class).find(entry.id);
+  }
+
+  /**
+   * Saves a record imported from a row with the given fingerprint, unless a record imported from
+   * the same row is already in the database. The parent is the site of a service or the service of
+   * a location, null for the other records. New records are inserted through the writer. Returns
+   * the record saved or found.
+   */
+  public MetaJsonRecord save(
+      MetaJsonRecord record, MetaJsonRecord parent, String fingerprint, RecordWriter writer) {
+    MetaJsonRecordRepository repository = Beans.get(MetaJsonRecordRepository.class);
+    Map<String, Deque<Entry>> keys = load(record.getJsonModel());
+    String parentId = parent == null ? null : String.valueOf(parent.getId());
+    Entry entry;
+    synchronized (keys) {
+      entry = claim(keys, keyOf(record.getName(), parentId), fingerprint, false);
+    }
+    if (entry == null) {
+      return writer.insert(record);
+    }
+    MetaJsonRecord existing = repository.find(entry.id);
+    if (fingerprint.equals(entry.fingerprint)) {
+      return existing;
+    }
+    existing.setAttrs(record.getAttrs());
+    return repository.save(existing);
+  }
+
+  /**
+   * Takes out of the index the record with the same key and fingerprint, or, when {@code
+   * unchangedOnly} is not set, the first record with the same key. Records with no name, which
+   * can only be told apart by their fingerprint, are never taken for a changed row.
+   */
+  private static Entry claim(
+      Map<String, Deque<Entry>> keys, String key, String fingerprint, boolean unchangedOnly) {
+    Deque<Entry> entries = keys.get(key);
+    if (entries == null || entries.isEmpty()) {
+      return null;
+    }
+    for (Iterator<Entry> it = entries.iterator(); it.hasNext(); ) {
+      Entry entry = it.next();
+      if (fingerprint.equals(entry.fingerprint)) {
+        it.remove();
+        return entry;
+      }
+    }
+    return unchangedOnly || key == null ? null : entries.poll();
+  }
+
+  private Map<String, Deque<Entry>> load(String jsonModel) {
+    return models.computeIfAbsent(jsonModel, DeltaIndex::query);
+  }
+
+  /** The key of a record with no name is null. */
+  private static String keyOf(String name, String parentId) {
+    if (name == null) {
+      return null;
+    }
+    return ReferenceResolver.normalize(name) + '\u0000' + (parentId == null ? "" : parentId);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Deque<Entry>> query(String jsonModel) {
+    List<Object[]> rows =
+        JPA.em()
+            .createNativeQuery(
+                "select id, name, attrs->>'"
+                    + FINGERPRINT
+                    + "', attrs->'site'->>'id' from meta_json_record "
+                    + "where json_model = :model and coalesce(attrs->>'deleted', 'false') = 'false' "
+                    + "order by id")
+            .setParameter("model", jsonModel)
+            .getResultList();
+    boolean hasParent = NaturalKeys.hasParent(jsonModel);
+    Map<String, Deque<Entry>> keys = new HashMap<>();
+    for (Object[] row : rows) {
+      long id = ((Number) row[0]).longValue();
+      String key = keyOf((String) row[1], hasParent ? (String) row[3] : null);
+      keys.computeIfAbsent(key, k -> new ArrayDeque<>()).add(new Entry(id, (String) row[2]));
+    }
+    return keys;
+  }
+
+  /** Adds the fingerprint to the attributes of a record. */
+  static String withFingerprint(String attrs, String fingerprint) {
+    String field = "\"" + FINGERPRINT + "\": \"" + fingerprint + "\"";
+    if (attrs == null || attrs.trim().isEmpty()) {
+      return "{" + field + "}";
+    }
+    int brace = attrs.indexOf('{');
+    boolean empty = attrs.substring(brace + 1).trim().startsWith("}");
+    return attrs.substring(0, brace + 1) + field + (empty ? "" : ", ") + attrs.substring(brace + 1);
+  }
+}
@@ -0,0 +1,180 @@
+package com.dosilink.database;
+
+import com.dosilink.datasource.SheetCell;
+import com.dosilink.datasource.SheetRow;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Content fingerprints of sheet rows, used to tell on a new import of a workbook which rows are
+ * new, which have changed and which are already in the database as they are.
+ *
+ * <p>A fingerprint is the XXH64 hash of the normalized values of the columns a record is imported
+ * from: texts are trimmed with their inner blanks collapsed, numbers are hashed as doubles, and
+ * blank cells are left out, so that a cell retyped with an extra space does not count as a change,
+ * nor does a change to a column the record does not read.
+ */
+public final class Fingerprints {
+
+  private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long PRIME64_3 = 0x165667B19E3779F9L;
+  private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+  private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+  private static final byte STRING = 1;
+  private static final byte NUMERIC = 2;
+  private static final byte OTHER = 3;
+
+  private Fingerprints() {}
+
+  /** Returns the fingerprint of the columns of a row as 16 hexadecimal digits. */
+  public static String of(SheetRow row, int... columns) {
+    Bytes bytes = new Bytes();
+    for (int column : columns) {
+      if (!row.hasValue(column)) {
+        continue;
+      }
+      SheetCell cell = row.getCell(column);
+      bytes.putInt(column);
+      switch (cell.getCellKind()) {
+        case STRING:
+          bytes.put(STRING);
+          bytes.putString(cell.getStringCellValue().trim().replaceAll("\\s+", " "));
+          break;
+        case NUMERIC:
+          bytes.put(NUMERIC);
+          bytes.putLong(Double.doubleToLongBits(cell.getNumericCellValue()));
+          break;
+        default:
+          bytes.put(OTHER);
+          bytes.putString(cell.getCellKind() + ":" + cell);
+      }
+    }
+    return of(bytes.data, bytes.size);
+  }
+
+  /** Returns the fingerprint of a text, for records that do not come from a row. */
+  public static String of(String text) {
+    byte[] data = text.getBytes(StandardCharsets.UTF_8);
+    return of(data, data.length);
+  }
+
+  private static String of(byte[] data, int length) {
+    String hex = Long.toHexString(xxh64(data, length, 0));
+    return "0000000000000000".substring(hex.length()) + hex;
+  }
+
+  static long xxh64(byte[] data, int length, long seed) {
+    int offset = 0;
+    long hash;
+    if (length >= 32) {
+      long v1 = seed + PRIME64_1 + PRIME64_2;
+      long v2 = seed + PRIME64_2;
+      long v3 = seed;
+      long v4 = seed - PRIME64_1;
+      int limit = length - 32;
+      do {
+        v1 = round(v1, readLong(data, offset));
+        v2 = round(v2, readLong(data, offset + 8));
+        v3 = round(v3, readLong(data, offset + 16));
+        v4 = round(v4, readLong(data, offset + 24));
+        offset += 32;
+      } while (offset <= limit);
+      hash =
+          Long.rotateLeft(v1, 1)
+              + Long.rotateLeft(v2, 7)
+              + Long.rotateLeft(v3, 12)
+              + Long.rotateLeft(v4, 18);
+      hash = mergeRound(hash, v1);
+      hash = mergeRound(hash, v2);
+      hash = mergeRound(hash, v3);
+      hash = mergeRound(hash, v4);
+    } else {
+      hash = seed + PRIME64_5;
+    }
+    hash += length;
+    while (offset + 8 <= length) {
+      hash ^= round(0, readLong(data, offset));
+      hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+      offset += 8;
+    }
+    if (offset + 4 <= length) {
+      hash ^= (readInt(data, offset) & 0xFFFFFFFFL) * PRIME64_1;
+      hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+      offset += 4;
+    }
+    while (offset < length) {
+      hash ^= (data[offset] & 0xFFL) * PRIME64_5;
+      hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+      offset++;
+    }
+    hash ^= hash >>> 33;
+    hash *= PRIME64_2;
+    hash ^= hash >>> 29;
+    hash *= PRIME64_3;
+    hash ^= hash >>> 32;
+    return hash;
+  }
+
+  private static long round(long accumulator, long input) {
+    accumulator += input * PRIME64_2;
+    accumulator = Long.rotateLeft(accumulator, 31);
+    return accumulator * PRIME64_1;
+  }
+
+  private static long mergeRound(long accumulator, long value) {
+    accumulator ^= round(0, value);
+    return accumulator * PRIME64_1 + PRIME64_4;
+  }
+
+  private static long readLong(byte[] data, int offset) {
+    return (readInt(data, offset) & 0xFFFFFFFFL) | ((long) readInt(data, offset + 4) << 32);
+  }
+
+  private static int readInt(byte[] data, int offset) {
+    return (data[offset] & 0xFF)
+        | (data[offset + 1] & 0xFF) << 8
+        | (data[offset + 2] & 0xFF) << 16
+        | (data[offset + 3] & 0xFF) << 24;
+  }
+
+  /** The little-endian encoding of the values of a row. */
+  private static final class Bytes {
+    byte[] data = new byte[256];
+    int size;
+
+    void put(byte b) {
+      ensure(1);
+      data[size++] = b;
+    }
+
+    void putInt(int value) {
+      ensure(4);
+      for (int i = 0; i < 4; i++) {
+        data[size++] = (byte) (value >>> (8 * i));
+      }
+    }
+
+    void putLong(long value) {
+      ensure(8);
+      for (int i = 0; i < 8; i++) {
+        data[size++] = (byte) (value >>> (8 * i));
+      }
+    }
+
+    void putString(String value) {
+      byte[] text = value.getBytes(StandardCharsets.UTF_8);
+      putInt(text.length);
+      ensure(text.length);
+      System.arraycopy(text, 0, data, size, text.length);
+      size += text.length;
+    }
+
+    private void ensure(int extra) {
+      if (size + extra > data.length) {
+        data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+      }
+    }
+  }
+}
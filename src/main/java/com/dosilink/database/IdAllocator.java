@@ -0,0 +1,55 @@
+package com.dosilink.database;
+
+import com.axelor.db.JPA;
+import com.axelor.db.tenants.TenantResolver;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out ids of {@code meta_json_record} from memory. The ids are drawn from the sequence by
+ * blocks in one query, so a record gets its id without a round trip and an importer can build a
+ * site, its services and their locations with their final ids before any of them is sent.
+ *
+ * <p>There is one allocator per tenant, shared by the importers of all the imports of that tenant.
+ * Ids drawn from the sequence are never given back: the ids of a block left unused when the
+ * application stops are gaps in the sequence, as the ids of a rolled back transaction already are.
+ */
+public final class IdAllocator {
+
+  private static final String SEQUENCE = "meta_json_record_seq";
+  private static final int BLOCK_SIZE = 1000;
+  private static final Map<String, IdAllocator> TENANTS = new ConcurrentHashMap<>();
+
+  private long[] ids = new long[0];
+  private int next;
+
+  private IdAllocator() {}
+
+  /** Returns the allocator of the tenant of the current thread. */
+  public static IdAllocator current() {
+    String tenant = TenantResolver.currentTenantIdentifier();
+    return TENANTS.computeIfAbsent(tenant == null ? "" : tenant, key -> new IdAllocator());
+  }
+
+  public synchronized long next() {
+    if (next == ids.length) {
+      ids = draw(BLOCK_SIZE);
+      next = 0;
+    }
+    return ids[next++];
+  }
+
+  private static long[] draw(int count) {
+    List<?> block =
+        JPA.em()
+            .createNativeQuery(
+                "select nextval('" + SEQUENCE + "') from generate_series(1, " + count + ")")
+            .getResultList();
+    long[] ids = new long[block.size()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = ((Number) block.get(i)).longValue();
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,135 @@
+package com.dosilink.database;
+
+import com.axelor.db.tenants.TenantResolver;
+import com.axelor.inject.Beans;
+import com.axelor.meta.db.MetaJsonRecord;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * The sites, services and locations of an import, by natural key: json model, normalized name
+ * (see {@link ReferenceResolver#normalize}) and id of the parent, the site of a service or the
+ * service of a location. The structure sheet names a site or a service on every row of its
+ * services and locations; through the keys each of them is saved once, on its first row, and found
+ * again on the next ones. A key already in the database from an earlier import is found there as
+ * well.
+ *
+ * <p>The database enforces the keys with a unique expression index on {@code meta_json_record},
+ * created by {@link #ensureIndex()} before the stages of an import start, so that it does not wait
+ * for their transactions. An import does not start on a tenant that cannot take the index, such as
+ * one holding duplicates from earlier imports: the duplicates are to be merged first.
+ */
+public final class NaturalKeys {
+
+  private static final String INDEX =
+      "create unique index if not exists meta_json_record_natural_key on meta_json_record "
+          + "(json_model, lower(btrim(regexp_replace(name, '\\s+', ' ', 'g'))), "
+          + "coalesce(attrs->'site'->>'id', '')) "
+          + "where json_model in ('site', 'serviceAffectation', 'location') "
+          + "and coalesce(attrs->>'deleted', 'false') = 'false'";
+
+  private static final String DUPLICATES =
+      "select json_model, lower(btrim(regexp_replace(name, '\\s+', ' ', 'g'))), "
+          + "coalesce(attrs->'site'->>'id', '') from meta_json_record "
+          + "where json_model in ('site', 'serviceAffectation', 'location') "
+          + "and coalesce(attrs->>'deleted', 'false') = 'false' "
+          + "group by 1, 2, 3 having count(*) > 1 limit 10";
+
+  private static final Set<String> INDEXED = ConcurrentHashMap.newKeySet();
+
+  private final Map<String, MetaJsonRecord> saved = new HashMap<>();
+  private final Map<String, ReferenceCache.References> existing = new HashMap<>();
+
+  static String keyOf(MetaJsonRecord record, MetaJsonRecord parent) {
+    return record.getJsonModel()
+        + "\u0000"
+        + (parent == null ? "" : parent.getId())
+        + "\u0000"
+        + ReferenceResolver.normalize(String.valueOf(record.getName()));
+  }
+
+  /** Whether the records of a model are keyed under a parent, held in their site attribute. */
+  static boolean hasParent(String jsonModel) {
+    return jsonModel.equals("serviceAffectation") || jsonModel.equals("location");
+  }
+
+  /** Returns the record saved by this import with the key, or null. */
+  MetaJsonRecord saved(String key) {
+    return saved.get(key);
+  }
+
+  void put(String key, MetaJsonRecord record) {
+    saved.put(key, record);
+  }
+
+  /**
+   * Returns the record of the database with the key of the record, or null. The records of a model
+   * are read once, the first time a record of the model is saved by the import.
+   */
+  MetaJsonRecord existing(MetaJsonRecord record, MetaJsonRecord parent, Database database) {
+    ReferenceCache.References references =
+        existing.computeIfAbsent(record.getJsonModel(), database::references);
+    String name = ReferenceResolver.normalize(String.valueOf(record.getName()));
+    return parent == null ? references.get(name) : references.get(parent.getId(), name);
+  }
+
+  /**
+   * Creates the index of the current tenant if it is not there yet, in a transaction of its own so
+   * that its lock on the table is released at once. Throws when the index cannot be created.
+   */
+  public static void ensureIndex() {
+    String tenant = TenantResolver.currentTenantIdentifier();
+    String key = tenant == null ? "" : tenant;
+    if (INDEXED.contains(key)) {
+      return;
+    }
+    synchronized (INDEXED) {
+      if (INDEXED.contains(key)) {
+        return;
+      }
+      EntityManager em = Beans.get(EntityManagerFactory.class).createEntityManager();
+      try {
+        em.getTransaction().begin();
+        List<?> duplicates = em.createNativeQuery(DUPLICATES).getResultList();
+        if (!duplicates.isEmpty()) {
+          throw new IllegalStateException(
+              "Sites, services or locations are saved more than once, merge them before importing: "
+                  + describe(duplicates));
+        }
+        // Another session writing to the table fails the import instead of blocking it.
+        em.createNativeQuery("set local lock_timeout = '10s'").executeUpdate();
+        em.createNativeQuery(INDEX).executeUpdate();
+        em.getTransaction().commit();
+      } catch (RuntimeException e) {
+        if (em.getTransaction().isActive()) {
+          em.getTransaction().rollback();
+        }
+        if (e instanceof IllegalStateException) {
+          throw e;
+        }
+        throw new IllegalStateException(
+            "Unable to create the natural key index of meta_json_record", e);
+      } finally {
+        em.close();
+      }
+      INDEXED.add(key);
+    }
+  }
+
+  private static String describe(List<?> duplicates) {
+    StringBuilder text = new StringBuilder();
+    for (Object duplicate : duplicates) {
+      Object[] columns = (Object[]) duplicate;
+      if (text.length() > 0) {
+        text.append(", ");
+      }
+      text.append(columns[0]).append(" \"").append(columns[1]).append('"');
+    }
+    return text.toString();
+  }
+}
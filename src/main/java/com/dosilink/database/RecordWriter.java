@@ -0,0 +1,83 @@
+package com.dosilink.database;
+
+import com.axelor.app.AppSettings;
+import com.axelor.db.JPA;
+import com.axelor.meta.db.MetaJsonRecord;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.hibernate.ReplicationMode;
+import org.hibernate.Session;
+
+/**
+ * Inserts the records of an import in JDBC batches. A record gets its id from the {@link
+ * IdAllocator} as soon as it is saved, so the importers can refer to it from the next rows, but its
+ * {@code INSERT} is only sent once a batch is full: a parent and the children that embed its id go
+ * to the database together, in one round trip, and their records are then detached, so the
+ * persistence context does not grow with the sheet and each flush only checks the records of one
+ * batch.
+ *
+ * <p>The records are replicated rather than persisted, since persisting would draw an id from the
+ * sequence again; Hibernate queues the insert of a replicated record, with no select, as it does
+ * for a persisted one.
+ *
+ * <p>The batch size is applied to the Hibernate session of the import. For the inserts of the
+ * workers, which interleave partners, employees and records, {@code hibernate.order_inserts} has to
+ * be set in the application settings for the batches not to be broken at every change of table.
+ */
+public class RecordWriter {
+
+  /** Number of records sent to the database in one batch; 1 sends each record on its own. */
+  public static final String BATCH_SIZE = "data.import.batch.size";
+
+  private static final int DEFAULT_BATCH_SIZE = 50;
+
+  private final int batchSize;
+  private final List<MetaJsonRecord> pending = new ArrayList<>();
+
+  public RecordWriter() {
+    this(AppSettings.get().getInt(BATCH_SIZE, DEFAULT_BATCH_SIZE));
+  }
+
+  public RecordWriter(int batchSize) {
+    this.batchSize = Math.max(1, batchSize);
+  }
+
+  /** Saves a new record and returns it with its id; its insert may be sent later. */
+  public MetaJsonRecord insert(MetaJsonRecord record) {
+    Session session = JPA.em().unwrap(Session.class);
+    if (pending.isEmpty()) {
+      session.setJdbcBatchSize(batchSize);
+    }
+    record.setId(IdAllocator.current().next());
+    session.replicate(record, ReplicationMode.EXCEPTION);
+    pending.add(record);
+    if (pending.size() >= batchSize) {
+      flush();
+    }
+    return record;
+  }
+
+  /**
+   * Sends the pending inserts and detaches their records. Committing the transaction sends them as
+   * well, so an importer only calls this to bound the persistence context.
+   *
+   * @throws IllegalStateException if records are pending and no transaction is active: their
+   *     inserts could not be sent, and would be lost
+   */
+  public void flush() {
+    if (pending.isEmpty()) {
+      return;
+    }
+    EntityManager em = JPA.em();
+    if (!em.getTransaction().isActive()) {
+      throw new IllegalStateException(
+          pending.size() + " records are waiting to be inserted, but no transaction is active");
+    }
+    em.flush();
+    for (MetaJsonRecord record : pending) {
+      em.detach(record);
+    }
+    pending.clear();
+  }
+}
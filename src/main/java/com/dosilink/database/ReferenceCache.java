@@ -0,0 +1,227 @@
+package com.dosilink.database;
+
+import com.axelor.app.AppSettings;
+import com.axelor.db.tenants.TenantResolver;
+import com.axelor.meta.db.MetaJsonRecord;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The reference records of a tenant, such as its services, locations and brands, shared by the
+ * importers so that an import loads each model once instead of once per importer, or per row. The
+ * records of a model are kept with an index of their names; a record the import saves is added to
+ * the records of its model, if they are in the cache, instead of the model being loaded again. The
+ * models used least recently are evicted to keep the cache within its size.
+ *
+ * <p>The cached records are read by the importers of several threads: they are only used for their
+ * id and name, which do not depend on the persistence context the records were loaded in.
+ */
+public final class ReferenceCache {
+
+  /** Number of models, over all tenants, the cache keeps; 0 disables it. */
+  public static final String CACHE_SIZE = "data.import.reference.cache.size";
+
+  private static final int DEFAULT_SIZE = 64;
+
+  private static volatile ReferenceCache shared;
+
+  /**
+   * The records of a model, indexed by their normalized name (see {@link ReferenceResolver}) and,
+   * for the models whose names are only unique under a parent, by parent and name. Of homonyms the
+   * newest record, the one imported last, is the one found.
+   *
+   * <p>The indexes are read without a lock while the importer of another thread adds the records
+   * it saves.
+   */
+  public static final class References {
+    /** The attribute holding the parent of a record, for the models that have one. */
+    private static final Map<String, Pattern> PARENTS = new HashMap<>();
+
+    static {
+      PARENTS.put("serviceAffectation", parentPattern("site"));
+      PARENTS.put("location", parentPattern("site"));
+    }
+
+    private final Pattern parent;
+    private final List<MetaJsonRecord> records;
+    private final Set<String> names = ConcurrentHashMap.newKeySet();
+    private final Map<String, MetaJsonRecord> byName = new ConcurrentHashMap<>();
+    private final Map<String, MetaJsonRecord> byParent = new ConcurrentHashMap<>();
+    private final Map<String, MetaJsonRecord> withoutParent = new ConcurrentHashMap<>();
+
+    References(String jsonModel, List<MetaJsonRecord> records) {
+      this.parent = PARENTS.get(jsonModel);
+      this.records = new ArrayList<>(records);
+      for (MetaJsonRecord record : records) {
+        index(record, false);
+      }
+    }
+
+    /** Returns the records, in the order they were loaded then saved. */
+    public List<MetaJsonRecord> getRecords() {
+      synchronized (records) {
+        return Collections.unmodifiableList(new ArrayList<>(records));
+      }
+    }
+
+    public Set<String> getNames() {
+      return Collections.unmodifiableSet(names);
+    }
+
+    /** Returns the record with the normalized name, or null. */
+    MetaJsonRecord get(String key) {
+      return byName.get(key);
+    }
+
+    /**
+     * Returns the record with the normalized name under the parent, or the record with that name
+     * saved without a parent, or null.
+     */
+    MetaJsonRecord get(Long parentId, String key) {
+      MetaJsonRecord record = byParent.get(parentId + "\u0000" + key);
+      return record != null ? record : withoutParent.get(key);
+    }
+
+    /** Adds a record the import has saved, which is then the newest of its homonyms. */
+    void add(MetaJsonRecord record) {
+      synchronized (records) {
+        records.add(record);
+      }
+      index(record, true);
+    }
+
+    private void index(MetaJsonRecord record, boolean newest) {
+      if (record.getName() == null) {
+        return;
+      }
+      names.add(record.getName());
+      String key = ReferenceResolver.normalize(record.getName());
+      put(byName, key, record, newest);
+      if (parent != null) {
+        Matcher matcher = parent.matcher(String.valueOf(record.getAttrs()));
+        if (matcher.find()) {
+          put(byParent, matcher.group(1) + "\u0000" + key, record, newest);
+        } else {
+          put(withoutParent, key, record, newest);
+        }
+      }
+    }
+
+    private static void put(
+        Map<String, MetaJsonRecord> index, String key, MetaJsonRecord record, boolean newest) {
+      if (newest) {
+        index.put(key, record);
+      } else {
+        index.merge(key, record, (other, loaded) -> isNewer(loaded, other) ? loaded : other);
+      }
+    }
+
+    private static boolean isNewer(MetaJsonRecord record, MetaJsonRecord other) {
+      return other.getId() == null || record.getId() != null && record.getId() > other.getId();
+    }
+
+    private static Pattern parentPattern(String attribute) {
+      return Pattern.compile("\"" + attribute + "\"\\s*:\\s*\\{[^{}]*?\"id\"\\s*:\\s*\"?(\\d+)");
+    }
+  }
+
+  /** The place of a model in the cache, filled by the first thread that needs its records. */
+  private static final class Slot {
+    References references;
+  }
+
+  private final int maxEntries;
+  private final LinkedHashMap<String, Slot> slots;
+
+  ReferenceCache(int maxEntries) {
+    this.maxEntries = maxEntries;
+    this.slots =
+        new LinkedHashMap<String, Slot>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Slot> eldest) {
+            return size() > ReferenceCache.this.maxEntries;
+          }
+        };
+  }
+
+  /** Returns the cache configured in the application settings. */
+  public static ReferenceCache shared() {
+    if (shared == null) {
+      synchronized (ReferenceCache.class) {
+        if (shared == null) {
+          shared = new ReferenceCache(AppSettings.get().getInt(CACHE_SIZE, DEFAULT_SIZE));
+        }
+      }
+    }
+    return shared;
+  }
+
+  /**
+   * Returns the records of a model of the current tenant, loaded with the loader if they are not in
+   * the cache. Other threads asking for the same model meanwhile wait for the records to be loaded.
+   */
+  public References get(String jsonModel, Supplier<List<MetaJsonRecord>> loader) {
+    if (maxEntries <= 0) {
+      return new References(jsonModel, loader.get());
+    }
+    Slot slot;
+    synchronized (slots) {
+      slot = slots.computeIfAbsent(key(jsonModel), key -> new Slot());
+    }
+    synchronized (slot) {
+      if (slot.references == null) {
+        slot.references = new References(jsonModel, loader.get());
+      }
+      return slot.references;
+    }
+  }
+
+  /**
+   * Adds a record saved by the import to the records of its model, if they are in the cache; they
+   * are loaded with the record otherwise.
+   */
+  public void add(MetaJsonRecord record) {
+    if (maxEntries <= 0) {
+      return;
+    }
+    Slot slot;
+    synchronized (slots) {
+      slot = slots.get(key(record.getJsonModel()));
+    }
+    if (slot != null) {
+      synchronized (slot) {
+        if (slot.references != null) {
+          slot.references.add(record);
+        }
+      }
+    }
+  }
+
+  /** Drops the records of every model of the current tenant. */
+  public void invalidateTenant() {
+    String prefix = key("");
+    synchronized (slots) {
+      Iterator<String> keys = slots.keySet().iterator();
+      while (keys.hasNext()) {
+        if (keys.next().startsWith(prefix)) {
+          keys.remove();
+        }
+      }
+    }
+  }
+
+  private static String key(String jsonModel) {
+    String tenant = TenantResolver.currentTenantIdentifier();
+    return (tenant == null ? "" : tenant) + '\u0000' + jsonModel;
+  }
+}
@@ -0,0 +1,83 @@
+package com.dosilink.database;
+
+import com.axelor.meta.db.MetaJsonRecord;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.StringDictionary;
+import com.dosilink.datasource.StringIdMap;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the records the cells of a row name, such as the service, the location and the brand of a
+ * generator, among the records of the database. The records are indexed by their own name, so a
+ * reference does not depend on the order the records are returned in, nor on the sheet they were
+ * imported from. Names are compared once normalized: case, spaces around and between words and the
+ * Unicode form of accents do not tell two names apart.
+ *
+ * <p>A location is looked up under its service, so that rooms with the same name in two services
+ * are told apart.
+ *
+ * <p>A resolver belongs to one importer: the normalized names of the texts of the workbook are kept
+ * by id, and each text is normalized once for the whole import.
+ */
+public final class ReferenceResolver {
+
+  /** The models of the records the rows refer to. */
+  public static final String SERVICE = "serviceAffectation";
+  public static final String LOCATION = "location";
+  public static final String BRAND = "Brand";
+  public static final String FUNCTION_GRADE = "functionGrade";
+  public static final String INSTALLATION_TYPE = "InstallationType";
+  public static final String MEASURING_DEVICE_TYPE = "MeasuringDeviceType";
+  public static final String WORKER_STATION = "workerStation";
+
+  private static final Pattern SPACES = Pattern.compile("[\\s\\u00A0]+");
+
+  private final Database database;
+  private final StringDictionary strings;
+  private final StringIdMap<String> keys = new StringIdMap<>();
+
+  public ReferenceResolver(Database database, StringDictionary strings) {
+    this.database = database;
+    this.strings = strings;
+  }
+
+  /** Returns the record of the model named in the column, or null. */
+  public MetaJsonRecord find(String jsonModel, SheetRow row, int column) {
+    String key = keyOf(row, column);
+    return key == null ? null : database.references(jsonModel).get(key);
+  }
+
+  /**
+   * Returns the record of the model named in the column under the parent, or, when the row names no
+   * parent, the record with that name. Returns null if there is none.
+   */
+  public MetaJsonRecord find(String jsonModel, MetaJsonRecord parent, SheetRow row, int column) {
+    if (parent == null) {
+      return find(jsonModel, row, column);
+    }
+    String key = keyOf(row, column);
+    return key == null ? null : database.references(jsonModel).get(parent.getId(), key);
+  }
+
+  /** The form names are compared in. */
+  public static String normalize(String name) {
+    String composed = Normalizer.normalize(name, Normalizer.Form.NFC);
+    return SPACES.matcher(composed).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+  }
+
+  /** The normalized text of a column, or null when the column holds no text. */
+  public String keyOf(SheetRow row, int column) {
+    int id = strings.idOf(row, column);
+    if (id < 0) {
+      return null;
+    }
+    String key = keys.get(id);
+    if (key == null) {
+      key = normalize(strings.get(id));
+      keys.put(id, key);
+    }
+    return key;
+  }
+}
@@ -0,0 +1,9 @@
+package com.dosilink.datasource;
+
+public enum CellKind {
+  STRING,
+  NUMERIC,
+  BOOLEAN,
+  ERROR,
+  BLANK
+}
@@ -0,0 +1,138 @@
+package com.dosilink.datasource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The sheets of a workbook exported as CSV or TSV: a single {@code .csv}/{@code .tsv} file, or a
+ * {@code .zip} bundle holding one such file per sheet. A single file is memory-mapped and parsed in
+ * place; the files of a bundle are inflated once into memory, through {@link ZipArchive}, which
+ * holds them to the limits of {@link org.apache.poi.openxml4j.util.ZipSecureFile}.
+ *
+ * <p>A file is the sheet whose index its name starts with, so that {@code 3_generateurs.csv} is the
+ * generator sheet. The files of a bundle whose name does not start with a number take, in name
+ * order, the indexes left free; a single file with no number is sheet 0.
+ */
+final class CsvBundle {
+
+  private final Map<Integer, CsvSheet> sheets;
+
+  private CsvBundle(Map<Integer, CsvSheet> sheets) {
+    this.sheets = sheets;
+  }
+
+  static boolean accepts(String path) {
+    return isCsv(path) || path.toLowerCase().endsWith(".zip");
+  }
+
+  static CsvBundle open(File file) {
+    try {
+      if (isCsv(file.getName())) {
+        Map<Integer, CsvSheet> sheets = new TreeMap<>();
+        int index = Math.max(0, leadingNumber(file.getName()));
+        sheets.put(index, new CsvSheet(map(file), delimiterOf(file.getName())));
+        return new CsvBundle(sheets);
+      }
+      return new CsvBundle(readZip(file));
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read " + file, e);
+    }
+  }
+
+  /** The indexes of the sheets of the bundle, in ascending order. */
+  List<Integer> getSheetIndexes() {
+    return new ArrayList<>(sheets.keySet());
+  }
+
+  ExcelSheet getSheet(int indexOfSheet) {
+    CsvSheet sheet = sheets.get(indexOfSheet);
+    if (sheet == null) {
+      throw new IllegalArgumentException("No file for sheet " + indexOfSheet + " in the bundle");
+    }
+    return sheet;
+  }
+
+  private static Map<Integer, CsvSheet> readZip(File file) throws IOException {
+    Map<Integer, CsvSheet> sheets = new TreeMap<>();
+    try (ZipArchive zip = ZipArchive.open(file)) {
+      List<String> unnumbered = new ArrayList<>();
+      List<String> entries = new ArrayList<>(zip.names());
+      entries.sort(null);
+      for (String entry : entries) {
+        String name = new File(entry).getName();
+        if (entry.endsWith("/") || !isCsv(name)) {
+          continue;
+        }
+        int index = leadingNumber(name);
+        if (index < 0) {
+          unnumbered.add(entry);
+        } else if (sheets.put(index, read(zip, entry)) != null) {
+          throw new IllegalArgumentException("Several files for sheet " + index + " in " + file);
+        }
+      }
+      int index = 0;
+      for (String entry : unnumbered) {
+        while (sheets.containsKey(index)) {
+          index++;
+        }
+        sheets.put(index, read(zip, entry));
+      }
+    }
+    if (sheets.isEmpty()) {
+      throw new IllegalArgumentException("No CSV or TSV file in " + file);
+    }
+    return sheets;
+  }
+
+  /** Inflates a file of a bundle, which the archive stops at the size it declares. */
+  private static CsvSheet read(ZipArchive zip, String entry) throws IOException {
+    long size = zip.sizeOf(entry);
+    if (size > Integer.MAX_VALUE - 8) {
+      throw new IOException(entry + " is too large to be read into memory: " + size + " bytes");
+    }
+    byte[] bytes = new byte[(int) size];
+    int length = 0;
+    try (InputStream in = zip.open(entry)) {
+      int read;
+      while (length < bytes.length && (read = in.read(bytes, length, bytes.length - length)) > 0) {
+        length += read;
+      }
+      if (in.read() != -1) {
+        throw new IOException(entry + " holds more bytes than it declares");
+      }
+    }
+    return new CsvSheet(ByteBuffer.wrap(bytes, 0, length).slice(), delimiterOf(entry));
+  }
+
+  private static ByteBuffer map(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  private static boolean isCsv(String name) {
+    String lower = name.toLowerCase();
+    return lower.endsWith(".csv") || lower.endsWith(".tsv");
+  }
+
+  /** Tab for a {@code .tsv} file; for a {@code .csv} file the delimiter is guessed. */
+  private static byte delimiterOf(String name) {
+    return name.toLowerCase().endsWith(".tsv") ? (byte) '\t' : 0;
+  }
+
+  private static int leadingNumber(String name) {
+    int number = -1;
+    for (int i = 0; i < name.length() && Character.isDigit(name.charAt(i)); i++) {
+      number = Math.max(number, 0) * 10 + (name.charAt(i) - '0');
+    }
+    return number;
+  }
+}
@@ -0,0 +1,141 @@
+package com.dosilink.datasource;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+/**
+ * A field of a {@link CsvRow}. CSV has no cell types: a field that reads as a number is {@link
+ * CellKind#NUMERIC}, any other non-empty field is {@link CellKind#STRING}, and the text of a field
+ * can be read whatever its kind. Dates are read from Excel serials or from {@code yyyy-MM-dd} and
+ * {@code dd/MM/yyyy} text.
+ */
+final class CsvCell implements SheetCell {
+
+  private final CsvSheet sheet;
+  private final int rowIndex;
+  private final int columnIndex;
+  private final int from;
+  private final int to;
+  private final boolean escapedQuotes;
+  private final CellKind kind;
+  private String text;
+
+  CsvCell(
+      CsvSheet sheet,
+      int rowIndex,
+      int columnIndex,
+      int from,
+      int to,
+      boolean escapedQuotes,
+      CellKind kind) {
+    this.sheet = sheet;
+    this.rowIndex = rowIndex;
+    this.columnIndex = columnIndex;
+    this.from = from;
+    this.to = to;
+    this.escapedQuotes = escapedQuotes;
+    this.kind = kind;
+  }
+
+  @Override
+  public CellKind getCellKind() {
+    return kind;
+  }
+
+  @Override
+  public int getRowIndex() {
+    return rowIndex;
+  }
+
+  @Override
+  public int getColumnIndex() {
+    return columnIndex;
+  }
+
+  @Override
+  public String getStringCellValue() {
+    if (text == null) {
+      text = sheet.decode(from, to, escapedQuotes);
+    }
+    return text;
+  }
+
+  @Override
+  public double getNumericCellValue() {
+    switch (kind) {
+      case NUMERIC:
+        return Double.parseDouble(getStringCellValue().replace(',', '.'));
+      case BLANK:
+        return 0.0;
+      default:
+        throw typeMismatch(CellKind.NUMERIC);
+    }
+  }
+
+  @Override
+  public Date getDateCellValue() {
+    switch (kind) {
+      case NUMERIC:
+        return DateUtil.getJavaDate(getNumericCellValue(), false);
+      case BLANK:
+        return null;
+      default:
+        return Date.from(parseDate().atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+  }
+
+  @Override
+  public LocalDate getLocalDateCellValue() {
+    switch (kind) {
+      case NUMERIC:
+        return ExcelDates.toLocalDate(getNumericCellValue(), false);
+      case BLANK:
+        return null;
+      default:
+        return parseDate();
+    }
+  }
+
+  /** Reads {@code yyyy-MM-dd} or {@code dd/MM/yyyy}, ignoring a time after the date. */
+  private LocalDate parseDate() {
+    String value = getStringCellValue().trim();
+    int[] parts = new int[3];
+    int[] lengths = new int[3];
+    int part = 0;
+    for (int i = 0; i < value.length() && part < 3; i++) {
+      char c = value.charAt(i);
+      if (c >= '0' && c <= '9') {
+        parts[part] = parts[part] * 10 + (c - '0');
+        lengths[part]++;
+      } else if (lengths[part] > 0 && (c == '-' || c == '/' || c == '.') && part < 2) {
+        part++;
+      } else {
+        break;
+      }
+    }
+    try {
+      if (lengths[0] == 4 && lengths[1] > 0 && lengths[2] > 0) {
+        return LocalDate.of(parts[0], parts[1], parts[2]);
+      }
+      if (lengths[2] == 4 && lengths[0] > 0 && lengths[1] > 0) {
+        return LocalDate.of(parts[2], parts[1], parts[0]);
+      }
+    } catch (RuntimeException e) {
+      // not a valid date, reported below
+    }
+    throw new IllegalStateException(
+        "Cannot get a date from \"" + value + "\" at row " + (rowIndex + 1));
+  }
+
+  private IllegalStateException typeMismatch(CellKind expected) {
+    return new IllegalStateException(
+        "Cannot get a " + expected + " value from a " + kind + " cell at row " + (rowIndex + 1));
+  }
+
+  @Override
+  public String toString() {
+    return getStringCellValue();
+  }
+}
@@ -0,0 +1,83 @@
+package com.dosilink.datasource;
+
+/** A record of a {@link CsvSheet}. Its cells are built, and their text decoded, when first read. */
+final class CsvRow implements SheetRow {
+
+  private final CsvSheet sheet;
+  private final int rowNum;
+  private final int[] bounds;
+  private final boolean[] escapedQuotes;
+  private final SheetCell[] cells;
+
+  CsvRow(CsvSheet sheet, int rowNum, int[] bounds, boolean[] escapedQuotes) {
+    this.sheet = sheet;
+    this.rowNum = rowNum;
+    this.bounds = bounds;
+    this.escapedQuotes = escapedQuotes;
+    this.cells = new SheetCell[escapedQuotes.length];
+  }
+
+  @Override
+  public int getRowNum() {
+    return rowNum;
+  }
+
+  @Override
+  public SheetCell getCell(int column) {
+    if (column < 0 || column >= cells.length) {
+      return null;
+    }
+    SheetCell cell = cells[column];
+    if (cell == null) {
+      int from = bounds[2 * column];
+      int to = bounds[2 * column + 1];
+      cell = new CsvCell(sheet, rowNum, column, from, to, escapedQuotes[column], kindOf(from, to));
+      cells[column] = cell;
+    }
+    return cell;
+  }
+
+  @Override
+  public int getLastCellNum() {
+    return cells.length == 0 ? -1 : cells.length;
+  }
+
+  @Override
+  public boolean hasValue(int column) {
+    return column >= 0 && column < cells.length && bounds[2 * column] < bounds[2 * column + 1];
+  }
+
+  /** Tells numbers from text without decoding the field. */
+  private CellKind kindOf(int from, int to) {
+    if (from == to) {
+      return CellKind.BLANK;
+    }
+    boolean decimalComma = sheet.getDelimiter() != ',';
+    int i = from;
+    byte b = sheet.byteAt(i);
+    if (b == '-' || b == '+') {
+      i++;
+    }
+    boolean digits = false;
+    boolean separator = false;
+    boolean exponent = false;
+    for (; i < to; i++) {
+      b = sheet.byteAt(i);
+      if (b >= '0' && b <= '9') {
+        digits = true;
+      } else if ((b == '.' || (b == ',' && decimalComma)) && !separator && !exponent) {
+        separator = true;
+      } else if ((b == 'e' || b == 'E') && digits && !exponent && i + 1 < to) {
+        exponent = true;
+        digits = false;
+        byte sign = sheet.byteAt(i + 1);
+        if (sign == '-' || sign == '+') {
+          i++;
+        }
+      } else {
+        return CellKind.STRING;
+      }
+    }
+    return digits ? CellKind.NUMERIC : CellKind.STRING;
+  }
+}
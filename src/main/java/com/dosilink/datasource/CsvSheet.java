@@ -0,0 +1,241 @@
+package com.dosilink.datasource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A sheet exported as CSV or TSV, parsed in place from the bytes of the file. A pass over the sheet
+ * only records where each field starts and ends; the text of a field is decoded when an importer
+ * reads its cell. Records follow RFC 4180: fields may be quoted, and quoted fields may hold
+ * delimiters, line breaks and doubled quotes.
+ *
+ * <p>The records are numbered from 0 like the rows of a workbook, blank lines included, so the
+ * header rows and the row numbers of an import request mean the same thing as for a workbook. The
+ * text is read as UTF-8, or as Windows-1252 when the file is not valid UTF-8, which is what Excel
+ * writes when it saves a sheet as CSV.
+ */
+final class CsvSheet implements ExcelSheet {
+
+  private static final byte QUOTE = '"';
+  private static final byte CR = '\r';
+  private static final byte LF = '\n';
+  private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+
+  private final ByteBuffer buffer;
+  private final int start;
+  private final byte delimiter;
+  private final Charset charset;
+
+  /**
+   * @param buffer the content of the file, from position 0 to its limit
+   * @param delimiter the field delimiter, or 0 to guess it from the first record
+   */
+  CsvSheet(ByteBuffer buffer, byte delimiter) {
+    this.buffer = buffer;
+    this.start = hasUtf8Bom(buffer) ? 3 : 0;
+    this.delimiter = delimiter != 0 ? delimiter : guessDelimiter(buffer, start);
+    this.charset = isUtf8(buffer, start) ? StandardCharsets.UTF_8 : WINDOWS_1252;
+  }
+
+  byte getDelimiter() {
+    return delimiter;
+  }
+
+  @Override
+  public Iterator<SheetRow> iterator() {
+    return new Records();
+  }
+
+  /** Decodes the bytes {@code from} to {@code to} of the file. */
+  String decode(int from, int to, boolean escapedQuotes) {
+    String text;
+    if (buffer.hasArray()) {
+      text = new String(buffer.array(), buffer.arrayOffset() + from, to - from, charset);
+    } else {
+      byte[] bytes = new byte[to - from];
+      ByteBuffer field = buffer.duplicate();
+      field.limit(to);
+      field.position(from);
+      field.get(bytes);
+      text = new String(bytes, charset);
+    }
+    return escapedQuotes ? text.replace("\"\"", "\"") : text;
+  }
+
+  byte byteAt(int index) {
+    return buffer.get(index);
+  }
+
+  private class Records implements Iterator<SheetRow> {
+    private int position = start;
+    private int rowNum;
+    private SheetRow next;
+    /** Start and end offset of each field of the record being read. */
+    private int[] bounds = new int[64];
+    private boolean[] escaped = new boolean[32];
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && position < buffer.limit()) {
+        next = readRecord();
+      }
+      return next != null;
+    }
+
+    @Override
+    public SheetRow next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      SheetRow row = next;
+      next = null;
+      return row;
+    }
+
+    /** Reads the record at the current position, or returns {@code null} for a blank line. */
+    private SheetRow readRecord() {
+      int limit = buffer.limit();
+      int fields = 0;
+      boolean quotedFirst = false;
+      boolean endOfRecord = false;
+      while (!endOfRecord) {
+        int from = position;
+        int to;
+        boolean quotes = false;
+        if (position < limit && buffer.get(position) == QUOTE) {
+          quotedFirst |= fields == 0;
+          from = ++position;
+          while (true) {
+            if (position >= limit) {
+              to = limit;
+              break;
+            }
+            if (buffer.get(position) == QUOTE) {
+              if (position + 1 < limit && buffer.get(position + 1) == QUOTE) {
+                quotes = true;
+                position += 2;
+                continue;
+              }
+              to = position++;
+              break;
+            }
+            position++;
+          }
+          // anything between the closing quote and the delimiter is dropped
+          while (position < limit && !isSeparator(buffer.get(position))) {
+            position++;
+          }
+        } else {
+          while (position < limit && !isSeparator(buffer.get(position))) {
+            position++;
+          }
+          to = position;
+        }
+        if (position >= limit) {
+          endOfRecord = true;
+        } else if (buffer.get(position) == delimiter) {
+          position++;
+        } else {
+          endOfRecord = true;
+          if (buffer.get(position) == CR
+              && position + 1 < limit
+              && buffer.get(position + 1) == LF) {
+            position++;
+          }
+          position++;
+        }
+        if (2 * fields + 1 >= bounds.length) {
+          bounds = Arrays.copyOf(bounds, bounds.length * 2);
+          escaped = Arrays.copyOf(escaped, escaped.length * 2);
+        }
+        bounds[2 * fields] = from;
+        bounds[2 * fields + 1] = to;
+        escaped[fields] = quotes;
+        fields++;
+      }
+      int rowIndex = rowNum++;
+      if (fields == 1 && bounds[0] == bounds[1] && !quotedFirst) {
+        return null;
+      }
+      return new CsvRow(
+          CsvSheet.this,
+          rowIndex,
+          Arrays.copyOf(bounds, 2 * fields),
+          Arrays.copyOf(escaped, fields));
+    }
+
+    private boolean isSeparator(byte b) {
+      return b == delimiter || b == LF || b == CR;
+    }
+  }
+
+  private static boolean hasUtf8Bom(ByteBuffer buffer) {
+    return buffer.limit() >= 3
+        && buffer.get(0) == (byte) 0xEF
+        && buffer.get(1) == (byte) 0xBB
+        && buffer.get(2) == (byte) 0xBF;
+  }
+
+  /** Picks the most frequent of comma, semicolon and tab outside quotes in the first record. */
+  private static byte guessDelimiter(ByteBuffer buffer, int start) {
+    int commas = 0;
+    int semicolons = 0;
+    int tabs = 0;
+    boolean quoted = false;
+    for (int i = start; i < buffer.limit(); i++) {
+      byte b = buffer.get(i);
+      if (b == QUOTE) {
+        quoted = !quoted;
+      } else if (!quoted) {
+        if (b == LF || b == CR) {
+          break;
+        } else if (b == ',') {
+          commas++;
+        } else if (b == ';') {
+          semicolons++;
+        } else if (b == '\t') {
+          tabs++;
+        }
+      }
+    }
+    if (tabs > commas && tabs > semicolons) {
+      return '\t';
+    }
+    return semicolons > commas ? (byte) ';' : (byte) ',';
+  }
+
+  private static boolean isUtf8(ByteBuffer buffer, int start) {
+    int limit = buffer.limit();
+    int i = start;
+    while (i < limit) {
+      int b = buffer.get(i) & 0xFF;
+      int continuation;
+      if (b < 0x80) {
+        i++;
+        continue;
+      } else if (b >= 0xC2 && b <= 0xDF) {
+        continuation = 1;
+      } else if (b >= 0xE0 && b <= 0xEF) {
+        continuation = 2;
+      } else if (b >= 0xF0 && b <= 0xF4) {
+        continuation = 3;
+      } else {
+        return false;
+      }
+      if (i + continuation >= limit) {
+        return false;
+      }
+      for (int k = 1; k <= continuation; k++) {
+        if ((buffer.get(i + k) & 0xC0) != 0x80) {
+          return false;
+        }
+      }
+      i += continuation + 1;
+    }
+    return true;
+  }
+}
@@ -0,0 +1,62 @@
+package com.dosilink.datasource;
+
+import java.time.LocalDate;
+
+/**
+ * Converts Excel serial dates straight to epoch days and {@link LocalDate}s, without going through
+ * {@code java.util.Date} and the default time zone. Sheets repeat the same few dates many times, so
+ * the last dates built are kept in a small direct-mapped table and handed out again.
+ */
+public final class ExcelDates {
+
+  /** Epoch day of serial 0 in the 1900 date system, for serials after the phantom 1900-02-29. */
+  private static final int EPOCH_1900 = 25569;
+  /** Epoch day of serial 0 in the 1904 date system. */
+  private static final int EPOCH_1904 = 24107;
+
+  private static final int MEMO_SIZE = 1024;
+  private static final Memo[] MEMO = new Memo[MEMO_SIZE];
+
+  private static final class Memo {
+    final int epochDay;
+    final LocalDate date;
+
+    Memo(int epochDay, LocalDate date) {
+      this.epochDay = epochDay;
+      this.date = date;
+    }
+  }
+
+  private ExcelDates() {}
+
+  /**
+   * Whole days of a serial date since 1970-01-01. In the 1900 system serials below 61 are shifted
+   * by one day, since Excel counts a 1900-02-29 that never existed.
+   */
+  public static int toEpochDay(double serial, boolean date1904) {
+    int wholeDays = (int) Math.floor(serial);
+    if (date1904) {
+      return wholeDays - EPOCH_1904;
+    }
+    return wholeDays < 61 ? wholeDays - EPOCH_1900 + 1 : wholeDays - EPOCH_1900;
+  }
+
+  /** Returns the date of a serial, or {@code null} for a negative serial as POI does. */
+  public static LocalDate toLocalDate(double serial, boolean date1904) {
+    if (serial < 0) {
+      return null;
+    }
+    return ofEpochDay(toEpochDay(serial, date1904));
+  }
+
+  public static LocalDate ofEpochDay(int epochDay) {
+    int slot = epochDay & (MEMO_SIZE - 1);
+    Memo memo = MEMO[slot];
+    if (memo != null && memo.epochDay == epochDay) {
+      return memo.date;
+    }
+    LocalDate date = LocalDate.ofEpochDay(epochDay);
+    MEMO[slot] = new Memo(epochDay, date);
+    return date;
+  }
+}
@@ -1,18 +1,31 @@
 package com.dosilink.datasource;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 public class ExcelReader {
 
+  public enum Mode {
+    /** Loads the whole workbook in memory with POI's user model. */
+    DOM,
+    /** Streams {@code .xlsx} sheets row by row; {@code .xls} files are still loaded in memory. */
+    STREAMING
+  }
+
   private final String path;
+  private final Mode mode;
 
   public ExcelReader(String path) {
+    this(path, Mode.STREAMING);
+  }
+
+  public ExcelReader(String path, Mode mode) {
     this.path = path;
+    this.mode = mode;
   }
 
   private Workbook getWorkbook(FileInputStream inputStream, String excelFilePath)
@@ -28,12 +41,16 @@ public class ExcelReader {
     return workbook;
   }
 
-  public Sheet readSheet(int indexOfSheet) throws Exception {
-
-    FileInputStream inputStream = new FileInputStream(this.path);
-    ExcelReader r = new ExcelReader(this.path);
-    Workbook workbook = r.getWorkbook(inputStream, this.path);
-    Sheet styleSheet = workbook.getSheetAt(indexOfSheet);
-    return styleSheet;
+  public ExcelSheet readSheet(int indexOfSheet) throws Exception {
+    if (CsvBundle.accepts(this.path)) {
+      return CsvBundle.open(new File(this.path)).getSheet(indexOfSheet);
+    }
+    if (mode == Mode.STREAMING && this.path.endsWith("xlsx")) {
+      return new StreamingXlsxSheet(new File(this.path), indexOfSheet);
+    }
+    try (FileInputStream inputStream = new FileInputStream(this.path)) {
+      Workbook workbook = getWorkbook(inputStream, this.path);
+      return new PoiSheet(workbook.getSheetAt(indexOfSheet));
+    }
   }
 }
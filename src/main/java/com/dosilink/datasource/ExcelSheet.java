@@ -0,0 +1,27 @@
+package com.dosilink.datasource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * A sheet that can be iterated row by row. Each call to {@link #iterator()} starts a new pass
+ * from the first row, so importers may scan the same sheet several times.
+ *
+ * <p>The iterator of a streamed sheet holds the parser of the sheet part, and is {@link Closeable}:
+ * it releases the parser once its last row has been read, and a caller that stops before closes it
+ * with {@link #close(Iterator)}.
+ */
+public interface ExcelSheet extends Iterable<SheetRow> {
+
+  /** Closes the iterator of a sheet if it holds anything, as the one of a streamed sheet does. */
+  static void close(Iterator<SheetRow> rows) {
+    if (rows instanceof Closeable) {
+      try {
+        ((Closeable) rows).close();
+      } catch (IOException e) {
+        // the rows that were needed have been read, a failure to release the parser is not fatal
+      }
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.dosilink.datasource;
+
+import com.axelor.db.JPA;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Writes the rows of a sheet in chunks. Each chunk is persisted and committed in its own
+ * transaction and the persistence context is cleared before the next chunk is read, so the memory
+ * an import holds is bounded by the chunk size instead of the number of rows.
+ */
+public final class ImportChunks {
+
+  /** Number of rows written per transaction; 0, the default, writes a sheet in one transaction. */
+  public static final String CHUNK_SIZE = "data.import.chunk.size";
+
+  public interface RowWriter {
+    void write(SheetRow row) throws Exception;
+  }
+
+  private ImportChunks() {}
+
+  /**
+   * Writes every row with the writer. Without a chunk size the rows are written in the caller's
+   * transaction. The sheet is released when a row fails, as well as after the last row.
+   */
+  public static void write(Iterable<SheetRow> rows, int chunkSize, RowWriter writer)
+      throws Exception {
+    Iterator<SheetRow> iterator = rows.iterator();
+    try {
+      if (chunkSize <= 0) {
+        while (iterator.hasNext()) {
+          writer.write(iterator.next());
+        }
+        return;
+      }
+      List<SheetRow> chunk = new ArrayList<>(chunkSize);
+      while (iterator.hasNext()) {
+        chunk.add(iterator.next());
+        if (chunk.size() == chunkSize) {
+          commit(chunk, writer);
+        }
+      }
+      commit(chunk, writer);
+    } finally {
+      ExcelSheet.close(iterator);
+    }
+  }
+
+  private static void commit(List<SheetRow> chunk, RowWriter writer) throws Exception {
+    if (chunk.isEmpty()) {
+      return;
+    }
+    try {
+      JPA.runInTransaction(
+          () -> {
+            for (SheetRow row : chunk) {
+              try {
+                writer.write(row);
+              } catch (RuntimeException e) {
+                throw e;
+              } catch (Exception e) {
+                throw new CompletionException(e);
+              }
+            }
+          });
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof Exception) {
+        throw (Exception) e.getCause();
+      }
+      throw e;
+    }
+    JPA.clear();
+    chunk.clear();
+  }
+}
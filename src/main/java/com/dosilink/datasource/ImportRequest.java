@@ -0,0 +1,131 @@
+package com.dosilink.datasource;
+
+import com.dosilink.database.DeltaIndex;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Says which sheets of a workbook, and which rows of those sheets, an import should read. A request
+ * with no sheet selected imports the whole workbook. Once a sheet or a row range is selected the
+ * import is partial: only the selected sheets are parsed and persisted. The references of the rows
+ * to services, locations, brands... are always looked up by name among the records in the database
+ * (see {@link com.dosilink.database.ReferenceResolver}), so they need not be imported again.
+ *
+ * <p>Row numbers are the ones Excel shows, starting at 1. The header rows of a selected sheet are
+ * always read.
+ *
+ * <p>With a chunk size the sheets are streamed rather than kept in memory, and the rows are written
+ * and committed by chunks of that many rows (see {@link ImportChunks}).
+ *
+ * <p>A delta import compares each row with the records imported from the workbook before (see
+ * {@link DeltaIndex}): it inserts the new rows, updates the changed ones and leaves the others.
+ */
+public class ImportRequest {
+
+  private final String sourceFile;
+  private final Map<Integer, List<int[]>> sheets = new LinkedHashMap<>();
+  private int chunkSize;
+  private boolean delta;
+
+  public ImportRequest(String sourceFile) {
+    this.sourceFile = sourceFile;
+  }
+
+  public String getSourceFile() {
+    return sourceFile;
+  }
+
+  /** Selects every row of a sheet. */
+  public ImportRequest sheet(int indexOfSheet) {
+    sheets.put(indexOfSheet, Collections.emptyList());
+    return this;
+  }
+
+  /** Selects the rows {@code firstRow} to {@code lastRow}, both included, of a sheet. */
+  public ImportRequest rows(int indexOfSheet, int firstRow, int lastRow) {
+    if (firstRow < 1 || lastRow < firstRow) {
+      throw new IllegalArgumentException("Invalid row range " + firstRow + "-" + lastRow);
+    }
+    List<int[]> ranges = sheets.get(indexOfSheet);
+    if (ranges == null) {
+      ranges = new ArrayList<>();
+      sheets.put(indexOfSheet, ranges);
+    } else if (ranges.isEmpty()) {
+      return this;
+    }
+    ranges.add(new int[] {firstRow - 1, lastRow - 1});
+    return this;
+  }
+
+  public ImportRequest chunkSize(int chunkSize) {
+    this.chunkSize = Math.max(0, chunkSize);
+    return this;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  public boolean isChunked() {
+    return chunkSize > 0;
+  }
+
+  public ImportRequest delta(boolean delta) {
+    this.delta = delta;
+    return this;
+  }
+
+  public boolean isDelta() {
+    return delta;
+  }
+
+  public boolean isPartial() {
+    return !sheets.isEmpty();
+  }
+
+  public boolean includes(int indexOfSheet) {
+    return !isPartial() || sheets.containsKey(indexOfSheet);
+  }
+
+  /** Whether a data row, given by its 0-based row number, is selected. */
+  public boolean includesRow(int indexOfSheet, int rowNum) {
+    if (rowNum < SheetSchemas.HEADER_ROWS || !isPartial()) {
+      return true;
+    }
+    List<int[]> ranges = sheets.get(indexOfSheet);
+    if (ranges == null) {
+      return false;
+    }
+    if (ranges.isEmpty()) {
+      return true;
+    }
+    for (int[] range : ranges) {
+      if (rowNum >= range[0] && rowNum <= range[1]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the 0-based number of the last row to read from a sheet, or -1 when all rows are. Only
+   * the header rows are read from a sheet a partial request does not select.
+   */
+  public int lastRow(int indexOfSheet) {
+    if (!includes(indexOfSheet)) {
+      return SheetSchemas.HEADER_ROWS - 1;
+    }
+    List<int[]> ranges = sheets.get(indexOfSheet);
+    if (ranges == null || ranges.isEmpty()) {
+      return -1;
+    }
+    int last = -1;
+    for (int[] range : ranges) {
+      last = Math.max(last, range[1]);
+    }
+    return last;
+  }
+}
@@ -0,0 +1,115 @@
+package com.dosilink.datasource;
+
+import java.util.Date;
+import java.util.Iterator;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+/** Exposes a sheet of a fully loaded POI workbook through the {@link ExcelSheet} contract. */
+class PoiSheet implements ExcelSheet {
+
+  private final Sheet sheet;
+
+  PoiSheet(Sheet sheet) {
+    this.sheet = sheet;
+  }
+
+  @Override
+  public Iterator<SheetRow> iterator() {
+    Iterator<Row> rows = sheet.iterator();
+    return new Iterator<SheetRow>() {
+      @Override
+      public boolean hasNext() {
+        return rows.hasNext();
+      }
+
+      @Override
+      public SheetRow next() {
+        return new PoiRow(rows.next());
+      }
+    };
+  }
+
+  private static class PoiRow implements SheetRow {
+    private final Row row;
+
+    PoiRow(Row row) {
+      this.row = row;
+    }
+
+    @Override
+    public int getRowNum() {
+      return row.getRowNum();
+    }
+
+    @Override
+    public SheetCell getCell(int column) {
+      Cell cell = row.getCell(column);
+      return cell == null ? null : new PoiCell(cell);
+    }
+
+    @Override
+    public int getLastCellNum() {
+      return row.getLastCellNum();
+    }
+  }
+
+  private static class PoiCell implements SheetCell {
+    private final Cell cell;
+
+    PoiCell(Cell cell) {
+      this.cell = cell;
+    }
+
+    @Override
+    public CellKind getCellKind() {
+      int type = cell.getCellType();
+      if (type == Cell.CELL_TYPE_FORMULA) {
+        type = cell.getCachedFormulaResultType();
+      }
+      switch (type) {
+        case Cell.CELL_TYPE_STRING:
+          return CellKind.STRING;
+        case Cell.CELL_TYPE_NUMERIC:
+          return CellKind.NUMERIC;
+        case Cell.CELL_TYPE_BOOLEAN:
+          return CellKind.BOOLEAN;
+        case Cell.CELL_TYPE_ERROR:
+          return CellKind.ERROR;
+        default:
+          return CellKind.BLANK;
+      }
+    }
+
+    @Override
+    public int getRowIndex() {
+      return cell.getRowIndex();
+    }
+
+    @Override
+    public int getColumnIndex() {
+      return cell.getColumnIndex();
+    }
+
+    @Override
+    public String getStringCellValue() {
+      return cell.getStringCellValue();
+    }
+
+    @Override
+    public double getNumericCellValue() {
+      return cell.getNumericCellValue();
+    }
+
+    @Override
+    public Date getDateCellValue() {
+      return cell.getDateCellValue();
+    }
+
+    @Override
+    public String toString() {
+      return cell.toString();
+    }
+  }
+}
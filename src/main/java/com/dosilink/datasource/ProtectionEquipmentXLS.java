@@ -2,80 +2,48 @@ package com.dosilink.datasource;
 
 import com.axelor.meta.db.MetaJsonRecord;
 import com.dosilink.database.Database;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-
-import java.util.HashMap;
-import java.util.List;
+import com.dosilink.database.ReferenceResolver;
+import com.dosilink.datasource.SheetSchemas.ProtectionEquipmentColumns;
 
 public class ProtectionEquipmentXLS {
-    private static final int STRUCTURE_CLIENT_SHEET = 0;
-    private static final int PROTECTION_EQUIPMENT_SHEET = 5;
-    private static final int BRAND_NAME = 9;
-    private static final int SERVICE_NAME = 2;
-    private static final int LOCATION_NAME = 6;
-    private static final int BRAND = 2;
-    private static final int SERVICE = 4;
-    private static final int LOCATION = 5;
-    private Database database = new Database();
-    private String sourceFile;
-
-    public ProtectionEquipmentXLS(String sourceFile) {
-        this.sourceFile = sourceFile;
+    public static final int PROTECTION_EQUIPMENT_SHEET = 5;
+    private final Database database;
+    private final ReferenceResolver references;
+    private WorkbookSession session;
+
+    public ProtectionEquipmentXLS(WorkbookSession session) {
+        this.session = session;
+        this.database = new Database(session.getDeltaIndex());
+        this.references = new ReferenceResolver(database, session.getStrings());
     }
 
     public void saveProtectionEquipment() throws Exception{
-        ExcelReader reader = new ExcelReader(sourceFile);
-        Sheet clientStructureSheet = reader.readSheet(STRUCTURE_CLIENT_SHEET);
-        List<MetaJsonRecord> brands = database.findBrand();
-        HashMap<String,MetaJsonRecord> mapBrands = createMapFromXls(clientStructureSheet,brands,BRAND_NAME);
-        List<MetaJsonRecord> services = database.findService();
-        HashMap<String,MetaJsonRecord> mapServices = createMapFromXls(clientStructureSheet,services,SERVICE_NAME);
-        List<MetaJsonRecord> locations = database.findLocations();
-        HashMap<String,MetaJsonRecord> mapLocations = createMapFromXls(clientStructureSheet,locations,LOCATION_NAME);
-        Sheet protectionEquipmentSheet = reader.readSheet(PROTECTION_EQUIPMENT_SHEET);
-        for(Row row : protectionEquipmentSheet){
-            if (row.getRowNum()<2 || !validRow(row,BRAND)){
-                continue;
+        ExcelSheet protectionEquipmentSheet = SheetSchemas.PROTECTION_EQUIPMENT.bind(session.getSheet(PROTECTION_EQUIPMENT_SHEET));
+        ImportChunks.write(protectionEquipmentSheet, session.getRequest().getChunkSize(), row -> {
+            if (row.getRowNum() < SheetSchemas.HEADER_ROWS || !row.hasValue(ProtectionEquipmentColumns.BRAND)){
+                return;
             }
                 MetaJsonRecord brand = null;
-                if (validRow(row,BRAND)) {
-                    brand = mapBrands.get(row.getCell(BRAND).getStringCellValue());
+                if (row.hasValue(ProtectionEquipmentColumns.BRAND)) {
+                    brand = references.find(ReferenceResolver.BRAND, row, ProtectionEquipmentColumns.BRAND);
                     System.out.println(brand);
                 }
                 MetaJsonRecord service = null;
-                if (validRow(row,SERVICE)){
-                    service = mapServices.get(row.getCell(SERVICE).getStringCellValue());
+                if (row.hasValue(ProtectionEquipmentColumns.SERVICE)){
+                    service = references.find(ReferenceResolver.SERVICE, row, ProtectionEquipmentColumns.SERVICE);
                     System.out.println(service);
                 }
                 MetaJsonRecord location = null;
-                if (validRow(row,LOCATION)){
-                    location = mapLocations.get(row.getCell(LOCATION).getStringCellValue());
+                if (row.hasValue(ProtectionEquipmentColumns.LOCATION)){
+                    location = references.find(ReferenceResolver.LOCATION, service, row, ProtectionEquipmentColumns.LOCATION);
                     System.out.println(location);
                 }
                 MetaJsonRecord protectionEquipment = database.saveProtectionEquipment(row,brand,service,location);
                 System.out.println(protectionEquipment);
 
-        }
+        });
 
     }
 
-    private HashMap<String, MetaJsonRecord> createMapFromXls (Sheet xlsSheet, List<MetaJsonRecord> metaJsonRecords, int NUM_COLUMN){
-        int i =0;
-        HashMap<String,MetaJsonRecord> metaJsonRecordHashMap = new HashMap<>();
-        for(Row row : xlsSheet){
-            if (row.getRowNum()<2){
-                continue;
-            }
-            if(validRow(row,NUM_COLUMN)){
-                metaJsonRecordHashMap.put(row.getCell(NUM_COLUMN).getStringCellValue(),metaJsonRecords.get(i));
-                i++;
-            }
-        }
-        return metaJsonRecordHashMap;
-    }
-    private boolean validRow(Row row, int NUM_COLUMN) {
-        return !(row.getCell(NUM_COLUMN) == null || row.getCell(NUM_COLUMN).getStringCellValue().isEmpty());
-    }
 
 }
@@ -4,32 +4,26 @@ import com.axelor.apps.base.db.Partner;
 import com.axelor.apps.hr.db.Employee;
 import com.axelor.meta.db.MetaJsonRecord;
 import com.dosilink.database.Database;
+import com.dosilink.database.ReferenceResolver;
+import com.dosilink.datasource.SheetSchemas.WorkerColumns;
+import com.dosilink.entity.EmployeeAttrs;
 
-import java.util.HashMap;
 import java.util.List;
 
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-
 public class RadiationWorkerXLS {
-  private static final int STRUCTURE_CLIENT_SHEET = 0;
-  private static final int RADIATION_WORKER_SHEET = 1;
+  public static final int RADIATION_WORKER_SHEET = 1;
 
-  private static final int WORKER_NAME = 2;
-  private static final int FUNCTIONGRADE_NAME = 5;
-  private static final int FUNCTIONGRADE_RADIATION_WORKER = 11;
-  private static final int SERVICE_NAME = 2;
-  private static final int SERVICE_RADIATION_WORKER = 12;
-  private static final int NUMBER_SISERI = 10;
-  private final String sourceFile;
-  private Database database = new Database();
+  private final WorkbookSession session;
+  private final Database database;
+  private final ReferenceResolver references;
 
-  public RadiationWorkerXLS(String sourceFile) {
-    this.sourceFile = sourceFile;
+  public RadiationWorkerXLS(WorkbookSession session) {
+    this.session = session;
+    this.database = new Database(session.getDeltaIndex());
+    this.references = new ReferenceResolver(database, session.getStrings());
   }
 
   public void saveRadiationWorkerSheet() throws Exception {
-    ExcelReader reader = new ExcelReader(sourceFile);
     List<MetaJsonRecord> individualEvaluations = database.saveIndividualEvaluation();
     System.out.println(individualEvaluations);
     List<MetaJsonRecord> doseConstraints = database.saveDoseConstraint();
@@ -39,59 +33,44 @@ public class RadiationWorkerXLS {
     MetaJsonRecord [] tabIndividualEvaluations = {individualEvaluations.get(0),individualEvaluations.get(1)};
     MetaJsonRecord [] tabDoseConstraints = {doseConstraints.get(0),doseConstraints.get(1),doseConstraints.get(2)};
     MetaJsonRecord [] tabPassiveDosimetries = {passiveDosimetries.get(0),passiveDosimetries.get(1),passiveDosimetries.get(2),passiveDosimetries.get(3)};
-    Sheet clientStructureSheet = reader.readSheet(STRUCTURE_CLIENT_SHEET);
-    List<MetaJsonRecord> functionGrades = database.findFunctionGrade();
-    HashMap<String, MetaJsonRecord> mapFunctionGrades = createMapFromXls(clientStructureSheet,functionGrades,FUNCTIONGRADE_NAME);
-    System.out.println(mapFunctionGrades);
-    List<MetaJsonRecord> services = database.findService();
-    HashMap<String, MetaJsonRecord> mapServices = createMapFromXls(clientStructureSheet,services,SERVICE_NAME);
-    System.out.println(mapServices);
-    Sheet radiationWorkerSheet = reader.readSheet(RADIATION_WORKER_SHEET);
-    for (Row row : radiationWorkerSheet) {
-      if (row.getRowNum() < 2 || !validRow(row, WORKER_NAME)) {
+    ExcelSheet radiationWorkerSheet = SheetSchemas.RADIATION_WORKER.bind(session.getSheet(RADIATION_WORKER_SHEET));
+    ImportChunks.write(radiationWorkerSheet, session.getRequest().getChunkSize(), row -> {
+      if (row.getRowNum() < SheetSchemas.HEADER_ROWS || !row.hasValue(WorkerColumns.NAME)) {
         System.out.println("worker row number: " + row.getRowNum());
-        continue;
+        return;
+      }
+      if (database.isWorkerUnchanged(row)) {
+        return;
       }
         MetaJsonRecord functionGrade = null;
-        if(validRow(row,FUNCTIONGRADE_RADIATION_WORKER)) {
-          functionGrade = mapFunctionGrades.get(row.getCell(FUNCTIONGRADE_RADIATION_WORKER).getStringCellValue());
+        if(row.hasValue(WorkerColumns.FUNCTION_GRADE)) {
+          functionGrade = references.find(ReferenceResolver.FUNCTION_GRADE, row, WorkerColumns.FUNCTION_GRADE);
           System.out.println(functionGrade);
         }
         MetaJsonRecord service = null;
-        if(validRow(row,SERVICE_RADIATION_WORKER)) {
-          service = mapServices.get(row.getCell(SERVICE_RADIATION_WORKER).getStringCellValue());
+        if(row.hasValue(WorkerColumns.SERVICE)) {
+          service = references.find(ReferenceResolver.SERVICE, row, WorkerColumns.SERVICE);
           System.out.println(service);
         }
-        if(validRow(row,WORKER_NAME)) {
-          Partner partner = database.createPartner(row);
+        if(row.hasValue(WorkerColumns.NAME)) {
+          // A worker whose row has changed keeps its employee and partner.
+          Employee employee = database.findChangedWorkerEmployee(row);
+          if (employee == null) {
+            employee = database.createEmployee(row, functionGrade, service);
+          } else {
+            database.updateEmployee(row, employee, functionGrade, service);
+          }
+          Partner partner = employee.getContactPartner();
           System.out.println(partner);
-          Employee employee = database.createEmployee(row, functionGrade, service);
           database.saveEmployee(employee);
           System.out.println(employee);
           MetaJsonRecord radiationWorker = database.saveRadiationWorker(row, functionGrade, service, employee, partner, tabDoseConstraints, tabIndividualEvaluations, tabPassiveDosimetries);
-          employee.setAttrs(" {\"deleted\": false, \"employeeService\": {\"id\":\"" + service.getId() + "\", \"name\": \"" + service.getName() + "\", \"$version\": 0},\"radiationWorker\": {\"id\":\"" + radiationWorker.getId() + "\"},\"employeeFunction\": {\"id\":\"" + functionGrade.getId() + "\", \"name\":\"" + functionGrade.getName() + "\", \"$version\": 0}, \"serviceAffectation\": {\"id\":\"" + service.getId() + "\", \"name\": \"" + service.getName() + "\"}}");
+          employee.setAttrs(EmployeeAttrs.of(service, functionGrade, radiationWorker));
           database.saveEmployee(employee);
         }
 
-    }
+    });
 
   }
-  private HashMap<String,MetaJsonRecord> createMapFromXls (Sheet xlsSheet,List<MetaJsonRecord> metaJsonRecords,int NUM_COLUMN){
-    int i =0;
-    HashMap<String,MetaJsonRecord> metaJsonRecordHashMap = new HashMap<>();
-    for(Row row : xlsSheet){
-      if (row.getRowNum()<2){
-        continue;
-      }
-      if(validRow(row,NUM_COLUMN)){
-        metaJsonRecordHashMap.put(row.getCell(NUM_COLUMN).getStringCellValue(),metaJsonRecords.get(i));
-        i++;
-      }
-    }
-    return metaJsonRecordHashMap;
-  }
 
-  private boolean validRow(Row row, int NUM_COLUMN) {
-    return !(row.getCell(NUM_COLUMN) == null || row.getCell(NUM_COLUMN).getStringCellValue().isEmpty());
-  }
 }
@@ -0,0 +1,201 @@
+package com.dosilink.datasource;
+
+import java.io.Closeable;
+import java.lang.invoke.MethodHandles;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Describes the columns of a sheet by the position the importers address them with and the header
+ * labels clients give them. Binding a schema to a sheet looks the labels up in the header rows once
+ * and compiles the result into a position table, so that the importers and the entity classes keep
+ * reading {@code row.getCell(SERVICE_NAME)} while the client is free to reorder the columns.
+ *
+ * <p>When a label is found in several header cells, the one closest to the declared position wins;
+ * when it is not found, the declared position is used as is and the missing label is logged. A
+ * sheet in which two columns end up read from the same cell, as when a label is repeated or a
+ * column is missing and another one took its place, is rejected.
+ */
+public final class RowSchema {
+
+  private final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final int headerRows;
+  private final List<Integer> positions = new ArrayList<>();
+  private final List<String[]> labels = new ArrayList<>();
+  /** The first label of each column as declared, to name it in messages. */
+  private final List<String> names = new ArrayList<>();
+
+  /** @param headerRows the number of rows above the first data row */
+  public RowSchema(int headerRows) {
+    this.headerRows = headerRows;
+  }
+
+  public RowSchema column(int position, String... headerLabels) {
+    String[] normalized = new String[headerLabels.length];
+    for (int i = 0; i < headerLabels.length; i++) {
+      normalized[i] = normalize(headerLabels[i]);
+    }
+    positions.add(position);
+    labels.add(normalized);
+    names.add(headerLabels.length > 0 ? headerLabels[0] : null);
+    return this;
+  }
+
+  /**
+   * Returns a view of the sheet whose rows are addressed by the declared positions.
+   *
+   * @throws IllegalArgumentException if two columns resolve to the same cell of the sheet
+   */
+  public ExcelSheet bind(ExcelSheet sheet) {
+    Map<String, List<Integer>> header = readHeader(sheet);
+    int width = 0;
+    for (int position : positions) {
+      width = Math.max(width, position + 1);
+    }
+    int[] table = new int[width];
+    for (int i = 0; i < width; i++) {
+      table[i] = i;
+    }
+    boolean identity = true;
+    Map<Integer, Integer> resolvedBy = new HashMap<>();
+    for (int i = 0; i < positions.size(); i++) {
+      int position = positions.get(i);
+      int resolved = resolve(header, labels.get(i), position);
+      if (resolved < 0) {
+        resolved = position;
+        if (!header.isEmpty()) {
+          logger.warn("No column \"{}\" in the header, read at column {}", names.get(i), position);
+        }
+      }
+      Integer other = resolvedBy.putIfAbsent(resolved, i);
+      if (other != null) {
+        throw new IllegalArgumentException(
+            "Columns \"" + names.get(other) + "\" and \"" + names.get(i)
+                + "\" are both read from column " + resolved + " of the sheet");
+      }
+      table[position] = resolved;
+      identity &= resolved == position;
+    }
+    if (header.isEmpty()) {
+      logger.warn("No header in the sheet, its columns are read at their declared positions");
+    }
+    return identity ? sheet : new BoundSheet(sheet, table);
+  }
+
+  private Map<String, List<Integer>> readHeader(ExcelSheet sheet) {
+    Map<String, List<Integer>> header = new HashMap<>();
+    Iterator<SheetRow> rows = sheet.iterator();
+    while (rows.hasNext()) {
+      SheetRow row = rows.next();
+      if (row.getRowNum() >= headerRows) {
+        break;
+      }
+      for (int column = 0; column < row.getLastCellNum(); column++) {
+        SheetCell cell = row.getCell(column);
+        if (cell != null && cell.getCellKind() == CellKind.STRING) {
+          String label = normalize(cell.getStringCellValue());
+          if (!label.isEmpty()) {
+            header.computeIfAbsent(label, key -> new ArrayList<>()).add(column);
+          }
+        }
+      }
+    }
+    // only the header has been read, the rest of the sheet is not needed
+    ExcelSheet.close(rows);
+    return header;
+  }
+
+  /** Returns the header column of a label closest to the position, or -1 if none has it. */
+  private static int resolve(Map<String, List<Integer>> header, String[] aliases, int position) {
+    int best = -1;
+    for (String alias : aliases) {
+      for (int column : header.getOrDefault(alias, Collections.emptyList())) {
+        if (best < 0 || Math.abs(column - position) < Math.abs(best - position)) {
+          best = column;
+        }
+      }
+    }
+    return best;
+  }
+
+  /** Lower-cases a label and drops accents and punctuation, so "N° de série" matches "n de serie". */
+  static String normalize(String label) {
+    String plain = Normalizer.normalize(label, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    return plain.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", " ").trim();
+  }
+
+  private static final class BoundSheet implements ExcelSheet {
+    private final ExcelSheet sheet;
+    private final int[] table;
+
+    BoundSheet(ExcelSheet sheet, int[] table) {
+      this.sheet = sheet;
+      this.table = table;
+    }
+
+    @Override
+    public Iterator<SheetRow> iterator() {
+      return new BoundRows(sheet.iterator(), table);
+    }
+  }
+
+  private static final class BoundRows implements Iterator<SheetRow>, Closeable {
+    private final Iterator<SheetRow> rows;
+    private final int[] table;
+
+    BoundRows(Iterator<SheetRow> rows, int[] table) {
+      this.rows = rows;
+      this.table = table;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return rows.hasNext();
+    }
+
+    @Override
+    public SheetRow next() {
+      return new BoundRow(rows.next(), table);
+    }
+
+    @Override
+    public void close() {
+      ExcelSheet.close(rows);
+    }
+  }
+
+  private static final class BoundRow implements SheetRow {
+    private final SheetRow row;
+    private final int[] table;
+
+    BoundRow(SheetRow row, int[] table) {
+      this.row = row;
+      this.table = table;
+    }
+
+    @Override
+    public int getRowNum() {
+      return row.getRowNum();
+    }
+
+    @Override
+    public SheetCell getCell(int column) {
+      return row.getCell(column < table.length ? table[column] : column);
+    }
+
+    @Override
+    public int getLastCellNum() {
+      int last = row.getLastCellNum();
+      return last < 0 ? last : Math.max(last, table.length);
+    }
+  }
+}
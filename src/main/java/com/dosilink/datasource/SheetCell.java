@@ -0,0 +1,35 @@
+package com.dosilink.datasource;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * The subset of the POI {@code Cell} contract used by the importers and the entity classes, so
+ * that rows can come from a streaming parser as well as from a POI workbook.
+ */
+public interface SheetCell {
+
+  CellKind getCellKind();
+
+  int getRowIndex();
+
+  int getColumnIndex();
+
+  String getStringCellValue();
+
+  double getNumericCellValue();
+
+  Date getDateCellValue();
+
+  /** Returns the date of this cell, or {@code null} when it is blank. */
+  default LocalDate getLocalDateCellValue() {
+    Date date = getDateCellValue();
+    return date == null ? null : date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+  }
+
+  /** Returns the id of the text of this cell in a dictionary, or -1 when it holds no text. */
+  default int getStringId(StringDictionary strings) {
+    return getCellKind() == CellKind.STRING ? strings.intern(getStringCellValue()) : -1;
+  }
+}
@@ -0,0 +1,57 @@
+package com.dosilink.datasource;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+/** The subset of the POI {@code Row} contract used by the importers and the entity classes. */
+public interface SheetRow {
+
+  int getRowNum();
+
+  /** Returns the cell at the given column, or {@code null} when the row has no such cell. */
+  SheetCell getCell(int column);
+
+  /** Returns the index of the last cell of this row plus one, or -1 when the row has no cell. */
+  int getLastCellNum();
+
+  /** Whether the row has a cell at the given column, even a blank one. */
+  default boolean hasCell(int column) {
+    return getCell(column) != null;
+  }
+
+  /** Whether the given column holds a value: a non-empty text, a number or a boolean. */
+  default boolean hasValue(int column) {
+    SheetCell cell = getCell(column);
+    if (cell == null) {
+      return false;
+    }
+    switch (cell.getCellKind()) {
+      case BLANK:
+        return false;
+      case STRING:
+        return !cell.getStringCellValue().isEmpty();
+      default:
+        return true;
+    }
+  }
+
+  /** Returns the text of the given column, or {@code null} when it holds no value. */
+  default String getString(int column) {
+    return hasValue(column) ? getCell(column).getStringCellValue() : null;
+  }
+
+  /** Returns the number of the given column, or {@code null} when it holds no value. */
+  default Double getNumber(int column) {
+    return hasValue(column) ? getCell(column).getNumericCellValue() : null;
+  }
+
+  /** Returns the date of the given column, or {@code null} when it holds no value. */
+  default Date getDate(int column) {
+    return hasValue(column) ? getCell(column).getDateCellValue() : null;
+  }
+
+  /** Returns the date of the given column, or {@code null} when it holds no value. */
+  default LocalDate getLocalDate(int column) {
+    return hasValue(column) ? getCell(column).getLocalDateCellValue() : null;
+  }
+}
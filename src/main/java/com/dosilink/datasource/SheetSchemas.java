@@ -0,0 +1,247 @@
+package com.dosilink.datasource;
+
+/**
+ * The columns of each sheet of the client onboarding workbook, by the position the importers and
+ * the entity classes read them at and the header labels they are recognised by. The positions are
+ * only declared here: the importers and the entity classes read every cell of a sheet bound to its
+ * schema, by the constants of its columns.
+ */
+public final class SheetSchemas {
+
+  public static final int HEADER_ROWS = 2;
+
+  /** The columns of the structure sheet. */
+  public static final class StructureColumns {
+    public static final int SITE_NAME = 0;
+    public static final int SITE_ADDRESS = 1;
+    public static final int SERVICE_NAME = 2;
+    public static final int SERVICE_RESPONSIBLE = 4;
+    public static final int FUNCTION_GRADE = 5;
+    public static final int LOCALISATION = 6;
+    public static final int INSTALLATION_TYPE = 8;
+    public static final int BRAND_SUPPLIER = 9;
+    public static final int BRAND_SUPPLIER_EPI = 11;
+    public static final int MEASURING_DEVICE_TYPE = 12;
+    public static final int BRAND_DOMAIN = 16;
+    public static final int BRAND_CONTACT_NAME = 17;
+    public static final int BRAND_TYPE = 18;
+    public static final int BRAND_PHONE_NUMBER = 19;
+    public static final int BRAND_EMAIL = 20;
+
+    private StructureColumns() {}
+  }
+
+  /** The columns of the radiation worker sheet. */
+  public static final class WorkerColumns {
+    public static final int CIVILITY = 0;
+    public static final int FIRST_NAME = 1;
+    public static final int NAME = 2;
+    public static final int EMAIL = 3;
+    public static final int BIRTH_DATE = 4;
+    public static final int CONTRACT_TYPE = 5;
+    public static final int CONTRACT_START = 6;
+    public static final int CONTRACT_END = 7;
+    public static final int IONIZING_RADIATION_EXPOSURE = 8;
+    public static final int MAGNETIC_FIELD_EXPOSURE = 9;
+    public static final int SISERI_NUMBER = 10;
+    public static final int FUNCTION_GRADE = 11;
+    public static final int SERVICE = 12;
+    public static final int RADIOLOGICAL_CLASSIFICATION = 13;
+
+    private WorkerColumns() {}
+  }
+
+  /** The columns of the training sheet. */
+  public static final class TrainingColumns {
+    public static final int TYPE = 0;
+    public static final int NAME = 1;
+    public static final int FUNCTION_GRADE = 2;
+    public static final int PERIODIC = 4;
+    public static final int PERIODICITY = 5;
+    public static final int COMMENT = 6;
+
+    private TrainingColumns() {}
+  }
+
+  /** The columns of the X-ray generator sheet. */
+  public static final class GeneratorColumns {
+    public static final int MODALITY = 0;
+    public static final int SERVICE = 1;
+    public static final int LOCATION = 2;
+    public static final int BRAND = 3;
+    public static final int MODEL = 4;
+    public static final int SERIAL_NUMBER = 5;
+    public static final int MACHINE_STATE = 6;
+    public static final int WORK_STATION = 7;
+    public static final int TECHNOLOGY = 8;
+    public static final int INSTALLATION_TYPE = 9;
+    public static final int COMMISSIONING_DATE = 10;
+    public static final int LAST_EQC = 13;
+    public static final int LAST_CQI = 14;
+    public static final int LAST_MONTHLY_CQI = 15;
+
+    private GeneratorColumns() {}
+  }
+
+  /** The columns of the MRI sheet. */
+  public static final class IrmColumns {
+    public static final int SERVICE = 0;
+    public static final int LOCATION = 1;
+    public static final int MACHINE_STATE = 2;
+    public static final int WORK_STATION = 3;
+    public static final int POWER = 4;
+    public static final int BRAND = 5;
+    public static final int MODEL = 6;
+    public static final int SERIAL_NUMBER = 7;
+    public static final int COMMISSIONING_DATE = 8;
+
+    private IrmColumns() {}
+  }
+
+  /** The columns of the protection equipment sheet. */
+  public static final class ProtectionEquipmentColumns {
+    public static final int TYPE = 0;
+    public static final int DEVICE = 1;
+    public static final int BRAND = 2;
+    public static final int SERIAL_NUMBER = 3;
+    public static final int SERVICE = 4;
+    public static final int LOCATION = 5;
+    public static final int THICKNESS = 6;
+    public static final int STATE = 7;
+    public static final int LAST_CHECK = 8;
+    public static final int ACQUISITION_DATE = 9;
+
+    private ProtectionEquipmentColumns() {}
+  }
+
+  /** The columns of the measuring device sheet. */
+  public static final class MeasuringDeviceColumns {
+    public static final int TYPE = 0;
+    public static final int BRAND = 1;
+    public static final int MODEL = 2;
+    public static final int SERIAL_NUMBER = 3;
+    public static final int SERVICE = 4;
+    public static final int LOCATION = 5;
+    public static final int LAST_CHECK = 6;
+    public static final int LAST_CALIBRATION = 7;
+
+    private MeasuringDeviceColumns() {}
+  }
+
+  public static final RowSchema CLIENT_STRUCTURE =
+      new RowSchema(HEADER_ROWS)
+          .column(StructureColumns.SITE_NAME, "Site", "Nom du site")
+          .column(StructureColumns.SITE_ADDRESS, "Adresse", "Adresse du site")
+          .column(StructureColumns.SERVICE_NAME, "Service", "Nom du service")
+          .column(StructureColumns.SERVICE_RESPONSIBLE, "Responsable", "Responsable du service")
+          .column(StructureColumns.FUNCTION_GRADE, "Fonction", "Grade", "Fonction / Grade")
+          .column(StructureColumns.LOCALISATION, "Localisation", "Local")
+          .column(StructureColumns.INSTALLATION_TYPE, "Type d'installation")
+          .column(
+              StructureColumns.BRAND_SUPPLIER, "Marque / Fournisseur", "Marque", "Fournisseur")
+          .column(
+              StructureColumns.BRAND_SUPPLIER_EPI,
+              "Marque / Fournisseur EPI",
+              "Marque EPI",
+              "Fournisseur EPI")
+          .column(
+              StructureColumns.MEASURING_DEVICE_TYPE,
+              "Type d'appareil de mesure",
+              "Type d'appareil")
+          .column(StructureColumns.BRAND_DOMAIN, "Domaine")
+          .column(StructureColumns.BRAND_CONTACT_NAME, "Contact", "Nom du contact")
+          .column(StructureColumns.BRAND_TYPE, "Type")
+          .column(StructureColumns.BRAND_PHONE_NUMBER, "Téléphone", "Telephone")
+          .column(StructureColumns.BRAND_EMAIL, "E-mail", "Email");
+
+  public static final RowSchema RADIATION_WORKER =
+      new RowSchema(HEADER_ROWS)
+          .column(WorkerColumns.CIVILITY, "Civilité", "Titre")
+          .column(WorkerColumns.FIRST_NAME, "Prénom")
+          .column(WorkerColumns.NAME, "Nom")
+          .column(WorkerColumns.EMAIL, "E-mail", "Email")
+          .column(WorkerColumns.BIRTH_DATE, "Date de naissance")
+          .column(WorkerColumns.CONTRACT_TYPE, "Type de contrat")
+          .column(WorkerColumns.CONTRACT_START, "Début de contrat", "Date de début")
+          .column(WorkerColumns.CONTRACT_END, "Fin de contrat", "Date de fin")
+          .column(
+              WorkerColumns.IONIZING_RADIATION_EXPOSURE,
+              "Exposition aux rayonnements ionisants",
+              "Rayonnements ionisants")
+          .column(
+              WorkerColumns.MAGNETIC_FIELD_EXPOSURE,
+              "Exposition aux champs magnétiques",
+              "Champs magnétiques")
+          .column(WorkerColumns.SISERI_NUMBER, "N° SISERI", "SISERI")
+          .column(WorkerColumns.FUNCTION_GRADE, "Fonction", "Grade", "Fonction / Grade")
+          .column(WorkerColumns.SERVICE, "Service")
+          .column(
+              WorkerColumns.RADIOLOGICAL_CLASSIFICATION, "Classement", "Classement radiologique");
+
+  public static final RowSchema TRAINING =
+      new RowSchema(HEADER_ROWS)
+          .column(TrainingColumns.TYPE, "Type de formation")
+          .column(TrainingColumns.NAME, "Formation", "Intitulé")
+          .column(TrainingColumns.FUNCTION_GRADE, "Fonction", "Grade", "Fonction / Grade")
+          .column(TrainingColumns.PERIODIC, "Périodique")
+          .column(TrainingColumns.PERIODICITY, "Périodicité")
+          .column(TrainingColumns.COMMENT, "Commentaire");
+
+  public static final RowSchema GENERATOR =
+      new RowSchema(HEADER_ROWS)
+          .column(GeneratorColumns.MODALITY, "Modalité")
+          .column(GeneratorColumns.SERVICE, "Service")
+          .column(GeneratorColumns.LOCATION, "Localisation")
+          .column(GeneratorColumns.BRAND, "Marque")
+          .column(GeneratorColumns.MODEL, "Modèle")
+          .column(GeneratorColumns.SERIAL_NUMBER, "N° de série", "Numéro de série")
+          .column(GeneratorColumns.MACHINE_STATE, "Etat", "État")
+          .column(GeneratorColumns.WORK_STATION, "Poste de travail")
+          .column(GeneratorColumns.TECHNOLOGY, "Technologie")
+          .column(GeneratorColumns.INSTALLATION_TYPE, "Type d'installation")
+          .column(GeneratorColumns.COMMISSIONING_DATE, "Date de mise en service")
+          .column(GeneratorColumns.LAST_EQC, "Date du dernier CQE", "Dernier CQE")
+          .column(GeneratorColumns.LAST_CQI, "Date du dernier CQI", "Dernier CQI")
+          .column(
+              GeneratorColumns.LAST_MONTHLY_CQI,
+              "Date du dernier CQI mensuel",
+              "Dernier CQI mensuel");
+
+  public static final RowSchema IRM =
+      new RowSchema(HEADER_ROWS)
+          .column(IrmColumns.SERVICE, "Service")
+          .column(IrmColumns.LOCATION, "Localisation")
+          .column(IrmColumns.MACHINE_STATE, "Etat", "État")
+          .column(IrmColumns.WORK_STATION, "Poste de travail")
+          .column(IrmColumns.POWER, "Puissance")
+          .column(IrmColumns.BRAND, "Marque")
+          .column(IrmColumns.MODEL, "Modèle")
+          .column(IrmColumns.SERIAL_NUMBER, "N° de série", "Numéro de série")
+          .column(IrmColumns.COMMISSIONING_DATE, "Date de mise en service");
+
+  public static final RowSchema PROTECTION_EQUIPMENT =
+      new RowSchema(HEADER_ROWS)
+          .column(ProtectionEquipmentColumns.TYPE, "Type")
+          .column(ProtectionEquipmentColumns.DEVICE, "Dispositif")
+          .column(ProtectionEquipmentColumns.BRAND, "Marque")
+          .column(ProtectionEquipmentColumns.SERIAL_NUMBER, "N° de série", "Numéro de série")
+          .column(ProtectionEquipmentColumns.SERVICE, "Service")
+          .column(ProtectionEquipmentColumns.LOCATION, "Localisation")
+          .column(ProtectionEquipmentColumns.THICKNESS, "Epaisseur", "Épaisseur")
+          .column(ProtectionEquipmentColumns.STATE, "Etat", "État")
+          .column(ProtectionEquipmentColumns.LAST_CHECK, "Date de dernière vérification")
+          .column(ProtectionEquipmentColumns.ACQUISITION_DATE, "Date d'acquisition");
+
+  public static final RowSchema MEASURING_DEVICE =
+      new RowSchema(HEADER_ROWS)
+          .column(MeasuringDeviceColumns.TYPE, "Type")
+          .column(MeasuringDeviceColumns.BRAND, "Marque")
+          .column(MeasuringDeviceColumns.MODEL, "Modèle")
+          .column(MeasuringDeviceColumns.SERIAL_NUMBER, "N° de série", "Numéro de série")
+          .column(MeasuringDeviceColumns.SERVICE, "Service")
+          .column(MeasuringDeviceColumns.LOCATION, "Localisation")
+          .column(MeasuringDeviceColumns.LAST_CHECK, "Date de dernière vérification")
+          .column(MeasuringDeviceColumns.LAST_CALIBRATION, "Date du dernier étalonnage");
+
+  private SheetSchemas() {}
+}
@@ -0,0 +1,525 @@
+package com.dosilink.datasource;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A sheet decoded in one pass into column arrays. Text is held as its id in the {@link
+ * StringDictionary} of the workbook, numbers
+ * are kept in {@code double[]} and their date reading in epoch days, and a bitmap records which
+ * cells exist. The arrays of a type are only allocated for a column that holds a cell of that
+ * type, so a column of names costs a byte and an int per row.
+ *
+ * <p>Rows handed out by the iterator are views over those arrays. Their typed getters read the
+ * arrays directly, and a row makes the view of a cell once, the first time it is asked for.
+ *
+ * <p>A snapshot can be written out in a binary form that mirrors the arrays and read back into
+ * them, which is how {@link SnapshotCache} keeps decoded sheets between imports.
+ */
+final class SheetSnapshot implements ExcelSheet {
+
+  private static final CellKind[] KINDS = CellKind.values();
+  private static final double DAY_MILLISECONDS = 24 * 60 * 60 * 1000;
+  private static final int MAGIC = 0x44534e50;
+  private static final int VERSION = 3;
+
+  private final int rowCount;
+  private final int[] rowNums;
+  private final int[] lastCellNums;
+  private final Column[] columns;
+  private final StringDictionary strings;
+  private final boolean date1904;
+
+  /**
+   * The cells of a column. {@code codes} is null until the column holds a text, {@code numbers}
+   * and {@code epochDays} until it holds a number; once allocated they follow the capacity of
+   * {@code kinds}, and are only read at rows whose kind they hold.
+   */
+  private static final class Column {
+    long[] present = new long[0];
+    byte[] kinds = new byte[0];
+    int[] codes;
+    double[] numbers;
+    int[] epochDays;
+
+    void ensureCapacity(int rows) {
+      if (kinds.length >= rows) {
+        return;
+      }
+      int capacity = Math.max(rows, Math.max(16, kinds.length * 2));
+      present = Arrays.copyOf(present, (capacity + 63) >>> 6);
+      kinds = Arrays.copyOf(kinds, capacity);
+    }
+
+    void storeCode(int row, int code) {
+      if (codes == null) {
+        codes = new int[kinds.length];
+      } else if (codes.length <= row) {
+        codes = Arrays.copyOf(codes, kinds.length);
+      }
+      codes[row] = code;
+    }
+
+    void storeNumber(int row, double number, int epochDay) {
+      if (numbers == null) {
+        numbers = new double[kinds.length];
+        epochDays = new int[kinds.length];
+      } else if (numbers.length <= row) {
+        numbers = Arrays.copyOf(numbers, kinds.length);
+        epochDays = Arrays.copyOf(epochDays, kinds.length);
+      }
+      numbers[row] = number;
+      epochDays[row] = epochDay;
+    }
+
+    boolean isPresent(int row) {
+      int word = row >>> 6;
+      return word < present.length && (present[word] & (1L << row)) != 0;
+    }
+
+    boolean holds(int row, CellKind kind) {
+      return isPresent(row) && kinds[row] == kind.ordinal();
+    }
+  }
+
+  private SheetSnapshot(
+      int rowCount,
+      int[] rowNums,
+      int[] lastCellNums,
+      Column[] columns,
+      StringDictionary strings,
+      boolean date1904) {
+    this.rowCount = rowCount;
+    this.rowNums = rowNums;
+    this.lastCellNums = lastCellNums;
+    this.columns = columns;
+    this.strings = strings;
+    this.date1904 = date1904;
+  }
+
+  boolean isDate1904() {
+    return date1904;
+  }
+
+  static SheetSnapshot of(Iterator<SheetRow> source, boolean date1904, StringDictionary strings) {
+    Column[] columns = new Column[0];
+    int[] rowNums = new int[16];
+    int[] lastCellNums = new int[16];
+    int rowCount = 0;
+    while (source.hasNext()) {
+      SheetRow row = source.next();
+      if (rowCount == rowNums.length) {
+        rowNums = Arrays.copyOf(rowNums, rowCount * 2);
+        lastCellNums = Arrays.copyOf(lastCellNums, rowCount * 2);
+      }
+      rowNums[rowCount] = row.getRowNum();
+      lastCellNums[rowCount] = row.getLastCellNum();
+      if (row.getLastCellNum() > columns.length) {
+        int previous = columns.length;
+        columns = Arrays.copyOf(columns, row.getLastCellNum());
+        for (int i = previous; i < columns.length; i++) {
+          columns[i] = new Column();
+        }
+      }
+      for (int column = 0; column < row.getLastCellNum(); column++) {
+        SheetCell cell = row.getCell(column);
+        if (cell != null) {
+          store(columns[column], rowCount, cell, strings, date1904);
+        }
+      }
+      rowCount++;
+    }
+    return new SheetSnapshot(rowCount, rowNums, lastCellNums, columns, strings, date1904);
+  }
+
+  /**
+   * Writes the snapshot out. The ids of the workbook dictionary mean nothing to another session, so
+   * the texts of the sheet are written in a table of their own and the cells refer to that table.
+   */
+  void writeTo(DataOutputStream out) throws IOException {
+    int[] localCodes = new int[strings.size()];
+    int[] textIds = new int[16];
+    int textCount = 0;
+    for (Column column : columns) {
+      for (int row = 0; row < Math.min(column.kinds.length, rowCount); row++) {
+        if (column.isPresent(row) && holdsText(column.kinds[row])) {
+          int id = column.codes[row];
+          if (localCodes[id] == 0) {
+            if (textCount == textIds.length) {
+              textIds = Arrays.copyOf(textIds, textCount * 2);
+            }
+            textIds[textCount] = id;
+            localCodes[id] = ++textCount;
+          }
+        }
+      }
+    }
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeBoolean(date1904);
+    out.writeInt(rowCount);
+    out.writeInt(columns.length);
+    out.writeInt(textCount);
+    for (int row = 0; row < rowCount; row++) {
+      out.writeInt(rowNums[row]);
+    }
+    for (int row = 0; row < rowCount; row++) {
+      out.writeInt(lastCellNums[row]);
+    }
+    for (int i = 0; i < textCount; i++) {
+      byte[] bytes = strings.get(textIds[i]).getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+    for (Column column : columns) {
+      int rows = Math.min(column.kinds.length, rowCount);
+      out.writeInt(rows);
+      for (int word = 0; word < (rows + 63) >>> 6; word++) {
+        out.writeLong(column.present[word]);
+      }
+      out.write(column.kinds, 0, rows);
+      out.writeBoolean(column.codes != null);
+      if (column.codes != null) {
+        for (int row = 0; row < rows; row++) {
+          boolean text = column.isPresent(row) && holdsText(column.kinds[row]);
+          out.writeInt(text ? localCodes[column.codes[row]] - 1 : 0);
+        }
+      }
+      out.writeBoolean(column.numbers != null);
+      if (column.numbers != null) {
+        for (int row = 0; row < rows; row++) {
+          out.writeDouble(column.holds(row, CellKind.NUMERIC) ? column.numbers[row] : 0);
+        }
+        for (int row = 0; row < rows; row++) {
+          out.writeInt(column.holds(row, CellKind.NUMERIC) ? column.epochDays[row] : 0);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads a snapshot written by {@link #writeTo}, interning its texts into the dictionary of the
+   * session, or returns null if it has another format.
+   */
+  static SheetSnapshot read(DataInputStream in, StringDictionary strings) throws IOException {
+    if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+      return null;
+    }
+    boolean date1904 = in.readBoolean();
+    int rowCount = in.readInt();
+    Column[] columns = new Column[in.readInt()];
+    int[] textIds = new int[in.readInt()];
+    int[] rowNums = new int[rowCount];
+    int[] lastCellNums = new int[rowCount];
+    readInts(in, rowNums);
+    readInts(in, lastCellNums);
+    for (int i = 0; i < textIds.length; i++) {
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      textIds[i] = strings.intern(new String(bytes, StandardCharsets.UTF_8));
+    }
+    for (int i = 0; i < columns.length; i++) {
+      int rows = in.readInt();
+      Column column = new Column();
+      column.present = new long[(rows + 63) >>> 6];
+      column.kinds = new byte[rows];
+      for (int word = 0; word < column.present.length; word++) {
+        column.present[word] = in.readLong();
+      }
+      in.readFully(column.kinds);
+      if (in.readBoolean()) {
+        column.codes = new int[rows];
+        readInts(in, column.codes);
+        for (int row = 0; row < rows; row++) {
+          if (column.isPresent(row) && holdsText(column.kinds[row])) {
+            column.codes[row] = textIds[column.codes[row]];
+          }
+        }
+      }
+      if (in.readBoolean()) {
+        column.numbers = new double[rows];
+        column.epochDays = new int[rows];
+        for (int row = 0; row < rows; row++) {
+          column.numbers[row] = in.readDouble();
+        }
+        readInts(in, column.epochDays);
+      }
+      columns[i] = column;
+    }
+    return new SheetSnapshot(rowCount, rowNums, lastCellNums, columns, strings, date1904);
+  }
+
+  private static boolean holdsText(byte kind) {
+    return kind != CellKind.NUMERIC.ordinal() && kind != CellKind.BLANK.ordinal();
+  }
+
+  private static void readInts(DataInputStream in, int[] values) throws IOException {
+    for (int i = 0; i < values.length; i++) {
+      values[i] = in.readInt();
+    }
+  }
+
+  private static void store(
+      Column column, int row, SheetCell cell, StringDictionary strings, boolean date1904) {
+    column.ensureCapacity(row + 1);
+    column.present[row >>> 6] |= 1L << row;
+    CellKind kind = cell.getCellKind();
+    column.kinds[row] = (byte) kind.ordinal();
+    switch (kind) {
+      case NUMERIC:
+        double value = cell.getNumericCellValue();
+        column.storeNumber(row, value, ExcelDates.toEpochDay(value, date1904));
+        break;
+      case STRING:
+        column.storeCode(row, cell.getStringId(strings));
+        break;
+      case BOOLEAN:
+      case ERROR:
+        column.storeCode(row, strings.intern(cell.toString()));
+        break;
+      default:
+        break;
+    }
+  }
+
+  @Override
+  public Iterator<SheetRow> iterator() {
+    return new Iterator<SheetRow>() {
+      private int next;
+
+      @Override
+      public boolean hasNext() {
+        return next < rowCount;
+      }
+
+      @Override
+      public SheetRow next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return new SnapshotRow(next++);
+      }
+    };
+  }
+
+  private CellKind kindOf(int row, int column) {
+    return KINDS[columns[column].kinds[row]];
+  }
+
+  private String textOf(int row, int column) {
+    switch (kindOf(row, column)) {
+      case STRING:
+        return strings.get(columns[column].codes[row]);
+      case BLANK:
+        return "";
+      default:
+        throw typeMismatch(row, column, CellKind.STRING);
+    }
+  }
+
+  private double numberOf(int row, int column) {
+    switch (kindOf(row, column)) {
+      case NUMERIC:
+        return columns[column].numbers[row];
+      case BLANK:
+        return 0.0;
+      default:
+        throw typeMismatch(row, column, CellKind.NUMERIC);
+    }
+  }
+
+  private Date dateOf(int row, int column) {
+    CellKind kind = kindOf(row, column);
+    if (kind == CellKind.BLANK) {
+      return null;
+    }
+    if (kind != CellKind.NUMERIC) {
+      throw typeMismatch(row, column, CellKind.NUMERIC);
+    }
+    double serial = columns[column].numbers[row];
+    if (serial < 0) {
+      return null;
+    }
+    long millisOfDay = (long) ((serial - Math.floor(serial)) * DAY_MILLISECONDS + 0.5);
+    return Date.from(
+        ExcelDates.ofEpochDay(columns[column].epochDays[row])
+            .atStartOfDay()
+            .plusNanos(millisOfDay * 1_000_000)
+            .atZone(ZoneId.systemDefault())
+            .toInstant());
+  }
+
+  private LocalDate localDateOf(int row, int column) {
+    CellKind kind = kindOf(row, column);
+    if (kind == CellKind.BLANK) {
+      return null;
+    }
+    if (kind != CellKind.NUMERIC) {
+      throw typeMismatch(row, column, CellKind.NUMERIC);
+    }
+    if (columns[column].numbers[row] < 0) {
+      return null;
+    }
+    return ExcelDates.ofEpochDay(columns[column].epochDays[row]);
+  }
+
+  private IllegalStateException typeMismatch(int row, int column, CellKind expected) {
+    return new IllegalStateException(
+        "Cannot get a "
+            + expected
+            + " value from a "
+            + kindOf(row, column)
+            + " cell at row "
+            + (rowNums[row] + 1));
+  }
+
+  private final class SnapshotRow implements SheetRow {
+    private final int row;
+    /** The views of the cells asked for, by column. */
+    private SnapshotCell[] cells;
+
+    SnapshotRow(int row) {
+      this.row = row;
+    }
+
+    @Override
+    public int getRowNum() {
+      return rowNums[row];
+    }
+
+    @Override
+    public SheetCell getCell(int column) {
+      if (column < 0 || column >= columns.length || !columns[column].isPresent(row)) {
+        return null;
+      }
+      if (cells == null) {
+        cells = new SnapshotCell[columns.length];
+      }
+      SnapshotCell cell = cells[column];
+      if (cell == null) {
+        cell = new SnapshotCell(row, column);
+        cells[column] = cell;
+      }
+      return cell;
+    }
+
+    @Override
+    public int getLastCellNum() {
+      return lastCellNums[row];
+    }
+
+    @Override
+    public boolean hasCell(int column) {
+      return column >= 0 && column < columns.length && columns[column].isPresent(row);
+    }
+
+    @Override
+    public boolean hasValue(int column) {
+      if (!hasCell(column)) {
+        return false;
+      }
+      switch (kindOf(row, column)) {
+        case BLANK:
+          return false;
+        case STRING:
+          return !strings.isEmpty(columns[column].codes[row]);
+        default:
+          return true;
+      }
+    }
+
+    @Override
+    public String getString(int column) {
+      return hasValue(column) ? textOf(row, column) : null;
+    }
+
+    @Override
+    public Double getNumber(int column) {
+      return hasValue(column) ? numberOf(row, column) : null;
+    }
+
+    @Override
+    public Date getDate(int column) {
+      return hasValue(column) ? dateOf(row, column) : null;
+    }
+
+    @Override
+    public LocalDate getLocalDate(int column) {
+      return hasValue(column) ? localDateOf(row, column) : null;
+    }
+  }
+
+  private final class SnapshotCell implements SheetCell {
+    private final int row;
+    private final int column;
+
+    SnapshotCell(int row, int column) {
+      this.row = row;
+      this.column = column;
+    }
+
+    @Override
+    public CellKind getCellKind() {
+      return kindOf(row, column);
+    }
+
+    @Override
+    public int getRowIndex() {
+      return rowNums[row];
+    }
+
+    @Override
+    public int getColumnIndex() {
+      return column;
+    }
+
+    @Override
+    public String getStringCellValue() {
+      return textOf(row, column);
+    }
+
+    @Override
+    public int getStringId(StringDictionary dictionary) {
+      if (getCellKind() != CellKind.STRING) {
+        return -1;
+      }
+      int id = columns[column].codes[row];
+      return dictionary == strings ? id : dictionary.intern(strings.get(id));
+    }
+
+    @Override
+    public double getNumericCellValue() {
+      return numberOf(row, column);
+    }
+
+    @Override
+    public Date getDateCellValue() {
+      return dateOf(row, column);
+    }
+
+    @Override
+    public LocalDate getLocalDateCellValue() {
+      return localDateOf(row, column);
+    }
+
+    @Override
+    public String toString() {
+      switch (getCellKind()) {
+        case NUMERIC:
+          return Double.toString(columns[column].numbers[row]);
+        case BLANK:
+          return "";
+        default:
+          return strings.get(columns[column].codes[row]);
+      }
+    }
+  }
+}
@@ -0,0 +1,247 @@
+package com.dosilink.datasource;
+
+import com.axelor.app.AppSettings;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the decoded sheets of the workbooks imported lately on disk, so that importing the same
+ * file again, as operators do while they fix reference data, reads the snapshots back instead of
+ * parsing the workbook. The sheets of a workbook are stored in a directory named after the SHA-256
+ * of the file, and a sheet is read back through a buffered stream straight into the arrays of its
+ * snapshot. When the cache outgrows its size, the workbooks used least recently are dropped.
+ *
+ * <p>The cache is a help, not a source of truth: a file that cannot be read or written is logged
+ * and the sheet is parsed from the workbook as if the cache were not there.
+ *
+ * <p>The snapshots hold the personal data of the workers, so the cache keeps them to the user
+ * running the import: its directories and files are created readable by their owner only, and a
+ * cache directory that belongs to another user, or is a symbolic link, is not used at all.
+ */
+final class SnapshotCache {
+
+  /** Directory of the cache, under the temporary directory by default; kept private to the user. */
+  static final String CACHE_DIR = "data.import.cache.dir";
+  /** Size of the cache in megabytes; 0 disables it. */
+  static final String CACHE_SIZE = "data.import.cache.size";
+
+  private static final int DEFAULT_SIZE = 512;
+  private static final String SUFFIX = ".snapshot";
+  private static final String OWNER_ONLY_DIRECTORY = "rwx------";
+  private static final String OWNER_ONLY_FILE = "rw-------";
+
+  private static volatile SnapshotCache shared;
+
+  private final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final Path directory;
+  private final long maxBytes;
+  private final boolean posix;
+  /** Whether the directory was found private to the user, null until it is checked. */
+  private Boolean usable;
+
+  SnapshotCache(Path directory, long maxBytes) {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    this.posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+  }
+
+  /** Returns the cache configured in the application settings, or null when it is disabled. */
+  static SnapshotCache shared() {
+    if (shared == null) {
+      synchronized (SnapshotCache.class) {
+        if (shared == null) {
+          AppSettings settings = AppSettings.get();
+          String tmp = System.getProperty("java.io.tmpdir");
+          Path directory =
+              Paths.get(settings.get(CACHE_DIR, tmp + File.separator + "dosilink-sheets"));
+          long maxBytes = settings.getInt(CACHE_SIZE, DEFAULT_SIZE) * 1024L * 1024L;
+          shared = new SnapshotCache(directory, maxBytes);
+        }
+      }
+    }
+    return shared.maxBytes > 0 ? shared : null;
+  }
+
+  /** The key of a file in the cache: the hex SHA-256 of its content. */
+  String keyOf(File file) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    byte[] buffer = new byte[64 * 1024];
+    try (InputStream in = Files.newInputStream(file.toPath())) {
+      int read;
+      while ((read = in.read(buffer)) > 0) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    StringBuilder key = new StringBuilder();
+    for (byte b : digest.digest()) {
+      key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return key.toString();
+  }
+
+  /** Returns the cached snapshot of a sheet, its texts interned into {@code strings}, or null. */
+  SheetSnapshot get(String key, int indexOfSheet, StringDictionary strings) {
+    if (!isUsable()) {
+      return null;
+    }
+    Path entry = directory.resolve(key);
+    Path file = entry.resolve(indexOfSheet + SUFFIX);
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    try (InputStream in = Files.newInputStream(file);
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16))) {
+      SheetSnapshot snapshot = SheetSnapshot.read(data, strings);
+      Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+      return snapshot;
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Unable to read cached sheet {}", file, e);
+      return null;
+    }
+  }
+
+  void put(String key, int indexOfSheet, SheetSnapshot snapshot) {
+    if (!isUsable()) {
+      return;
+    }
+    Path entry = directory.resolve(key);
+    Path file = entry.resolve(indexOfSheet + SUFFIX);
+    try {
+      Files.createDirectories(entry, ownerOnly(OWNER_ONLY_DIRECTORY));
+      Path tmp =
+          Files.createTempFile(entry, indexOfSheet + "-", ".tmp", ownerOnly(OWNER_ONLY_FILE));
+      try (OutputStream out = Files.newOutputStream(tmp);
+          DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16))) {
+        snapshot.writeTo(data);
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+      evict();
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Unable to cache sheet {}", file, e);
+    }
+  }
+
+  /**
+   * Creates the directory of the cache, readable by the user only, or checks that the existing one
+   * is a directory of the user and restricts it to them. The outcome is kept: a cache that is not
+   * usable is reported once and left alone.
+   */
+  private synchronized boolean isUsable() {
+    if (usable == null) {
+      try {
+        Files.createDirectories(directory, ownerOnly(OWNER_ONLY_DIRECTORY));
+        if (Files.isSymbolicLink(directory)) {
+          throw new IOException(directory + " is a symbolic link");
+        }
+        UserPrincipal owner = Files.getOwner(directory, LinkOption.NOFOLLOW_LINKS);
+        UserPrincipal user =
+            directory
+                .getFileSystem()
+                .getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!owner.equals(user)) {
+          throw new IOException(directory + " belongs to " + owner.getName());
+        }
+        if (posix) {
+          Files.setPosixFilePermissions(
+              directory, PosixFilePermissions.fromString(OWNER_ONLY_DIRECTORY));
+        }
+        usable = true;
+      } catch (IOException | RuntimeException e) {
+        logger.warn("Sheets are not cached, the cache directory is not private", e);
+        usable = false;
+      }
+    }
+    return usable;
+  }
+
+  private FileAttribute<?>[] ownerOnly(String permissions) {
+    if (!posix) {
+      return new FileAttribute<?>[0];
+    }
+    return new FileAttribute<?>[] {
+      PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(permissions))
+    };
+  }
+
+  /** Drops the workbooks used least recently until the cache fits in its size. */
+  private synchronized void evict() throws IOException {
+    List<Path> entries = new ArrayList<>();
+    long total = 0;
+    try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+      for (Path child : children) {
+        if (Files.isDirectory(child)) {
+          entries.add(child);
+          total += sizeOf(child);
+        }
+      }
+    }
+    if (total <= maxBytes) {
+      return;
+    }
+    entries.sort(Comparator.comparing(SnapshotCache::lastModified));
+    for (Path entry : entries) {
+      if (total <= maxBytes) {
+        break;
+      }
+      long size = sizeOf(entry);
+      try (Stream<Path> files = Files.list(entry)) {
+        for (Path file : (Iterable<Path>) files::iterator) {
+          Files.deleteIfExists(file);
+        }
+      }
+      Files.deleteIfExists(entry);
+      total -= size;
+    }
+  }
+
+  private static long sizeOf(Path entry) throws IOException {
+    long size = 0;
+    try (Stream<Path> files = Files.list(entry)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        size += Files.size(file);
+      }
+    }
+    return size;
+  }
+
+  private static FileTime lastModified(Path entry) {
+    try {
+      return Files.getLastModifiedTime(entry);
+    } catch (IOException e) {
+      return FileTime.fromMillis(0);
+    }
+  }
+}
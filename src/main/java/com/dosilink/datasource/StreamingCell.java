@@ -0,0 +1,115 @@
+package com.dosilink.datasource;
+
+import java.time.LocalDate;
+import java.util.Date;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+/**
+ * A cell decoded from a sheet part by {@link XlsxRowIterator}, mirroring POI's typed getters. A
+ * cell of a shared string holds the id of its text, which is only materialized when it is read.
+ */
+class StreamingCell implements SheetCell {
+
+  private final int rowIndex;
+  private final int columnIndex;
+  private final CellKind kind;
+  private final String value;
+  private final StringDictionary strings;
+  private final int stringId;
+  private final boolean date1904;
+
+  StreamingCell(int rowIndex, int columnIndex, CellKind kind, String value, boolean date1904) {
+    this.rowIndex = rowIndex;
+    this.columnIndex = columnIndex;
+    this.kind = kind;
+    this.value = value;
+    this.strings = null;
+    this.stringId = -1;
+    this.date1904 = date1904;
+  }
+
+  /** A cell of a shared string, already interned into {@code strings}. */
+  StreamingCell(
+      int rowIndex, int columnIndex, StringDictionary strings, int stringId, boolean date1904) {
+    this.rowIndex = rowIndex;
+    this.columnIndex = columnIndex;
+    this.kind = CellKind.STRING;
+    this.value = null;
+    this.strings = strings;
+    this.stringId = stringId;
+    this.date1904 = date1904;
+  }
+
+  @Override
+  public CellKind getCellKind() {
+    return kind;
+  }
+
+  @Override
+  public int getRowIndex() {
+    return rowIndex;
+  }
+
+  @Override
+  public int getColumnIndex() {
+    return columnIndex;
+  }
+
+  @Override
+  public String getStringCellValue() {
+    switch (kind) {
+      case STRING:
+        return strings == null ? value : strings.get(stringId);
+      case BLANK:
+        return "";
+      default:
+        throw typeMismatch(CellKind.STRING);
+    }
+  }
+
+  @Override
+  public int getStringId(StringDictionary dictionary) {
+    if (strings == dictionary && strings != null) {
+      return stringId;
+    }
+    return SheetCell.super.getStringId(dictionary);
+  }
+
+  @Override
+  public double getNumericCellValue() {
+    switch (kind) {
+      case NUMERIC:
+        return Double.parseDouble(value);
+      case BLANK:
+        return 0.0;
+      default:
+        throw typeMismatch(CellKind.NUMERIC);
+    }
+  }
+
+  @Override
+  public Date getDateCellValue() {
+    if (kind == CellKind.BLANK) {
+      return null;
+    }
+    return DateUtil.getJavaDate(getNumericCellValue(), date1904);
+  }
+
+  @Override
+  public LocalDate getLocalDateCellValue() {
+    if (kind == CellKind.BLANK) {
+      return null;
+    }
+    return ExcelDates.toLocalDate(getNumericCellValue(), date1904);
+  }
+
+  private IllegalStateException typeMismatch(CellKind expected) {
+    return new IllegalStateException(
+        "Cannot get a " + expected + " value from a " + kind + " cell at row " + (rowIndex + 1));
+  }
+
+  @Override
+  public String toString() {
+    return kind == CellKind.BLANK ? "" : kind == CellKind.STRING ? getStringCellValue() : value;
+  }
+}
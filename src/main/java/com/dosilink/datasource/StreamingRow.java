@@ -0,0 +1,27 @@
+package com.dosilink.datasource;
+
+class StreamingRow implements SheetRow {
+
+  private final int rowNum;
+  private final SheetCell[] cells;
+
+  StreamingRow(int rowNum, SheetCell[] cells) {
+    this.rowNum = rowNum;
+    this.cells = cells;
+  }
+
+  @Override
+  public int getRowNum() {
+    return rowNum;
+  }
+
+  @Override
+  public SheetCell getCell(int column) {
+    return column < cells.length ? cells[column] : null;
+  }
+
+  @Override
+  public int getLastCellNum() {
+    return cells.length == 0 ? -1 : cells.length;
+  }
+}
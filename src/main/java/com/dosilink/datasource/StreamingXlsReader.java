@@ -0,0 +1,181 @@
+package com.dosilink.datasource;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.DateWindow1904Record;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.Cell;
+
+/**
+ * Reads one sheet of an {@code .xls} file with the HSSF event model. BIFF records are turned into
+ * {@link SheetRow}s and pushed to a {@link RowHandler} as soon as each row is complete, without
+ * building an {@code HSSFWorkbook}. Reading stops at the end of the requested sheet, or earlier if
+ * the handler asks to.
+ */
+public class StreamingXlsReader {
+
+  public interface RowHandler {
+    /** Receives the next row of the sheet; returning {@code false} stops the reading. */
+    boolean onRow(SheetRow row);
+  }
+
+  private final File file;
+
+  public StreamingXlsReader(File file) {
+    this.file = file;
+  }
+
+  public void readSheet(int indexOfSheet, RowHandler handler) throws IOException {
+    try (POIFSFileSystem fs = new POIFSFileSystem(file)) {
+      HSSFRequest request = new HSSFRequest();
+      request.addListenerForAllRecords(new SheetListener(indexOfSheet, handler));
+      new HSSFEventFactory().abortableProcessWorkbookEvents(request, fs);
+    } catch (HSSFUserException e) {
+      throw new IOException("Unable to read sheet " + indexOfSheet + " of " + file, e);
+    }
+  }
+
+  private static class SheetListener extends AbortableHSSFListener {
+    private static final short CONTINUE = 0;
+    private static final short STOP = 1;
+
+    private final int indexOfSheet;
+    private final RowHandler handler;
+    private SSTRecord sharedStrings;
+    private boolean date1904;
+    private int currentSheet = -1;
+    private boolean inSheet;
+    private int rowNum = -1;
+    private final List<SheetCell> cells = new ArrayList<>();
+    private FormulaRecord pendingFormula;
+
+    SheetListener(int indexOfSheet, RowHandler handler) {
+      this.indexOfSheet = indexOfSheet;
+      this.handler = handler;
+    }
+
+    @Override
+    public short abortableProcessRecord(Record record) {
+      switch (record.getSid()) {
+        case BOFRecord.sid:
+          if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) {
+            currentSheet++;
+            inSheet = currentSheet == indexOfSheet;
+          }
+          return CONTINUE;
+        case EOFRecord.sid:
+          if (inSheet) {
+            flushRow();
+            return STOP;
+          }
+          return CONTINUE;
+        case SSTRecord.sid:
+          sharedStrings = (SSTRecord) record;
+          return CONTINUE;
+        case DateWindow1904Record.sid:
+          date1904 = ((DateWindow1904Record) record).getWindowing() == 1;
+          return CONTINUE;
+        default:
+          if (!inSheet) {
+            return CONTINUE;
+          }
+          return processCell(record) ? CONTINUE : STOP;
+      }
+    }
+
+    private boolean processCell(Record record) {
+      switch (record.getSid()) {
+        case LabelSSTRecord.sid:
+          LabelSSTRecord label = (LabelSSTRecord) record;
+          String value = sharedStrings.getString(label.getSSTIndex()).getString();
+          return addCell(label, CellKind.STRING, value);
+        case LabelRecord.sid:
+          return addCell((LabelRecord) record, CellKind.STRING, ((LabelRecord) record).getValue());
+        case NumberRecord.sid:
+          NumberRecord number = (NumberRecord) record;
+          return addCell(number, CellKind.NUMERIC, Double.toString(number.getValue()));
+        case BlankRecord.sid:
+          return addCell((BlankRecord) record, CellKind.BLANK, null);
+        case BoolErrRecord.sid:
+          BoolErrRecord boolErr = (BoolErrRecord) record;
+          if (boolErr.isBoolean()) {
+            return addCell(boolErr, CellKind.BOOLEAN, boolErr.getBooleanValue() ? "1" : "0");
+          }
+          return addCell(boolErr, CellKind.ERROR, Byte.toString(boolErr.getErrorValue()));
+        case FormulaRecord.sid:
+          return processFormula((FormulaRecord) record);
+        case StringRecord.sid:
+          if (pendingFormula == null) {
+            return true;
+          }
+          FormulaRecord formula = pendingFormula;
+          pendingFormula = null;
+          return addCell(formula, CellKind.STRING, ((StringRecord) record).getString());
+        default:
+          return true;
+      }
+    }
+
+    /** Keeps the cached result of a formula; a string result arrives in the next record. */
+    private boolean processFormula(FormulaRecord formula) {
+      if (formula.hasCachedResultString()) {
+        pendingFormula = formula;
+        return true;
+      }
+      switch (formula.getCachedResultType()) {
+        case Cell.CELL_TYPE_NUMERIC:
+          return addCell(formula, CellKind.NUMERIC, Double.toString(formula.getValue()));
+        case Cell.CELL_TYPE_BOOLEAN:
+          return addCell(formula, CellKind.BOOLEAN, formula.getCachedBooleanValue() ? "1" : "0");
+        case Cell.CELL_TYPE_ERROR:
+          return addCell(formula, CellKind.ERROR, "#ERROR");
+        default:
+          return addCell(formula, CellKind.BLANK, null);
+      }
+    }
+
+    private boolean addCell(CellValueRecordInterface record, CellKind kind, String value) {
+      int row = record.getRow();
+      if (row != rowNum && !flushRow()) {
+        return false;
+      }
+      rowNum = row;
+      cells.add(new StreamingCell(row, record.getColumn(), kind, value, date1904));
+      return true;
+    }
+
+    private boolean flushRow() {
+      if (cells.isEmpty()) {
+        return true;
+      }
+      int lastColumn = -1;
+      for (SheetCell cell : cells) {
+        lastColumn = Math.max(lastColumn, cell.getColumnIndex());
+      }
+      SheetCell[] byColumn = new SheetCell[lastColumn + 1];
+      for (SheetCell cell : cells) {
+        byColumn[cell.getColumnIndex()] = cell;
+      }
+      cells.clear();
+      return handler.onRow(new StreamingRow(rowNum, byColumn));
+    }
+  }
+}
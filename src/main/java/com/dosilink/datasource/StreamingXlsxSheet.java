@@ -0,0 +1,33 @@
+package com.dosilink.datasource;
+
+import java.io.File;
+import java.util.Iterator;
+
+/**
+ * Reads one sheet of an {@code .xlsx} file with the XSSF event model instead of building an {@code
+ * XSSFWorkbook}. Every iteration opens the package, streams the sheet part and releases the file
+ * once the last row has been read, or once the iterator is closed, see {@link
+ * ExcelSheet#close(Iterator)}, so heap use does not grow with the number of rows.
+ */
+public class StreamingXlsxSheet implements ExcelSheet {
+
+  private final File file;
+  private final int sheetIndex;
+  private final StringDictionary strings = new StringDictionary();
+
+  public StreamingXlsxSheet(File file, int sheetIndex) {
+    this.file = file;
+    this.sheetIndex = sheetIndex;
+  }
+
+  @Override
+  public Iterator<SheetRow> iterator() {
+    XlsxPackage pkg = XlsxPackage.open(file, strings);
+    try {
+      return pkg.rows(sheetIndex, pkg);
+    } catch (RuntimeException e) {
+      pkg.close();
+      throw e;
+    }
+  }
+}
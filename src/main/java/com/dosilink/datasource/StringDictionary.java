@@ -0,0 +1,282 @@
+package com.dosilink.datasource;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The distinct texts of a workbook, interned once and numbered from 0. The UTF-8 bytes of the
+ * texts live off-heap in a direct buffer; on heap there are only the offsets and the hash of each
+ * text. A cell of a decoded sheet holds the id of its text, so the names of services, locations or
+ * brands that repeat over thousands of rows are compared and looked up as ints, and are only
+ * turned into a {@code String} when an entity reads them.
+ *
+ * <p>Ids are shared by all the sheets of a {@link WorkbookSession}: the same text has the same id
+ * in the structure sheet and in the sheets that refer to it.
+ *
+ * <p>Texts are looked up and read without a lock and without encoding them: the chars of a text are
+ * compared with the UTF-8 bytes in the buffer as they are decoded. Adding a text takes a lock, and
+ * publishes the dictionary with the text to the readers once the text is written.
+ */
+public final class StringDictionary {
+
+  /**
+   * The dictionary as published to the readers. The arrays and the buffer hold the first {@code
+   * size} texts; they are only written past them, or replaced by larger copies, by {@link #add}.
+   * A reader may find the id of a newer text in the table, and skips it.
+   */
+  private static final class State {
+    final ByteBuffer bytes;
+    final int[] offsets;
+    final int[] lengths;
+    final int[] hashes;
+    /** Open-addressing table of id + 1, 0 marking a free slot. */
+    final int[] table;
+    final int size;
+
+    State(ByteBuffer bytes, int[] offsets, int[] lengths, int[] hashes, int[] table, int size) {
+      this.bytes = bytes;
+      this.offsets = offsets;
+      this.lengths = lengths;
+      this.hashes = hashes;
+      this.table = table;
+      this.size = size;
+    }
+  }
+
+  /** The buffer the texts are decoded into, reused from one text to the next. */
+  private static final ThreadLocal<StringBuilder> SCRATCH =
+      ThreadLocal.withInitial(() -> new StringBuilder(64));
+
+  private volatile State state =
+      new State(
+          ByteBuffer.allocateDirect(64 * 1024),
+          new int[1024],
+          new int[1024],
+          new int[1024],
+          new int[2048],
+          0);
+
+  /** Returns the id of a text, adding the text to the dictionary if needed. */
+  public int intern(String text) {
+    int hash = text.hashCode();
+    int id = find(state, text, hash);
+    return id >= 0 ? id : add(text, hash);
+  }
+
+  /** Returns the id of a text already in the dictionary, or -1. */
+  public int find(String text) {
+    return find(state, text, text.hashCode());
+  }
+
+  /** Returns the id of the text of a column, or -1 when the column holds no text. */
+  public int idOf(SheetRow row, int column) {
+    return row.hasValue(column) ? row.getCell(column).getStringId(this) : -1;
+  }
+
+  /** Re-keys a map by name with the ids of the names. */
+  public <V> StringIdMap<V> index(Map<String, V> byName) {
+    StringIdMap<V> byId = new StringIdMap<>();
+    for (Map.Entry<String, V> entry : byName.entrySet()) {
+      if (entry.getKey() != null) {
+        byId.put(intern(entry.getKey()), entry.getValue());
+      }
+    }
+    return byId;
+  }
+
+  /** Materializes the text of an id. */
+  public String get(int id) {
+    State current = state;
+    ByteBuffer bytes = current.bytes;
+    StringBuilder text = SCRATCH.get();
+    text.setLength(0);
+    int at = current.offsets[id];
+    int end = at + current.lengths[id];
+    while (at < end) {
+      int b = bytes.get(at++) & 0xFF;
+      if (b < 0x80) {
+        text.append((char) b);
+      } else if (b < 0xE0) {
+        text.append((char) ((b & 0x1F) << 6 | bytes.get(at++) & 0x3F));
+      } else if (b < 0xF0) {
+        text.append(
+            (char) ((b & 0x0F) << 12 | (bytes.get(at++) & 0x3F) << 6 | bytes.get(at++) & 0x3F));
+      } else {
+        text.appendCodePoint(
+            (b & 0x07) << 18
+                | (bytes.get(at++) & 0x3F) << 12
+                | (bytes.get(at++) & 0x3F) << 6
+                | bytes.get(at++) & 0x3F);
+      }
+    }
+    return text.toString();
+  }
+
+  /** The {@link String#hashCode()} of the text of an id, computed when it was interned. */
+  public int hash(int id) {
+    return state.hashes[id];
+  }
+
+  /** Whether the text of an id is empty, without materializing it. */
+  public boolean isEmpty(int id) {
+    return state.lengths[id] == 0;
+  }
+
+  public int size() {
+    return state.size;
+  }
+
+  private static int find(State state, String text, int hash) {
+    int[] table = state.table;
+    int mask = table.length - 1;
+    for (int slot = mix(hash) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+      int id = table[slot] - 1;
+      if (id < state.size && state.hashes[id] == hash && equalsAt(state, id, text)) {
+        return id;
+      }
+    }
+    return -1;
+  }
+
+  /** Adds a text, unless another thread has added it meanwhile, and publishes the dictionary. */
+  private synchronized int add(String text, int hash) {
+    State current = state;
+    int found = find(current, text, hash);
+    if (found >= 0) {
+      return found;
+    }
+    int id = current.size;
+    int[] offsets = current.offsets;
+    int[] lengths = current.lengths;
+    int[] hashes = current.hashes;
+    if (id == offsets.length) {
+      offsets = Arrays.copyOf(offsets, id * 2);
+      lengths = Arrays.copyOf(lengths, id * 2);
+      hashes = Arrays.copyOf(hashes, id * 2);
+    }
+    int length = utf8Length(text);
+    ByteBuffer bytes = current.bytes;
+    if (bytes.remaining() < length) {
+      ByteBuffer grown =
+          ByteBuffer.allocateDirect(Math.max(bytes.capacity() * 2, bytes.position() + length));
+      ByteBuffer written = bytes.duplicate();
+      written.flip();
+      grown.put(written);
+      bytes = grown;
+    }
+    offsets[id] = bytes.position();
+    lengths[id] = length;
+    hashes[id] = hash;
+    for (int i = 0; i < text.length(); i = next(text, i)) {
+      put(bytes, codePointAt(text, i));
+    }
+    int[] table = current.table;
+    if (2 * (id + 1) > table.length) {
+      table = rehash(hashes, id, table.length * 2);
+    }
+    int mask = table.length - 1;
+    int slot = mix(hash) & mask;
+    while (table[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = id + 1;
+    state = new State(bytes, offsets, lengths, hashes, table, id + 1);
+    return id;
+  }
+
+  /** Whether the bytes of an id are the UTF-8 encoding of a text, decoding none of them. */
+  private static boolean equalsAt(State state, int id, String text) {
+    ByteBuffer bytes = state.bytes;
+    int at = state.offsets[id];
+    int end = at + state.lengths[id];
+    for (int i = 0; i < text.length(); i = next(text, i)) {
+      int c = codePointAt(text, i);
+      if (c < 0x80) {
+        if (at >= end || bytes.get(at++) != (byte) c) {
+          return false;
+        }
+      } else if (c < 0x800) {
+        if (at + 2 > end
+            || bytes.get(at++) != (byte) (0xC0 | c >> 6)
+            || bytes.get(at++) != (byte) (0x80 | c & 0x3F)) {
+          return false;
+        }
+      } else if (c < 0x10000) {
+        if (at + 3 > end
+            || bytes.get(at++) != (byte) (0xE0 | c >> 12)
+            || bytes.get(at++) != (byte) (0x80 | c >> 6 & 0x3F)
+            || bytes.get(at++) != (byte) (0x80 | c & 0x3F)) {
+          return false;
+        }
+      } else if (at + 4 > end
+          || bytes.get(at++) != (byte) (0xF0 | c >> 18)
+          || bytes.get(at++) != (byte) (0x80 | c >> 12 & 0x3F)
+          || bytes.get(at++) != (byte) (0x80 | c >> 6 & 0x3F)
+          || bytes.get(at++) != (byte) (0x80 | c & 0x3F)) {
+        return false;
+      }
+    }
+    return at == end;
+  }
+
+  private static void put(ByteBuffer bytes, int c) {
+    if (c < 0x80) {
+      bytes.put((byte) c);
+    } else if (c < 0x800) {
+      bytes.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+    } else if (c < 0x10000) {
+      bytes
+          .put((byte) (0xE0 | c >> 12))
+          .put((byte) (0x80 | c >> 6 & 0x3F))
+          .put((byte) (0x80 | c & 0x3F));
+    } else {
+      bytes
+          .put((byte) (0xF0 | c >> 18))
+          .put((byte) (0x80 | c >> 12 & 0x3F))
+          .put((byte) (0x80 | c >> 6 & 0x3F))
+          .put((byte) (0x80 | c & 0x3F));
+    }
+  }
+
+  private static int utf8Length(String text) {
+    int length = 0;
+    for (int i = 0; i < text.length(); i = next(text, i)) {
+      int c = codePointAt(text, i);
+      length += c < 0x80 ? 1 : c < 0x800 ? 2 : c < 0x10000 ? 3 : 4;
+    }
+    return length;
+  }
+
+  /**
+   * The code point at an index, a lone surrogate being replaced by '?' as {@link
+   * String#getBytes(java.nio.charset.Charset)} does.
+   */
+  private static int codePointAt(String text, int index) {
+    int c = text.codePointAt(index);
+    return c < 0x10000 && Character.isSurrogate((char) c) ? '?' : c;
+  }
+
+  private static int next(String text, int index) {
+    return index + Character.charCount(text.codePointAt(index));
+  }
+
+  private static int[] rehash(int[] hashes, int size, int length) {
+    int[] grown = new int[length];
+    int mask = length - 1;
+    for (int id = 0; id < size; id++) {
+      int slot = mix(hashes[id]) & mask;
+      while (grown[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      grown[slot] = id + 1;
+    }
+    return grown;
+  }
+
+  /** Spreads the bits of a string hash, whose low bits are poor for short texts. */
+  private static int mix(int hash) {
+    int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,43 @@
+package com.dosilink.datasource;
+
+import java.util.Arrays;
+
+/**
+ * A map keyed by the ids of a {@link StringDictionary}. Ids are dense, so the values sit in an
+ * array indexed by id and a lookup is an array read, with no hashing and no {@code String} key.
+ */
+public final class StringIdMap<V> {
+
+  private Object[] values = new Object[64];
+
+  public void put(int id, V value) {
+    if (id < 0) {
+      return;
+    }
+    if (id >= values.length) {
+      values = Arrays.copyOf(values, Math.max(id + 1, values.length * 2));
+    }
+    values[id] = value;
+  }
+
+  /** Returns the value of an id, or null for an unknown id or for -1, the id of no text. */
+  @SuppressWarnings("unchecked")
+  public V get(int id) {
+    return id >= 0 && id < values.length ? (V) values[id] : null;
+  }
+
+  public boolean containsKey(int id) {
+    return get(id) != null;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder text = new StringBuilder("{");
+    for (int id = 0; id < values.length; id++) {
+      if (values[id] != null) {
+        text.append(text.length() > 1 ? ", " : "").append(id).append('=').append(values[id]);
+      }
+    }
+    return text.append('}').toString();
+  }
+}
@@ -1,74 +1,63 @@
 package com.dosilink.datasource;
 
 import com.dosilink.database.Database;
+import com.dosilink.database.ReferenceResolver;
 import com.axelor.meta.db.MetaJsonRecord;
+import com.dosilink.datasource.SheetSchemas.TrainingColumns;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
-
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
+import java.util.Map;
 
 public class TrainingXLS {
 
-  private static final int STRUCTURE_CLIENT_SHEET = 0;
-  private static final int TRAINING_SHEET = 2;
-  private static final int FUNCTIONGRADE_NAME = 5;
-  private static final int FUNCTIONGRADE_TRAINING = 2;
-  private static final int TRAINING_TYPE = 0;
-
-  private final String sourceFile;
-  private Database database = new Database();
-
-
-  public TrainingXLS(String sourceFile) {
-    this.sourceFile = sourceFile;
+  public static final int TRAINING_SHEET = 2;
+  /** The names of the training types, the records of which are found by name. */
+  static final List<String> TRAINING_TYPES =
+      Arrays.asList(
+          "Utilisation des DMERI",
+          "Radioprotection travailleur exposé",
+          "Magnétoprotection",
+          "Radioprotection patient",
+          "Utilisation du dosimètre actif");
+
+  private final WorkbookSession session;
+  private final Database database;
+  private final ReferenceResolver references;
+
+
+  public TrainingXLS(WorkbookSession session) {
+    this.session = session;
+    this.database = new Database(session.getDeltaIndex());
+    this.references = new ReferenceResolver(database, session.getStrings());
   }
 
   public void saveTrainingSheet() throws Exception {
-    ExcelReader reader = new ExcelReader(sourceFile);
-    HashMap<String, MetaJsonRecord> mapTrainings = new HashMap<>();
-    List<MetaJsonRecord> metaJsonRecordTrainings = database.findTrainingTypes();
-    mapTrainings.put("Utilisation des DMERI", metaJsonRecordTrainings.get(0));
-    mapTrainings.put("Radioprotection travailleur exposé", metaJsonRecordTrainings.get(1));
-    mapTrainings.put("Magnétoprotection", metaJsonRecordTrainings.get(2));
-    mapTrainings.put("Radioprotection patient", metaJsonRecordTrainings.get(3));
-    mapTrainings.put("Utilisation du dosimètre actif", metaJsonRecordTrainings.get(4));
-    HashMap<String, MetaJsonRecord> mapFunctionGrades = new HashMap<>();
-    Sheet clientStructureSheet = reader.readSheet(STRUCTURE_CLIENT_SHEET);
-    int i = 0;
-    for (Row row : clientStructureSheet) {
-      if (row.getRowNum() < 2) {
-        continue;
-      }
-      if (validRow(row, FUNCTIONGRADE_NAME)) {
-        mapFunctionGrades.put(
-            row.getCell(FUNCTIONGRADE_NAME).getStringCellValue(), database.findFunctionGrade().get(i));
-        i++;
+    Map<String, MetaJsonRecord> mapTrainings = new HashMap<>();
+    for (MetaJsonRecord trainingType : database.findTrainingTypes()) {
+      if (trainingType.getName() != null) {
+        mapTrainings.put(ReferenceResolver.normalize(trainingType.getName()), trainingType);
       }
     }
-    System.out.println(mapFunctionGrades);
-    Sheet trainingSheet = reader.readSheet(TRAINING_SHEET);
-    for (Row row : trainingSheet) {
-      if (row.getRowNum() < 2 || !validRow(row,TRAINING_TYPE)) {
-        continue;
+    ExcelSheet trainingSheet = SheetSchemas.TRAINING.bind(session.getSheet(TRAINING_SHEET));
+    ImportChunks.write(trainingSheet, session.getRequest().getChunkSize(), row -> {
+      if (row.getRowNum() < SheetSchemas.HEADER_ROWS || !row.hasValue(TrainingColumns.TYPE)) {
+        return;
       }
         MetaJsonRecord functionGrade = null;
-        if (validRow(row,FUNCTIONGRADE_TRAINING)){
-          functionGrade = mapFunctionGrades.get(row.getCell(FUNCTIONGRADE_TRAINING).getStringCellValue());
+        if (row.hasValue(TrainingColumns.FUNCTION_GRADE)){
+          functionGrade = references.find(ReferenceResolver.FUNCTION_GRADE, row, TrainingColumns.FUNCTION_GRADE);
           System.out.println(functionGrade);
         }
         MetaJsonRecord trainingType = null;
-        if (validRow(row,TRAINING_TYPE)){
-          trainingType = mapTrainings.get(row.getCell(TRAINING_TYPE).getStringCellValue());
+        if (row.hasValue(TrainingColumns.TYPE)){
+          trainingType = mapTrainings.get(references.keyOf(row, TrainingColumns.TYPE));
           System.out.println(trainingType);
         }
         MetaJsonRecord training = database.saveTraining(row, trainingType, functionGrade);
         System.out.println(training);
 
-    }
+    });
   }
 
-  private boolean validRow(Row row, int NUM_COLUMN) {
-    return !(row.getCell(NUM_COLUMN) == null || row.getCell(NUM_COLUMN).getStringCellValue().isEmpty());
-  }
 }
@@ -0,0 +1,104 @@
+package com.dosilink.datasource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The problems {@link WorkbookValidator} found in a workbook, each located by sheet, row and column
+ * the way the client sees them in Excel.
+ */
+public final class ValidationReport {
+
+  public static final class Issue {
+    private final int sheet;
+    private final int row;
+    private final int column;
+    private final String message;
+
+    Issue(int sheet, int row, int column, String message) {
+      this.sheet = sheet;
+      this.row = row;
+      this.column = column;
+      this.message = message;
+    }
+
+    public int getSheet() {
+      return sheet;
+    }
+
+    /** The row number Excel shows, starting at 1, or 0 for a problem with the whole sheet. */
+    public int getRow() {
+      return row + 1;
+    }
+
+    /** The column letters Excel shows, "A" for the first column, or "" for the whole sheet. */
+    public String getColumn() {
+      StringBuilder letters = new StringBuilder();
+      for (int index = column + 1; index > 0; index = (index - 1) / 26) {
+        letters.insert(0, (char) ('A' + (index - 1) % 26));
+      }
+      return letters.toString();
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    @Override
+    public String toString() {
+      if (row < 0) {
+        return "sheet " + sheet + ": " + message;
+      }
+      return "sheet " + sheet + ", cell " + getColumn() + getRow() + ": " + message;
+    }
+  }
+
+  private final List<Issue> issues = new ArrayList<>();
+  private int checkedRows;
+
+  void add(int sheet, int row, int column, String message) {
+    issues.add(new Issue(sheet, row, column, message));
+  }
+
+  void addSheet(int sheet, String message) {
+    issues.add(new Issue(sheet, -1, -1, message));
+  }
+
+  void countRow() {
+    checkedRows++;
+  }
+
+  /** Adds the problems and rows of the report of another sheet. */
+  public void addAll(ValidationReport other) {
+    issues.addAll(other.issues);
+    checkedRows += other.checkedRows;
+  }
+
+  public boolean isValid() {
+    return issues.isEmpty();
+  }
+
+  public List<Issue> getIssues() {
+    return Collections.unmodifiableList(issues);
+  }
+
+  public int getCheckedRows() {
+    return checkedRows;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder text =
+        new StringBuilder()
+            .append(issues.size())
+            .append(issues.size() == 1 ? " problem" : " problems")
+            .append(" in ")
+            .append(checkedRows)
+            .append(" rows");
+    for (Issue issue : issues) {
+      text.append(System.lineSeparator()).append("  ").append(issue);
+    }
+    return text.toString();
+  }
+}
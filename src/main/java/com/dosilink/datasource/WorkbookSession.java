@@ -0,0 +1,246 @@
+package com.dosilink.datasource;
+
+import com.dosilink.database.DeltaIndex;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * Opens a client workbook once for a whole import. Each sheet is decoded into a {@link
+ * SheetSnapshot} the first time an importer asks for it and the snapshot is handed to every later
+ * importer, so the structure sheet shared by all importers is parsed a single time. Closing the
+ * session releases the file.
+ *
+ * <p>For a partial {@link ImportRequest} only the selected rows are decoded, and the decoding of a
+ * sheet stops after its last selected row. For a chunked request the {@code .xlsx} sheets are not
+ * kept: each pass over a sheet streams its part again, so memory does not grow with the sheet.
+ *
+ * <p>The snapshots of whole sheets are kept in the {@link SnapshotCache}, keyed by the checksum of
+ * the file, and a later import of the same file reads them from there without opening the workbook.
+ *
+ * <p>A workbook exported as CSV or TSV, one file per sheet or a zip bundle of them, is read through
+ * {@link CsvBundle}; its sheets are parsed in place on each pass and are not decoded into
+ * snapshots. A single CSV or TSV file holds only one sheet, so importing it is a partial import
+ * of that sheet.
+ *
+ * <p>The texts of all the sheets are interned into one {@link StringDictionary}, so that the
+ * importers look up the names of the structure sheet by their id.
+ *
+ * <p>Sheets may be requested from several threads: different sheets are decoded concurrently and
+ * a thread asking for a sheet that is being decoded waits for that decoding to finish.
+ */
+public class WorkbookSession implements AutoCloseable {
+
+  private final String path;
+  private final ImportRequest request;
+  private final Map<Integer, FutureTask<ExcelSheet>> sheets = new ConcurrentHashMap<>();
+  private final DeltaIndex deltaIndex;
+  private final StringDictionary strings = new StringDictionary();
+  private final SnapshotCache cache;
+  private final String cacheKey;
+  private XlsxPackage xlsx;
+  private Workbook workbook;
+  private CsvBundle csv;
+
+  public WorkbookSession(String path) throws IOException {
+    this(new ImportRequest(path));
+  }
+
+  public WorkbookSession(ImportRequest request) throws IOException {
+    this.request = request;
+    this.path = request.getSourceFile();
+    this.deltaIndex = request.isDelta() ? new DeltaIndex() : null;
+    if (path.endsWith("xlsx") || path.endsWith("xls")) {
+      this.cache = request.isChunked() ? null : SnapshotCache.shared();
+      this.cacheKey = cache == null ? null : cache.keyOf(new File(path));
+      if (cache == null) {
+        open();
+      }
+    } else if (CsvBundle.accepts(path)) {
+      this.cache = null;
+      this.cacheKey = null;
+      this.csv = CsvBundle.open(new File(path));
+      if (!path.toLowerCase().endsWith(".zip") && !request.isPartial()) {
+        request.sheet(csv.getSheetIndexes().get(0));
+      }
+    } else {
+      throw new IllegalArgumentException("The specified file is not Excel, CSV or TSV file");
+    }
+  }
+
+  /**
+   * Opens the workbook. With a sheet cache the workbook is only opened once a sheet is missing
+   * from the cache, so an import whose sheets are all cached never parses it.
+   */
+  private synchronized void open() throws IOException {
+    if (xlsx != null || workbook != null) {
+      return;
+    }
+    if (path.endsWith("xlsx")) {
+      this.xlsx = XlsxPackage.open(new File(path), strings);
+    } else {
+      try (FileInputStream inputStream = new FileInputStream(path)) {
+        this.workbook = new HSSFWorkbook(inputStream);
+      }
+    }
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public ImportRequest getRequest() {
+    return request;
+  }
+
+  /** Returns the records already imported, shared by the importers of a delta import, or null. */
+  public DeltaIndex getDeltaIndex() {
+    return deltaIndex;
+  }
+
+  /** Returns the dictionary of the texts of the workbook, shared by all its sheets. */
+  public StringDictionary getStrings() {
+    return strings;
+  }
+
+  public ExcelSheet getSheet(int indexOfSheet) {
+    if (csv != null) {
+      ExcelSheet sheet = csv.getSheet(indexOfSheet);
+      return () -> select(indexOfSheet, sheet.iterator());
+    }
+    if (xlsx != null && request.isChunked()) {
+      return () -> select(indexOfSheet, xlsx.rows(indexOfSheet, () -> {}));
+    }
+    FutureTask<ExcelSheet> decoding = new FutureTask<>(() -> decodeSheet(indexOfSheet));
+    FutureTask<ExcelSheet> existing = sheets.putIfAbsent(indexOfSheet, decoding);
+    if (existing == null) {
+      existing = decoding;
+      decoding.run();
+    }
+    try {
+      return existing.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while reading sheet " + indexOfSheet, e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Unable to read sheet " + indexOfSheet, e.getCause());
+    }
+  }
+
+  private ExcelSheet decodeSheet(int indexOfSheet) throws IOException {
+    SheetSnapshot cached = cache == null ? null : cache.get(cacheKey, indexOfSheet, strings);
+    if (cached != null) {
+      if (!request.isPartial()) {
+        return cached;
+      }
+      return SheetSnapshot.of(
+          select(indexOfSheet, cached.iterator()), cached.isDate1904(), strings);
+    }
+    open();
+    SheetSnapshot snapshot = parseSheet(indexOfSheet);
+    if (cache != null && !request.isPartial()) {
+      cache.put(cacheKey, indexOfSheet, snapshot);
+    }
+    return snapshot;
+  }
+
+  private SheetSnapshot parseSheet(int indexOfSheet) {
+    if (xlsx != null) {
+      try (XlsxRowIterator rows = xlsx.rows(indexOfSheet, () -> {})) {
+        return SheetSnapshot.of(select(indexOfSheet, rows), xlsx.isDate1904(), strings);
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to read sheet " + indexOfSheet + " of " + path, e);
+      }
+    }
+    boolean date1904 = ((HSSFWorkbook) workbook).getInternalWorkbook().isUsing1904DateWindowing();
+    Iterator<SheetRow> rows = new PoiSheet(workbook.getSheetAt(indexOfSheet)).iterator();
+    return SheetSnapshot.of(select(indexOfSheet, rows), date1904, strings);
+  }
+
+  /** Keeps the rows selected by the request and stops after the last of them. */
+  private Iterator<SheetRow> select(int indexOfSheet, Iterator<SheetRow> rows) {
+    if (!request.isPartial()) {
+      return rows;
+    }
+    return new SelectedRows(indexOfSheet, rows);
+  }
+
+  private class SelectedRows implements Iterator<SheetRow>, Closeable {
+    private final int indexOfSheet;
+    private final Iterator<SheetRow> rows;
+    private final int lastRow;
+    private SheetRow next;
+    private boolean done;
+
+    SelectedRows(int indexOfSheet, Iterator<SheetRow> rows) {
+      this.indexOfSheet = indexOfSheet;
+      this.rows = rows;
+      this.lastRow = request.lastRow(indexOfSheet);
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && !done && rows.hasNext()) {
+        SheetRow row = rows.next();
+        if (lastRow >= 0 && row.getRowNum() > lastRow) {
+          done = true;
+          closeQuietly();
+        } else if (request.includesRow(indexOfSheet, row.getRowNum())) {
+          next = row;
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public SheetRow next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      SheetRow row = next;
+      next = null;
+      return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (rows instanceof Closeable) {
+        ((Closeable) rows).close();
+      }
+    }
+
+    private void closeQuietly() {
+      try {
+        close();
+      } catch (IOException e) {
+        // the selected rows have been read, the rest of the sheet is not needed
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    sheets.clear();
+    if (xlsx != null) {
+      xlsx.close();
+      xlsx = null;
+    }
+    if (workbook != null) {
+      workbook.close();
+      workbook = null;
+    }
+    csv = null;
+  }
+}
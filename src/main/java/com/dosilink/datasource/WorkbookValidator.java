@@ -0,0 +1,430 @@
+package com.dosilink.datasource;
+
+import com.dosilink.database.Database;
+import com.dosilink.database.ReferenceResolver;
+import com.dosilink.datasource.SheetSchemas.GeneratorColumns;
+import com.dosilink.datasource.SheetSchemas.IrmColumns;
+import com.dosilink.datasource.SheetSchemas.MeasuringDeviceColumns;
+import com.dosilink.datasource.SheetSchemas.ProtectionEquipmentColumns;
+import com.dosilink.datasource.SheetSchemas.StructureColumns;
+import com.dosilink.datasource.SheetSchemas.TrainingColumns;
+import com.dosilink.datasource.SheetSchemas.WorkerColumns;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks a workbook against what the importers expect of it before anything is written, so that a
+ * bad cell rejects the whole workbook instead of failing an import halfway, after the records of
+ * the rows above it have been saved. Each sheet to import is read once, and every row the importers
+ * would write is checked for:
+ *
+ * <ul>
+ *   <li>the cells the records cannot do without, such as the function and the service of a worker;
+ *   <li>the cells read as numbers or dates, which must hold a number or a date;
+ *   <li>the names of services, locations, brands... which must be in the structure sheet or among
+ *       the records already in the database, compared as {@link ReferenceResolver} compares them.
+ * </ul>
+ *
+ * <p>The validator only reads: the existing names are loaded with one query per model and no
+ * transaction is opened.
+ *
+ * <p>The sheets are checked one by one, with {@link #validate(int)}, so that the {@link
+ * com.dosilink.ImportPlanner} checks each sheet on its pool once the sheet is decoded, while the
+ * next ones are decoded; the names of the structure sheet and of the database are collected by the
+ * first check and shared by the others, from any thread.
+ */
+public class WorkbookValidator {
+
+  /** Whether workbooks are validated before they are imported, true by default. */
+  public static final String VALIDATE = "data.import.validate";
+
+  private static final int STRUCTURE_SHEET = ClientStructureXLS.STRUCTURE_CLIENT_SHEET;
+
+  /** Names a reference column must take its values from. */
+  private static final class Vocabulary {
+    final String label;
+    final int structureColumn;
+    final String jsonModel;
+    final List<String> fixed;
+
+    Vocabulary(String label, int structureColumn, String jsonModel, List<String> fixed) {
+      this.label = label;
+      this.structureColumn = structureColumn;
+      this.jsonModel = jsonModel;
+      this.fixed = fixed;
+    }
+
+    static Vocabulary structure(String label, int column, String jsonModel) {
+      return new Vocabulary(label, column, jsonModel, Collections.emptyList());
+    }
+
+    static Vocabulary fixed(String label, List<String> names) {
+      return new Vocabulary(label, -1, null, names);
+    }
+  }
+
+  private static final Vocabulary SERVICES =
+      Vocabulary.structure("service", StructureColumns.SERVICE_NAME, "serviceAffectation");
+  private static final Vocabulary FUNCTION_GRADES =
+      Vocabulary.structure("function", StructureColumns.FUNCTION_GRADE, "functionGrade");
+  private static final Vocabulary LOCATIONS =
+      Vocabulary.structure("location", StructureColumns.LOCALISATION, "location");
+  private static final Vocabulary INSTALLATION_TYPES =
+      Vocabulary.structure(
+          "installation type", StructureColumns.INSTALLATION_TYPE, "InstallationType");
+  private static final Vocabulary BRANDS =
+      Vocabulary.structure("brand", StructureColumns.BRAND_SUPPLIER, "Brand");
+  private static final Vocabulary MEASURING_DEVICE_TYPES =
+      Vocabulary.structure(
+          "measuring device type", StructureColumns.MEASURING_DEVICE_TYPE, "MeasuringDeviceType");
+  private static final Vocabulary MODALITIES =
+      Vocabulary.fixed("modality", XRayGeneratorXLS.MODALITIES);
+  private static final Vocabulary TRAINING_TYPES =
+      Vocabulary.fixed("training type", TrainingXLS.TRAINING_TYPES);
+
+  private static final List<Vocabulary> VOCABULARIES =
+      Arrays.asList(
+          SERVICES,
+          FUNCTION_GRADES,
+          LOCATIONS,
+          INSTALLATION_TYPES,
+          BRANDS,
+          MEASURING_DEVICE_TYPES,
+          MODALITIES,
+          TRAINING_TYPES);
+
+  /**
+   * The cells an importer reads from the rows of a sheet. A row is written only when its key
+   * columns hold a value, so only those rows are checked.
+   */
+  private static final class Contract {
+    final int sheet;
+    final RowSchema schema;
+    final int[] keys;
+    final List<Column> required = new ArrayList<>();
+    final List<Column> numbers = new ArrayList<>();
+    final List<Column> dates = new ArrayList<>();
+    final Map<Integer, Vocabulary> references = new HashMap<>();
+
+    Contract(int sheet, RowSchema schema, int... keys) {
+      this.sheet = sheet;
+      this.schema = schema;
+      this.keys = keys;
+    }
+
+    Contract required(int column, String label) {
+      required.add(new Column(column, label));
+      return this;
+    }
+
+    Contract number(int column, String label) {
+      numbers.add(new Column(column, label));
+      return this;
+    }
+
+    Contract date(int column, String label) {
+      dates.add(new Column(column, label));
+      return this;
+    }
+
+    Contract reference(int column, Vocabulary vocabulary) {
+      references.put(column, vocabulary);
+      return this;
+    }
+  }
+
+  private static final class Column {
+    final int position;
+    final String label;
+
+    Column(int position, String label) {
+      this.position = position;
+      this.label = label;
+    }
+  }
+
+  private static final List<Contract> CONTRACTS =
+      Arrays.asList(
+          new Contract(
+                  RadiationWorkerXLS.RADIATION_WORKER_SHEET,
+                  SheetSchemas.RADIATION_WORKER,
+                  WorkerColumns.NAME)
+              .required(WorkerColumns.BIRTH_DATE, "Date de naissance")
+              .date(WorkerColumns.BIRTH_DATE, "Date de naissance")
+              .date(WorkerColumns.CONTRACT_START, "Début de contrat")
+              .date(WorkerColumns.CONTRACT_END, "Fin de contrat")
+              .number(WorkerColumns.SISERI_NUMBER, "N° SISERI")
+              .required(WorkerColumns.FUNCTION_GRADE, "Fonction")
+              .reference(WorkerColumns.FUNCTION_GRADE, FUNCTION_GRADES)
+              .required(WorkerColumns.SERVICE, "Service")
+              .reference(WorkerColumns.SERVICE, SERVICES),
+          new Contract(TrainingXLS.TRAINING_SHEET, SheetSchemas.TRAINING, TrainingColumns.TYPE)
+              .reference(TrainingColumns.TYPE, TRAINING_TYPES)
+              .required(TrainingColumns.FUNCTION_GRADE, "Fonction")
+              .reference(TrainingColumns.FUNCTION_GRADE, FUNCTION_GRADES)
+              .number(TrainingColumns.PERIODIC, "Périodique"),
+          new Contract(
+                  XRayGeneratorXLS.GENERATOR_SHEET,
+                  SheetSchemas.GENERATOR,
+                  GeneratorColumns.MODALITY,
+                  GeneratorColumns.INSTALLATION_TYPE)
+              .reference(GeneratorColumns.MODALITY, MODALITIES)
+              .required(GeneratorColumns.SERVICE, "Service")
+              .reference(GeneratorColumns.SERVICE, SERVICES)
+              .required(GeneratorColumns.LOCATION, "Localisation")
+              .reference(GeneratorColumns.LOCATION, LOCATIONS)
+              .required(GeneratorColumns.BRAND, "Marque")
+              .reference(GeneratorColumns.BRAND, BRANDS)
+              .number(GeneratorColumns.SERIAL_NUMBER, "N° de série")
+              .required(GeneratorColumns.WORK_STATION, "Poste de travail")
+              .reference(GeneratorColumns.INSTALLATION_TYPE, INSTALLATION_TYPES)
+              .date(GeneratorColumns.COMMISSIONING_DATE, "Date de mise en service")
+              .date(GeneratorColumns.LAST_EQC, "Date du dernier CQE")
+              .date(GeneratorColumns.LAST_CQI, "Date du dernier CQI")
+              .date(GeneratorColumns.LAST_MONTHLY_CQI, "Date du dernier CQI mensuel"),
+          new Contract(IrmXLS.IRM_SHEET, SheetSchemas.IRM, IrmColumns.SERVICE)
+              .reference(IrmColumns.SERVICE, SERVICES)
+              .required(IrmColumns.LOCATION, "Localisation")
+              .reference(IrmColumns.LOCATION, LOCATIONS)
+              .number(IrmColumns.POWER, "Puissance")
+              .required(IrmColumns.BRAND, "Marque")
+              .reference(IrmColumns.BRAND, BRANDS)
+              .number(IrmColumns.SERIAL_NUMBER, "N° de série")
+              .date(IrmColumns.COMMISSIONING_DATE, "Date de mise en service"),
+          new Contract(
+                  ProtectionEquipmentXLS.PROTECTION_EQUIPMENT_SHEET,
+                  SheetSchemas.PROTECTION_EQUIPMENT,
+                  ProtectionEquipmentColumns.BRAND)
+              .reference(ProtectionEquipmentColumns.BRAND, BRANDS)
+              .number(ProtectionEquipmentColumns.SERIAL_NUMBER, "N° de série")
+              .required(ProtectionEquipmentColumns.SERVICE, "Service")
+              .reference(ProtectionEquipmentColumns.SERVICE, SERVICES)
+              .required(ProtectionEquipmentColumns.LOCATION, "Localisation")
+              .reference(ProtectionEquipmentColumns.LOCATION, LOCATIONS)
+              .number(ProtectionEquipmentColumns.THICKNESS, "Epaisseur")
+              .date(ProtectionEquipmentColumns.LAST_CHECK, "Date de dernière vérification")
+              .date(ProtectionEquipmentColumns.ACQUISITION_DATE, "Date d'acquisition"),
+          new Contract(
+                  MeasuringDeviceXLS.MEASURING_DEVICE_SHEET,
+                  SheetSchemas.MEASURING_DEVICE,
+                  MeasuringDeviceColumns.TYPE)
+              .reference(MeasuringDeviceColumns.TYPE, MEASURING_DEVICE_TYPES)
+              .required(MeasuringDeviceColumns.BRAND, "Marque")
+              .reference(MeasuringDeviceColumns.BRAND, BRANDS)
+              .number(MeasuringDeviceColumns.SERIAL_NUMBER, "N° de série")
+              .required(MeasuringDeviceColumns.SERVICE, "Service")
+              .reference(MeasuringDeviceColumns.SERVICE, SERVICES)
+              .required(MeasuringDeviceColumns.LOCATION, "Localisation")
+              .reference(MeasuringDeviceColumns.LOCATION, LOCATIONS)
+              .date(MeasuringDeviceColumns.LAST_CHECK, "Date de dernière vérification")
+              .date(MeasuringDeviceColumns.LAST_CALIBRATION, "Date du dernier étalonnage"));
+
+  private final WorkbookSession session;
+  private Map<Vocabulary, BitSet> known;
+
+  public WorkbookValidator(WorkbookSession session) {
+    this.session = session;
+  }
+
+  /** Checks every sheet of the request. */
+  public ValidationReport validate() {
+    ValidationReport report = new ValidationReport();
+    for (int sheet : getSheets()) {
+      report.addAll(validate(sheet));
+    }
+    return report;
+  }
+
+  /** The sheets of the request the validator checks, in the order of their reports. */
+  public int[] getSheets() {
+    List<Integer> sheets = new ArrayList<>();
+    for (Contract contract : CONTRACTS) {
+      if (session.getRequest().includes(contract.sheet)) {
+        sheets.add(contract.sheet);
+      }
+    }
+    return sheets.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /** The sheets read to check a sheet: the sheet and the structure sheet, if it is imported. */
+  public int[] getSheetsRead(int sheet) {
+    if (session.getRequest().includes(STRUCTURE_SHEET)) {
+      return new int[] {STRUCTURE_SHEET, sheet};
+    }
+    return new int[] {sheet};
+  }
+
+  /** Checks one sheet of the request. */
+  public ValidationReport validate(int sheet) {
+    ValidationReport report = new ValidationReport();
+    for (Contract contract : CONTRACTS) {
+      if (contract.sheet == sheet) {
+        check(contract, knownNames(), report);
+      }
+    }
+    return report;
+  }
+
+  /**
+   * Collects, as ids of the session dictionary, the normalized names each vocabulary accepts: the
+   * names of the structure sheet, read in a single pass for all the vocabularies, and the names of
+   * the records in the database. The names are collected once, by the first check.
+   */
+  private synchronized Map<Vocabulary, BitSet> knownNames() {
+    if (known != null) {
+      return known;
+    }
+    Database database = new Database();
+    Map<Vocabulary, BitSet> known = new HashMap<>();
+    for (Vocabulary vocabulary : VOCABULARIES) {
+      BitSet ids = new BitSet();
+      add(ids, vocabulary.fixed);
+      if (vocabulary.jsonModel != null) {
+        add(ids, database.findNames(vocabulary.jsonModel));
+      }
+      known.put(vocabulary, ids);
+    }
+    if (session.getRequest().includes(STRUCTURE_SHEET)) {
+      ExcelSheet structure = SheetSchemas.CLIENT_STRUCTURE.bind(session.getSheet(STRUCTURE_SHEET));
+      Iterator<SheetRow> rows = structure.iterator();
+      try {
+        while (rows.hasNext()) {
+          SheetRow row = rows.next();
+          if (row.getRowNum() < SheetSchemas.HEADER_ROWS) {
+            continue;
+          }
+          for (Vocabulary vocabulary : VOCABULARIES) {
+            if (vocabulary.structureColumn >= 0) {
+              int id = nameId(row, vocabulary.structureColumn);
+              if (id >= 0) {
+                known.get(vocabulary).set(id);
+              }
+            }
+          }
+        }
+      } finally {
+        ExcelSheet.close(rows);
+      }
+    }
+    this.known = known;
+    return known;
+  }
+
+  private void add(BitSet ids, Collection<String> names) {
+    for (String name : names) {
+      if (name != null) {
+        ids.set(session.getStrings().intern(ReferenceResolver.normalize(name)));
+      }
+    }
+  }
+
+  private void check(Contract contract, Map<Vocabulary, BitSet> known, ValidationReport report) {
+    ExcelSheet sheet;
+    try {
+      sheet = contract.schema.bind(session.getSheet(contract.sheet));
+    } catch (RuntimeException e) {
+      report.addSheet(contract.sheet, "the sheet cannot be read: " + e.getMessage());
+      return;
+    }
+    Iterator<SheetRow> rows = sheet.iterator();
+    try {
+      while (rows.hasNext()) {
+        SheetRow row = rows.next();
+        if (row.getRowNum() < SheetSchemas.HEADER_ROWS || !hasKeys(row, contract.keys)) {
+          continue;
+        }
+        report.countRow();
+        for (Column column : contract.required) {
+          if (!row.hasValue(column.position)) {
+            report.add(
+                contract.sheet,
+                row.getRowNum(),
+                columnOf(row, column.position),
+                column.label + " is missing");
+          }
+        }
+        for (Column column : contract.numbers) {
+          SheetCell cell = row.getCell(column.position);
+          if (cell != null && cell.getCellKind() != CellKind.BLANK && !isNumber(cell)) {
+            report.add(
+                contract.sheet,
+                row.getRowNum(),
+                cell.getColumnIndex(),
+                column.label + " is not a number: " + cell);
+          }
+        }
+        for (Column column : contract.dates) {
+          SheetCell cell = row.getCell(column.position);
+          if (cell != null && cell.getCellKind() != CellKind.BLANK && !isDate(cell)) {
+            report.add(
+                contract.sheet,
+                row.getRowNum(),
+                cell.getColumnIndex(),
+                column.label + " is not a date: " + cell);
+          }
+        }
+        for (Map.Entry<Integer, Vocabulary> reference : contract.references.entrySet()) {
+          int column = reference.getKey();
+          int id = nameId(row, column);
+          if (row.hasValue(column) && (id < 0 || !known.get(reference.getValue()).get(id))) {
+            report.add(
+                contract.sheet,
+                row.getRowNum(),
+                columnOf(row, column),
+                "unknown " + reference.getValue().label + " \"" + row.getCell(column) + "\"");
+          }
+        }
+      }
+    } finally {
+      ExcelSheet.close(rows);
+    }
+  }
+
+  /** The id of the normalized text of a column, or -1 when the column holds no text. */
+  private int nameId(SheetRow row, int column) {
+    StringDictionary strings = session.getStrings();
+    int id = strings.idOf(row, column);
+    return id < 0 ? -1 : strings.intern(ReferenceResolver.normalize(strings.get(id)));
+  }
+
+  private static boolean hasKeys(SheetRow row, int[] keys) {
+    for (int key : keys) {
+      if (!row.hasValue(key)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** The column the client sees, which the schema may have moved from the declared position. */
+  private static int columnOf(SheetRow row, int column) {
+    SheetCell cell = row.getCell(column);
+    return cell == null ? column : cell.getColumnIndex();
+  }
+
+  /** Whether the importers can read the cell as a number, the way the entity classes do. */
+  private static boolean isNumber(SheetCell cell) {
+    try {
+      cell.getNumericCellValue();
+      return true;
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+  private static boolean isDate(SheetCell cell) {
+    try {
+      cell.getLocalDateCellValue();
+      return true;
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,294 @@
+package com.dosilink.datasource;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * An {@code .xlsx} package read through a memory-mapped {@link ZipArchive}. Opening the package
+ * reads the workbook part and its relationships to locate the sheet parts and the workbook date
+ * system. The shared strings table is read the first time a sheet is streamed, and only the sheet
+ * parts that are asked for are inflated: styles, drawings and the other sheets are never read.
+ *
+ * <p>The shared strings are interned into the {@link StringDictionary} the package is opened with
+ * as they are parsed; the package only keeps the id of each of them, and a cell that refers to a
+ * shared string carries its id.
+ */
+class XlsxPackage implements Closeable {
+
+  private static final String RELATIONSHIPS = "_rels/.rels";
+  private static final String OFFICE_DOCUMENT = "/officeDocument";
+  private static final String SHARED_STRINGS = "/sharedStrings";
+  private static final String WORKSHEET = "/worksheet";
+
+  private final File file;
+  private final ZipArchive zip;
+  private final List<String> sheetParts = new ArrayList<>();
+  private final String sharedStringsPart;
+  private final boolean date1904;
+  private final StringDictionary strings;
+  /** The id in {@link #strings} of each shared string, by index. */
+  private volatile int[] sharedStrings;
+
+  private XlsxPackage(File file, ZipArchive zip, StringDictionary strings)
+      throws IOException, XMLStreamException {
+    this.file = file;
+    this.zip = zip;
+    this.strings = strings;
+    String workbookPart = null;
+    for (String[] relationship : readRelationships("", RELATIONSHIPS)) {
+      if (relationship[1].endsWith(OFFICE_DOCUMENT)) {
+        workbookPart = relationship[2];
+      }
+    }
+    if (workbookPart == null) {
+      throw new IOException("No workbook in " + file);
+    }
+    Map<String, String> worksheets = new HashMap<>();
+    String sharedStrings = null;
+    for (String[] relationship : readRelationships(workbookPart, relationshipsOf(workbookPart))) {
+      if (relationship[1].endsWith(WORKSHEET)) {
+        worksheets.put(relationship[0], relationship[2]);
+      } else if (relationship[1].endsWith(SHARED_STRINGS)) {
+        sharedStrings = relationship[2];
+      }
+    }
+    this.sharedStringsPart = sharedStrings;
+    this.date1904 = readWorkbook(workbookPart, worksheets);
+  }
+
+  static XlsxPackage open(File file, StringDictionary strings) {
+    ZipArchive zip = null;
+    try {
+      zip = ZipArchive.open(file);
+      return new XlsxPackage(file, zip, strings);
+    } catch (Exception e) {
+      if (zip != null) {
+        zip.close();
+      }
+      throw new IllegalStateException("Unable to open workbook " + file, e);
+    }
+  }
+
+  /**
+   * Starts streaming the rows of a sheet. {@code onClose} is run once the iterator is exhausted or
+   * closed, after the sheet part stream has been released.
+   */
+  XlsxRowIterator rows(int sheetIndex, Closeable onClose) {
+    InputStream sheetXml = null;
+    try {
+      if (sheetIndex < 0 || sheetIndex >= sheetParts.size()) {
+        throw new IllegalArgumentException("Sheet index (" + sheetIndex + ") is out of range");
+      }
+      int[] shared = sharedStrings();
+      sheetXml = zip.open(sheetParts.get(sheetIndex));
+      if (sheetXml == null) {
+        throw new IOException("Missing part " + sheetParts.get(sheetIndex));
+      }
+      InputStream stream = sheetXml;
+      return new XlsxRowIterator(
+          sheetXml,
+          shared,
+          strings,
+          date1904,
+          () -> {
+            try {
+              stream.close();
+            } finally {
+              onClose.close();
+            }
+          });
+    } catch (Exception e) {
+      if (sheetXml != null) {
+        try {
+          sheetXml.close();
+        } catch (IOException suppressed) {
+          e.addSuppressed(suppressed);
+        }
+      }
+      throw new IllegalStateException("Unable to read sheet " + sheetIndex + " of " + file, e);
+    }
+  }
+
+  boolean isDate1904() {
+    return date1904;
+  }
+
+  private int[] sharedStrings() throws IOException, XMLStreamException {
+    int[] ids = sharedStrings;
+    if (ids == null) {
+      synchronized (this) {
+        ids = sharedStrings;
+        if (ids == null) {
+          ids = readSharedStrings();
+          sharedStrings = ids;
+        }
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Interns the text of every {@code <si>} item, the runs of rich text included and the phonetic
+   * readings left out, and returns their ids.
+   */
+  private int[] readSharedStrings() throws IOException, XMLStreamException {
+    if (sharedStringsPart == null) {
+      return new int[0];
+    }
+    int[] ids = new int[256];
+    int count = 0;
+    try (InputStream in = zip.open(sharedStringsPart)) {
+      if (in == null) {
+        return new int[0];
+      }
+      XMLStreamReader xml = XlsxRowIterator.inputFactory().createXMLStreamReader(in);
+      try {
+        StringBuilder text = new StringBuilder();
+        int phonetic = 0;
+        while (xml.hasNext()) {
+          int event = xml.next();
+          if (event == XMLStreamConstants.START_ELEMENT) {
+            String name = xml.getLocalName();
+            if ("si".equals(name)) {
+              text.setLength(0);
+            } else if ("rPh".equals(name)) {
+              phonetic++;
+            } else if ("t".equals(name) && phonetic == 0) {
+              text.append(xml.getElementText());
+            }
+          } else if (event == XMLStreamConstants.END_ELEMENT) {
+            String name = xml.getLocalName();
+            if ("si".equals(name)) {
+              if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+              }
+              ids[count++] = strings.intern(text.toString());
+            } else if ("rPh".equals(name)) {
+              phonetic--;
+            }
+          }
+        }
+      } finally {
+        xml.close();
+      }
+    }
+    return Arrays.copyOf(ids, count);
+  }
+
+  /**
+   * Lists the sheet parts in workbook order and returns the {@code date1904} flag of {@code
+   * <workbookPr>}.
+   */
+  private boolean readWorkbook(String workbookPart, Map<String, String> worksheets)
+      throws IOException, XMLStreamException {
+    boolean date1904 = false;
+    try (InputStream in = zip.open(workbookPart)) {
+      if (in == null) {
+        throw new IOException("Missing part " + workbookPart);
+      }
+      XMLStreamReader xml = XlsxRowIterator.inputFactory().createXMLStreamReader(in);
+      try {
+        while (xml.hasNext()) {
+          if (xml.next() != XMLStreamConstants.START_ELEMENT) {
+            continue;
+          }
+          if ("workbookPr".equals(xml.getLocalName())) {
+            String flag = xml.getAttributeValue(null, "date1904");
+            date1904 = "1".equals(flag) || "true".equalsIgnoreCase(flag);
+          } else if ("sheet".equals(xml.getLocalName())) {
+            String part = worksheets.get(relationshipId(xml));
+            if (part != null) {
+              sheetParts.add(part);
+            }
+          }
+        }
+      } finally {
+        xml.close();
+      }
+    }
+    return date1904;
+  }
+
+  private static String relationshipId(XMLStreamReader xml) {
+    for (int i = 0; i < xml.getAttributeCount(); i++) {
+      if ("id".equals(xml.getAttributeLocalName(i))) {
+        return xml.getAttributeValue(i);
+      }
+    }
+    return null;
+  }
+
+  /** Reads a relationships part as {id, type, resolved target} triples. */
+  private List<String[]> readRelationships(String source, String part)
+      throws IOException, XMLStreamException {
+    List<String[]> relationships = new ArrayList<>();
+    try (InputStream in = zip.open(part)) {
+      if (in == null) {
+        return relationships;
+      }
+      XMLStreamReader xml = XlsxRowIterator.inputFactory().createXMLStreamReader(in);
+      try {
+        while (xml.hasNext()) {
+          if (xml.next() == XMLStreamConstants.START_ELEMENT
+              && "Relationship".equals(xml.getLocalName())
+              && !"External".equals(xml.getAttributeValue(null, "TargetMode"))) {
+            relationships.add(
+                new String[] {
+                  xml.getAttributeValue(null, "Id"),
+                  xml.getAttributeValue(null, "Type"),
+                  resolve(source, xml.getAttributeValue(null, "Target"))
+                });
+          }
+        }
+      } finally {
+        xml.close();
+      }
+    }
+    return relationships;
+  }
+
+  /** Names the relationships part of a part, {@code xl/_rels/workbook.xml.rels} for the workbook. */
+  private static String relationshipsOf(String part) {
+    int slash = part.lastIndexOf('/');
+    return part.substring(0, slash + 1) + "_rels/" + part.substring(slash + 1) + ".rels";
+  }
+
+  /** Resolves the target of a relationship against the folder of its source part. */
+  private static String resolve(String source, String target) {
+    if (target.startsWith("/")) {
+      return target.substring(1);
+    }
+    List<String> segments = new ArrayList<>();
+    int slash = source.lastIndexOf('/');
+    if (slash > 0) {
+      for (String segment : source.substring(0, slash).split("/")) {
+        segments.add(segment);
+      }
+    }
+    for (String segment : target.split("/")) {
+      if ("..".equals(segment)) {
+        if (!segments.isEmpty()) {
+          segments.remove(segments.size() - 1);
+        }
+      } else if (!segment.isEmpty() && !".".equals(segment)) {
+        segments.add(segment);
+      }
+    }
+    return String.join("/", segments);
+  }
+
+  @Override
+  public void close() {
+    zip.close();
+  }
+}
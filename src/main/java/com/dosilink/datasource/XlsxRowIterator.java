@@ -0,0 +1,230 @@
+package com.dosilink.datasource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Pulls rows out of a worksheet part ({@code xl/worksheets/sheetN.xml}) one at a time. Only the
+ * current row is held in memory, so the first row is available as soon as its XML has been read.
+ */
+class XlsxRowIterator implements Iterator<SheetRow>, Closeable {
+
+  private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+  private final XMLStreamReader reader;
+  private final int[] sharedStrings;
+  private final StringDictionary strings;
+  private final boolean date1904;
+  private final Closeable resource;
+  private SheetRow next;
+  private int lastRowNum = -1;
+  private boolean closed;
+
+  /**
+   * Reads a sheet part whose shared strings are the texts of the ids {@code sharedStrings} in
+   * {@code strings}.
+   */
+  XlsxRowIterator(
+      InputStream sheetXml,
+      int[] sharedStrings,
+      StringDictionary strings,
+      boolean date1904,
+      Closeable resource)
+      throws XMLStreamException {
+    this.reader = XML_INPUT_FACTORY.createXMLStreamReader(sheetXml);
+    this.sharedStrings = sharedStrings;
+    this.strings = strings;
+    this.date1904 = date1904;
+    this.resource = resource;
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
+  }
+
+  static XMLInputFactory inputFactory() {
+    return XML_INPUT_FACTORY;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null && !closed) {
+      try {
+        next = readRow();
+      } catch (XMLStreamException e) {
+        closeQuietly();
+        throw new IllegalStateException("Unable to parse worksheet XML", e);
+      }
+      if (next == null) {
+        closeQuietly();
+      }
+    }
+    return next != null;
+  }
+
+  @Override
+  public SheetRow next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    SheetRow row = next;
+    next = null;
+    return row;
+  }
+
+  private SheetRow readRow() throws XMLStreamException {
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT && "row".equals(reader.getLocalName())) {
+        return parseRow();
+      }
+    }
+    return null;
+  }
+
+  private SheetRow parseRow() throws XMLStreamException {
+    String reference = reader.getAttributeValue(null, "r");
+    int rowNum = reference == null ? lastRowNum + 1 : Integer.parseInt(reference) - 1;
+    lastRowNum = rowNum;
+    List<SheetCell> cells = new ArrayList<>();
+    int maxColumn = -1;
+    int column = -1;
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT && "c".equals(reader.getLocalName())) {
+        String cellReference = reader.getAttributeValue(null, "r");
+        column = cellReference == null ? column + 1 : columnIndex(cellReference);
+        cells.add(parseCell(rowNum, column));
+        maxColumn = Math.max(maxColumn, column);
+      } else if (event == XMLStreamConstants.END_ELEMENT && "row".equals(reader.getLocalName())) {
+        break;
+      }
+    }
+    SheetCell[] byColumn = new SheetCell[maxColumn + 1];
+    for (SheetCell cell : cells) {
+      byColumn[cell.getColumnIndex()] = cell;
+    }
+    return new StreamingRow(rowNum, byColumn);
+  }
+
+  private SheetCell parseCell(int rowNum, int column) throws XMLStreamException {
+    String type = reader.getAttributeValue(null, "t");
+    String value = null;
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        String name = reader.getLocalName();
+        if ("v".equals(name)) {
+          value = reader.getElementText();
+        } else if ("is".equals(name)) {
+          value = readInlineString();
+        } else {
+          skipElement();
+        }
+      } else if (event == XMLStreamConstants.END_ELEMENT && "c".equals(reader.getLocalName())) {
+        break;
+      }
+    }
+    return toCell(rowNum, column, type, value);
+  }
+
+  private SheetCell toCell(int rowNum, int column, String type, String value) {
+    if (value == null) {
+      return new StreamingCell(rowNum, column, CellKind.BLANK, null, date1904);
+    }
+    if (type == null || "n".equals(type)) {
+      return new StreamingCell(rowNum, column, CellKind.NUMERIC, value, date1904);
+    }
+    switch (type) {
+      case "s":
+        int id = sharedStrings[Integer.parseInt(value.trim())];
+        return new StreamingCell(rowNum, column, strings, id, date1904);
+      case "inlineStr":
+      case "str":
+        return new StreamingCell(rowNum, column, CellKind.STRING, value, date1904);
+      case "b":
+        return new StreamingCell(rowNum, column, CellKind.BOOLEAN, value, date1904);
+      default:
+        return new StreamingCell(rowNum, column, CellKind.ERROR, value, date1904);
+    }
+  }
+
+  /** Concatenates the text runs of an {@code <is>} element, ignoring phonetic runs. */
+  private String readInlineString() throws XMLStreamException {
+    StringBuilder text = new StringBuilder();
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        String name = reader.getLocalName();
+        if ("t".equals(name)) {
+          text.append(reader.getElementText());
+        } else if ("rPh".equals(name)) {
+          skipElement();
+        }
+      } else if (event == XMLStreamConstants.END_ELEMENT && "is".equals(reader.getLocalName())) {
+        break;
+      }
+    }
+    return text.toString();
+  }
+
+  private void skipElement() throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0 && reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  /** Converts the column letters of a reference such as {@code "AB12"} to a 0-based index. */
+  static int columnIndex(String cellReference) {
+    int column = 0;
+    for (int i = 0; i < cellReference.length(); i++) {
+      char c = cellReference.charAt(i);
+      if (c < 'A' || c > 'Z') {
+        break;
+      }
+      column = column * 26 + (c - 'A' + 1);
+    }
+    return column - 1;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      reader.close();
+    } catch (XMLStreamException e) {
+      throw new IOException(e);
+    } finally {
+      resource.close();
+    }
+  }
+
+  private void closeQuietly() {
+    try {
+      close();
+    } catch (IOException e) {
+      // the rows have already been read, a failure to release the file is not fatal
+    }
+  }
+}
@@ -0,0 +1,314 @@
+package com.dosilink.datasource;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import org.apache.poi.openxml4j.util.ZipSecureFile;
+
+/**
+ * A zip file read through a memory mapping. Opening the archive only reads its central directory;
+ * an entry is inflated when it is opened, straight from the mapped bytes, so the parts of an
+ * {@code .xlsx} package nobody asks for are never read.
+ *
+ * <p>An entry is held to the limits POI sets for the packages it opens itself ({@link
+ * ZipSecureFile}): it may not inflate to more bytes than the central directory declares, nor than
+ * the largest entry allowed, and past the first bytes its compressed bytes may not fall under the
+ * minimum share of the inflated ones, so that a zip bomb fails instead of filling the memory.
+ */
+final class ZipArchive implements Closeable {
+
+  private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+  private static final int CENTRAL_DIRECTORY_ENTRY = 0x02014b50;
+  private static final int LOCAL_FILE_HEADER = 0x04034b50;
+  private static final int STORED = 0;
+  private static final int DEFLATED = 8;
+  /** The inflated bytes of an entry read before its inflate ratio is checked, as in POI. */
+  private static final long GRACE_ENTRY_SIZE = 100 * 1024;
+
+  private final File file;
+  private final Map<String, Entry> entries;
+  private ByteBuffer buffer;
+
+  private static final class Entry {
+    final int method;
+    final long compressedSize;
+    final long uncompressedSize;
+    final long localHeaderOffset;
+
+    Entry(int method, long compressedSize, long uncompressedSize, long localHeaderOffset) {
+      this.method = method;
+      this.compressedSize = compressedSize;
+      this.uncompressedSize = uncompressedSize;
+      this.localHeaderOffset = localHeaderOffset;
+    }
+  }
+
+  private ZipArchive(File file, ByteBuffer buffer, Map<String, Entry> entries) {
+    this.file = file;
+    this.buffer = buffer;
+    this.entries = entries;
+  }
+
+  static ZipArchive open(File file) throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException(file + " is too large");
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    return new ZipArchive(file, buffer, readCentralDirectory(file, buffer));
+  }
+
+  boolean contains(String name) {
+    return entries.containsKey(name);
+  }
+
+  /** The names of the entries, in no particular order. */
+  Set<String> names() {
+    return Collections.unmodifiableSet(entries.keySet());
+  }
+
+  /** The size of an entry once inflated, as the central directory declares it. */
+  long sizeOf(String name) {
+    Entry entry = entries.get(name);
+    return entry == null ? -1 : entry.uncompressedSize;
+  }
+
+  /** Opens an entry for reading, or returns null if the archive has no such entry. */
+  InputStream open(String name) throws IOException {
+    Entry entry = entries.get(name);
+    if (entry == null) {
+      return null;
+    }
+    ByteBuffer mapped = buffer;
+    if (mapped == null) {
+      throw new IOException(file + " is closed");
+    }
+    long maxEntrySize = ZipSecureFile.getMaxEntrySize();
+    if (entry.uncompressedSize > maxEntrySize) {
+      throw new IOException(
+          "Entry " + name + " in " + file + " declares " + entry.uncompressedSize
+              + " bytes, more than the " + maxEntrySize + " allowed");
+    }
+    ByteBuffer data = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    int header = (int) entry.localHeaderOffset;
+    if (data.getInt(header) != LOCAL_FILE_HEADER) {
+      throw new IOException("Corrupted entry " + name + " in " + file);
+    }
+    int nameLength = data.getShort(header + 26) & 0xFFFF;
+    int extraLength = data.getShort(header + 28) & 0xFFFF;
+    int start = header + 30 + nameLength + extraLength;
+    data.limit(start + (int) entry.compressedSize);
+    data.position(start);
+    BufferInputStream raw = new BufferInputStream(data.slice());
+    switch (entry.method) {
+      case STORED:
+        if (entry.compressedSize != entry.uncompressedSize) {
+          throw new IOException("Corrupted entry " + name + " in " + file);
+        }
+        return raw;
+      case DEFLATED:
+        return new EntryLimitStream(name, entry, raw, new EntryInflaterStream(raw));
+      default:
+        throw new IOException("Unsupported compression of " + name + " in " + file);
+    }
+  }
+
+  private static Map<String, Entry> readCentralDirectory(File file, ByteBuffer buffer)
+      throws IOException {
+    int end = -1;
+    for (int i = buffer.limit() - 22; i >= Math.max(0, buffer.limit() - 22 - 0xFFFF); i--) {
+      if (buffer.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+        end = i;
+        break;
+      }
+    }
+    if (end < 0) {
+      throw new IOException(file + " is not a zip file");
+    }
+    int count = buffer.getShort(end + 10) & 0xFFFF;
+    long offset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+    if (count == 0xFFFF || offset == 0xFFFFFFFFL) {
+      throw new IOException("Zip64 archives are not supported: " + file);
+    }
+    Map<String, Entry> entries = new HashMap<>();
+    int position = (int) offset;
+    for (int i = 0; i < count; i++) {
+      if (buffer.getInt(position) != CENTRAL_DIRECTORY_ENTRY) {
+        throw new IOException("Corrupted central directory in " + file);
+      }
+      int method = buffer.getShort(position + 10) & 0xFFFF;
+      long compressedSize = buffer.getInt(position + 20) & 0xFFFFFFFFL;
+      long uncompressedSize = buffer.getInt(position + 24) & 0xFFFFFFFFL;
+      int nameLength = buffer.getShort(position + 28) & 0xFFFF;
+      int extraLength = buffer.getShort(position + 30) & 0xFFFF;
+      int commentLength = buffer.getShort(position + 32) & 0xFFFF;
+      long localHeaderOffset = buffer.getInt(position + 42) & 0xFFFFFFFFL;
+      byte[] name = new byte[nameLength];
+      ByteBuffer nameBytes = buffer.duplicate();
+      nameBytes.position(position + 46);
+      nameBytes.get(name);
+      entries.put(
+          new String(name, StandardCharsets.UTF_8),
+          new Entry(method, compressedSize, uncompressedSize, localHeaderOffset));
+      position += 46 + nameLength + extraLength + commentLength;
+    }
+    return entries;
+  }
+
+  @Override
+  public void close() {
+    // the mapping is released by the garbage collector once no entry stream refers to it
+    buffer = null;
+  }
+
+  /**
+   * Inflates a raw deflate stream. As for {@link java.util.zip.ZipFile}, a dummy byte is fed to the
+   * inflater once the entry bytes are exhausted, which raw inflating may need to finish.
+   */
+  private static final class EntryInflaterStream extends InflaterInputStream {
+    private boolean eof;
+
+    EntryInflaterStream(InputStream in) {
+      super(in, new Inflater(true), 8192);
+    }
+
+    @Override
+    protected void fill() throws IOException {
+      if (eof) {
+        throw new EOFException("Unexpected end of zip entry");
+      }
+      len = in.read(buf, 0, buf.length);
+      if (len == -1) {
+        buf[0] = 0;
+        len = 1;
+        eof = true;
+      }
+      inf.setInput(buf, 0, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      super.close();
+      inf.end();
+    }
+  }
+
+  /**
+   * Counts the bytes inflated from an entry and fails once they exceed its declared size or the
+   * largest entry allowed, or once the entry inflates beyond the minimum ratio.
+   */
+  private final class EntryLimitStream extends FilterInputStream {
+    private final String name;
+    private final long limit;
+    private final BufferInputStream compressed;
+    private final double minInflateRatio = ZipSecureFile.getMinInflateRatio();
+    private long inflated;
+
+    EntryLimitStream(String name, Entry entry, BufferInputStream compressed, InputStream in) {
+      super(in);
+      this.name = name;
+      this.limit = Math.min(entry.uncompressedSize, ZipSecureFile.getMaxEntrySize());
+      this.compressed = compressed;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = in.read();
+      if (b != -1) {
+        count(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      int count = in.read(bytes, offset, length);
+      if (count > 0) {
+        count(count);
+      }
+      return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = in.skip(n);
+      if (skipped > 0) {
+        count(skipped);
+      }
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    private void count(long bytes) throws IOException {
+      inflated += bytes;
+      if (inflated > limit) {
+        throw new IOException(
+            "Entry " + name + " in " + file + " inflates to more than " + limit + " bytes");
+      }
+      if (inflated > GRACE_ENTRY_SIZE
+          && (double) compressed.position() / inflated < minInflateRatio) {
+        throw new IOException(
+            "Entry " + name + " in " + file + " inflates beyond the minimum ratio of "
+                + minInflateRatio + ", it may be a zip bomb");
+      }
+    }
+  }
+
+  /** Reads the bytes of a buffer, without copying them anywhere else first. */
+  private static final class BufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    BufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(length, buffer.remaining());
+      buffer.get(bytes, offset, count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+
+    /** The number of bytes read. */
+    int position() {
+      return buffer.position();
+    }
+  }
+}
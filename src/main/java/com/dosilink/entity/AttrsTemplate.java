@@ -0,0 +1,95 @@
+package com.dosilink.entity;
+
+import com.axelor.meta.db.MetaJsonRecord;
+
+/**
+ * The attrs of a json model compiled once, with the constant members, such as the status labels
+ * and the flags of a generator, already encoded, and a slot for each member that varies from one
+ * record to the next. Writing the attrs of a record copies the constant parts around the values of
+ * the slots into the buffer of the thread (see {@link AttrsWriter}).
+ *
+ * <p>The slots are filled in the order they were written in the template, each with one value.
+ */
+final class AttrsTemplate {
+
+  private final char[] chars;
+  private final int[] slots;
+
+  AttrsTemplate(char[] chars, int[] slots) {
+    this.chars = chars;
+    this.slots = slots;
+  }
+
+  /** Starts the attrs of a record. */
+  Filler fill() {
+    return new Filler(AttrsWriter.buffer());
+  }
+
+  /** The attrs of a record being written. */
+  final class Filler {
+    private final StringBuilder out;
+    private int next;
+    private int from;
+
+    private Filler(StringBuilder out) {
+      this.out = out;
+    }
+
+    /** Fills the next slot with a text, or null when there is no value. */
+    Filler string(Object value) {
+      copy();
+      if (value == null) {
+        out.append("null");
+      } else {
+        AttrsWriter.escape(out, value.toString());
+      }
+      return this;
+    }
+
+    /** Fills the next slot with a number, or null when there is no value. */
+    Filler number(Number value) {
+      copy();
+      out.append(value == null ? "null" : value.toString());
+      return this;
+    }
+
+    Filler bool(boolean value) {
+      copy();
+      out.append(value);
+      return this;
+    }
+
+    /** Fills the next slot with an array of references holding the id of each record. */
+    Filler ids(MetaJsonRecord[] records) {
+      copy();
+      out.append('[');
+      for (int i = 0; i < records.length; i++) {
+        if (i > 0) {
+          out.append(',');
+        }
+        out.append("{\"id\":").append(records[i].getId()).append('}');
+      }
+      out.append(']');
+      return this;
+    }
+
+    /** Returns the attrs, once every slot is filled. */
+    String end() {
+      if (next != slots.length) {
+        throw new IllegalStateException(
+            "The attrs have " + next + " of the " + slots.length + " values of the template");
+      }
+      out.append(chars, from, chars.length - from);
+      return out.toString();
+    }
+
+    private void copy() {
+      if (next == slots.length) {
+        throw new IllegalStateException("The template has " + slots.length + " values only");
+      }
+      int to = slots[next++];
+      out.append(chars, from, to - from);
+      from = to;
+    }
+  }
+}
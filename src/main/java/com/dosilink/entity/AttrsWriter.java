@@ -0,0 +1,277 @@
+package com.dosilink.entity;
+
+import com.axelor.meta.db.MetaJsonRecord;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the json attrs of the records built by the entities. The attrs are written straight into a
+ * buffer of the thread, reused from one record to the next, so that a record costs one string, its
+ * attrs, instead of one per concatenated value. The keys are constants encoded once, and the texts
+ * are escaped, so that a name such as {@code O'Neil "Jr"} gives valid json.
+ *
+ * <p>The id of a referenced record is written as a number, as Axelor writes the references of json
+ * fields, by {@link #number(Key, Number)} or {@link #reference}; the readers of the attrs also
+ * accept the quoted ids of the records imported before.
+ *
+ * <p>Members are separated as they are written: an entity writes its members in order, opening and
+ * closing the nested objects and arrays, and {@link #end()} returns the attrs.
+ *
+ * <p>A writer from {@link #template()} compiles the attrs of an entity whose members are mostly
+ * constant into an {@link AttrsTemplate}, with a slot for each member written with {@link #slot}.
+ */
+final class AttrsWriter {
+
+  /** The writer buffer is dropped instead of being kept when it grew beyond this many chars. */
+  private static final int MAX_RETAINED = 64 * 1024;
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private static final ThreadLocal<AttrsWriter> WRITERS =
+      ThreadLocal.withInitial(AttrsWriter::new);
+
+  /** A member name, encoded with its quotes and colon. */
+  static final class Key {
+    private final char[] chars;
+
+    private Key(String name) {
+      StringBuilder encoded = new StringBuilder(name.length() + 3);
+      escape(encoded, name);
+      this.chars = encoded.append(':').toString().toCharArray();
+    }
+  }
+
+  /** The keys most entities write. */
+  static final Key ID = key("id");
+  static final Key NAME = key("name");
+  static final Key DELETED = key("deleted");
+  static final Key VERSION = key("$version");
+  static final Key ATTACHMENTS = key("$attachments");
+
+  private StringBuilder buffer = new StringBuilder(1024);
+  private boolean separate;
+  /** The offsets of the slots, when the writer compiles a template. */
+  private List<Integer> slots;
+
+  private AttrsWriter() {}
+
+  static Key key(String name) {
+    return new Key(name);
+  }
+
+  /** Returns the writer of the thread, with the attrs object opened. */
+  static AttrsWriter begin() {
+    AttrsWriter writer = WRITERS.get();
+    writer.buffer = buffer();
+    writer.buffer.append('{');
+    writer.separate = false;
+    return writer;
+  }
+
+  /** Returns a writer compiling a template, with the attrs object opened. */
+  static AttrsWriter template() {
+    AttrsWriter writer = new AttrsWriter();
+    writer.buffer.append('{');
+    writer.slots = new ArrayList<>();
+    return writer;
+  }
+
+  /** Returns the buffer of the thread, emptied. */
+  static StringBuilder buffer() {
+    AttrsWriter writer = WRITERS.get();
+    if (writer.buffer.capacity() > MAX_RETAINED) {
+      writer.buffer = new StringBuilder(1024);
+    }
+    writer.buffer.setLength(0);
+    return writer.buffer;
+  }
+
+  /** Closes the attrs object and returns the attrs. */
+  String end() {
+    buffer.append('}');
+    return buffer.toString();
+  }
+
+  /** Closes the attrs object of a template writer and returns the template. */
+  AttrsTemplate compile() {
+    if (slots == null) {
+      throw new IllegalStateException("The writer does not compile a template");
+    }
+    buffer.append('}');
+    int[] offsets = new int[slots.size()];
+    for (int i = 0; i < offsets.length; i++) {
+      offsets[i] = slots.get(i);
+    }
+    return new AttrsTemplate(buffer.toString().toCharArray(), offsets);
+  }
+
+  /** Writes the name of a member whose value is filled in each time the template is used. */
+  AttrsWriter slot(Key key) {
+    if (slots == null) {
+      throw new IllegalStateException("The writer does not compile a template");
+    }
+    name(key);
+    slots.add(buffer.length());
+    separate = true;
+    return this;
+  }
+
+  /** Writes a text member, or null when there is no value; other values are written as texts. */
+  AttrsWriter string(Key key, Object value) {
+    name(key);
+    return string(value);
+  }
+
+  /** Writes a text element of an array. */
+  AttrsWriter string(Object value) {
+    separate();
+    if (value == null) {
+      buffer.append("null");
+    } else {
+      escape(buffer, value.toString());
+    }
+    separate = true;
+    return this;
+  }
+
+  /** Writes a number member, or null when there is no value. */
+  AttrsWriter number(Key key, Number value) {
+    name(key);
+    buffer.append(value == null ? "null" : value.toString());
+    separate = true;
+    return this;
+  }
+
+  AttrsWriter number(Key key, long value) {
+    name(key);
+    buffer.append(value);
+    separate = true;
+    return this;
+  }
+
+  AttrsWriter bool(Key key, boolean value) {
+    name(key);
+    buffer.append(value);
+    separate = true;
+    return this;
+  }
+
+  AttrsWriter nullValue(Key key) {
+    name(key);
+    buffer.append("null");
+    separate = true;
+    return this;
+  }
+
+  /** Opens an object member. */
+  AttrsWriter object(Key key) {
+    name(key);
+    buffer.append('{');
+    separate = false;
+    return this;
+  }
+
+  /** Opens an object element of an array. */
+  AttrsWriter object() {
+    separate();
+    buffer.append('{');
+    separate = false;
+    return this;
+  }
+
+  AttrsWriter endObject() {
+    buffer.append('}');
+    separate = true;
+    return this;
+  }
+
+  /**
+   * Opens an object member referring to a record, with its id and name, for the entity to add the
+   * other members of the reference, such as its version, and close it.
+   */
+  AttrsWriter reference(Key key, MetaJsonRecord record) {
+    return reference(key, record.getId(), record.getName());
+  }
+
+  AttrsWriter reference(Key key, Long id, String name) {
+    return object(key).number(ID, id).string(NAME, name);
+  }
+
+  /** Writes an array member of references holding the id of each record. */
+  AttrsWriter ids(Key key, MetaJsonRecord[] records) {
+    array(key);
+    for (MetaJsonRecord record : records) {
+      object().number(ID, record.getId()).endObject();
+    }
+    return endArray();
+  }
+
+  /** Opens an array member. */
+  AttrsWriter array(Key key) {
+    name(key);
+    buffer.append('[');
+    separate = false;
+    return this;
+  }
+
+  AttrsWriter endArray() {
+    buffer.append(']');
+    separate = true;
+    return this;
+  }
+
+  private void name(Key key) {
+    separate();
+    buffer.append(key.chars);
+    separate = false;
+  }
+
+  private void separate() {
+    if (separate) {
+      buffer.append(',');
+    }
+  }
+
+  static void escape(StringBuilder out, String text) {
+    out.append('"');
+    int start = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') {
+        continue;
+      }
+      out.append(text, start, i);
+      start = i + 1;
+      switch (c) {
+        case '"':
+          out.append("\\\"");
+          break;
+        case '\\':
+          out.append("\\\\");
+          break;
+        case '\n':
+          out.append("\\n");
+          break;
+        case '\r':
+          out.append("\\r");
+          break;
+        case '\t':
+          out.append("\\t");
+          break;
+        case '\b':
+          out.append("\\b");
+          break;
+        case '\f':
+          out.append("\\f");
+          break;
+        default:
+          out.append("\\u")
+              .append(HEX[c >> 12 & 0xF])
+              .append(HEX[c >> 8 & 0xF])
+              .append(HEX[c >> 4 & 0xF])
+              .append(HEX[c & 0xF]);
+      }
+    }
+    out.append(text, start, text.length()).append('"');
+  }
+}
@@ -3,15 +3,10 @@ package com.dosilink.entity;
 import com.axelor.db.Model;
 import com.axelor.meta.db.MetaJsonRecord;
 import java.util.Objects;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.StructureColumns;
 
 public class BrandOrSupplier extends Model {
-  private static final int BRAND_SUPPLIER_NAME = 9;
-  private static final int BRAND_SUPPLIER_DOMAIN = 16;
-  private static final int BRAND_SUPPLIER_CONTACT_NAME = 17;
-  private static final int BRAND_SUPPLIER_TYPE = 18;
-  private static final int BRAND_SUPPLIER_PHONE_NUMBER = 19;
-  private static final int BRAND_SUPPLIER_EMAIL = 20;
   private String name;
   private String domain;
   private String contactName;
@@ -20,15 +15,15 @@ public class BrandOrSupplier extends Model {
   private String email;
   private final boolean deleted = false;
 
-  public BrandOrSupplier(Row row) {
-    if (validRowString(row, BRAND_SUPPLIER_NAME)) {
-      this.name = row.getCell(BRAND_SUPPLIER_NAME).getStringCellValue();
+  public BrandOrSupplier(SheetRow row) {
+    if (row.hasValue(StructureColumns.BRAND_SUPPLIER)) {
+      this.name = row.getString(StructureColumns.BRAND_SUPPLIER);
     }
-    // this.domain = row.getCell(BRAND_SUPPLIER_DOMAIN).getStringCellValue();
-    // this.contactName = row.getCell(BRAND_SUPPLIER_CONTACT_NAME).getStringCellValue();
-    // this.type = row.getCell(BRAND_SUPPLIER_TYPE).getStringCellValue();
-    //  this.phoneNumber = row.getCell(BRAND_SUPPLIER_PHONE_NUMBER).getStringCellValue();
-    //  this.email = row.getCell(BRAND_SUPPLIER_EMAIL).getStringCellValue();
+    // this.domain = row.getString(StructureColumns.BRAND_DOMAIN);
+    // this.contactName = row.getString(StructureColumns.BRAND_CONTACT_NAME);
+    // this.type = row.getString(StructureColumns.BRAND_TYPE);
+    //  this.phoneNumber = row.getString(StructureColumns.BRAND_PHONE_NUMBER);
+    //  this.email = row.getString(StructureColumns.BRAND_EMAIL);
 
   }
 
@@ -105,9 +100,6 @@ public class BrandOrSupplier extends Model {
     return Objects.equals(name, other.name);
   }
 
-  private boolean validRowString(Row row, int NUM_COLUMN) {
-    return !(row.getCell(NUM_COLUMN) == null || row.getCell(NUM_COLUMN).getStringCellValue().isEmpty());
-  }
 
   @Override
   public int hashCode() {
@@ -124,7 +116,18 @@ public class BrandOrSupplier extends Model {
     return metaJsonRecord;
   }
 
+  /** The keys of the attrs. */
+  private static final class Keys {
+    static final AttrsWriter.Key TYPE = AttrsWriter.key("type");
+    static final AttrsWriter.Key DOMAIN = AttrsWriter.key("domain");
+  }
+
   private String getAttrs() {
-    return "{\"name\": \"" + name + "\",\"type\": \"Brand\", \"domain\": \"MRI\",\"deleted\": \"false\"}";
+    return AttrsWriter.begin()
+        .string(AttrsWriter.NAME, name)
+        .string(Keys.TYPE, "Brand")
+        .string(Keys.DOMAIN, "MRI")
+        .string(AttrsWriter.DELETED, "false")
+        .end();
   }
 }
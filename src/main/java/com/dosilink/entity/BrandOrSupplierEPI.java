@@ -2,17 +2,12 @@ package com.dosilink.entity;
 
 import com.axelor.db.Model;
 import com.axelor.meta.db.MetaJsonRecord;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.StructureColumns;
 
 import java.util.Objects;
 
 public class BrandOrSupplierEPI extends Model {
-    private static final int BRAND_SUPPLIER_NAME = 11;
-    private static final int BRAND_SUPPLIER_DOMAIN = 16;
-    private static final int BRAND_SUPPLIER_CONTACT_NAME = 17;
-    private static final int BRAND_SUPPLIER_TYPE = 18;
-    private static final int BRAND_SUPPLIER_PHONE_NUMBER = 19;
-    private static final int BRAND_SUPPLIER_EMAIL = 20;
     private String name;
     private String domain;
     private String contactName;
@@ -21,15 +16,15 @@ public class BrandOrSupplierEPI extends Model {
     private String email;
     private final boolean deleted = false;
 
-    public BrandOrSupplierEPI(Row row) {
-        if (validRowString(row, BRAND_SUPPLIER_NAME)) {
-            this.name = row.getCell(BRAND_SUPPLIER_NAME).getStringCellValue();
+    public BrandOrSupplierEPI(SheetRow row) {
+        if (row.hasValue(StructureColumns.BRAND_SUPPLIER_EPI)) {
+            this.name = row.getString(StructureColumns.BRAND_SUPPLIER_EPI);
         }
-        // this.domain = row.getCell(BRAND_SUPPLIER_DOMAIN).getStringCellValue();
-        // this.contactName = row.getCell(BRAND_SUPPLIER_CONTACT_NAME).getStringCellValue();
-        // this.type = row.getCell(BRAND_SUPPLIER_TYPE).getStringCellValue();
-        //  this.phoneNumber = row.getCell(BRAND_SUPPLIER_PHONE_NUMBER).getStringCellValue();
-        //  this.email = row.getCell(BRAND_SUPPLIER_EMAIL).getStringCellValue();
+        // this.domain = row.getString(StructureColumns.BRAND_DOMAIN);
+        // this.contactName = row.getString(StructureColumns.BRAND_CONTACT_NAME);
+        // this.type = row.getString(StructureColumns.BRAND_TYPE);
+        //  this.phoneNumber = row.getString(StructureColumns.BRAND_PHONE_NUMBER);
+        //  this.email = row.getString(StructureColumns.BRAND_EMAIL);
 
     }
 
@@ -91,9 +86,6 @@ public class BrandOrSupplierEPI extends Model {
         return null;
     }
 
-    private boolean validRowString(Row row, int NUM_COLUMN) {
-        return !(row.getCell(NUM_COLUMN) == null || row.getCell(NUM_COLUMN).getStringCellValue().isEmpty());
-    }
 
     @Override
     public int hashCode() {
@@ -110,7 +102,28 @@ public class BrandOrSupplierEPI extends Model {
         return metaJsonRecord;
     }
 
+    /** The keys of the attrs. */
+    private static final class Keys {
+        static final AttrsWriter.Key TYPE = AttrsWriter.key("type");
+        static final AttrsWriter.Key DOMAIN = AttrsWriter.key("domain");
+    }
+
     private String getAttrs() {
-        return "{\"name\": \"" + name + "\",\"type\": \"Brand\", \"domain\": \"Protection equipment\",\"deleted\": \"false\"}";
+        return AttrsWriter.begin()
+                .string(AttrsWriter.NAME, name)
+                .string(Keys.TYPE, "Brand")
+                .string(Keys.DOMAIN, "Protection equipment")
+                .string(AttrsWriter.DELETED, "false")
+                .end();
+    }
+
+    /** The attrs of a brand of the structure that also supplies protection equipment. */
+    public static String sharedBrandAttrs(String name) {
+        return AttrsWriter.begin()
+                .string(AttrsWriter.NAME, name)
+                .string(Keys.TYPE, "Brand")
+                .string(Keys.DOMAIN, "MRI, Protection equipment")
+                .string(AttrsWriter.DELETED, "false")
+                .end();
     }
 }
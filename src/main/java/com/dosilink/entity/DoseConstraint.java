@@ -14,7 +14,13 @@ public class DoseConstraint {
     metaJsonRecord.setAttrs(getAttrs());
     return metaJsonRecord;
   }
+
+  /** The keys of the attrs. */
+  private static final class Keys {
+    static final AttrsWriter.Key DOSE = AttrsWriter.key("dose");
+  }
+
   private String getAttrs() {
-    return "{\"dose\": \"" + dose + "\"}";
+    return AttrsWriter.begin().string(Keys.DOSE, dose).end();
   }
 }
@@ -0,0 +1,50 @@
+package com.dosilink.entity;
+
+import com.axelor.meta.db.MetaJsonRecord;
+
+/** The attrs of the employee of a radiation worker, referring to its service and function. */
+public final class EmployeeAttrs {
+
+  /** The keys of the attrs. */
+  private static final class Keys {
+    static final AttrsWriter.Key EMPLOYEE_SERVICE = AttrsWriter.key("employeeService");
+    static final AttrsWriter.Key RADIATION_WORKER = AttrsWriter.key("radiationWorker");
+    static final AttrsWriter.Key EMPLOYEE_FUNCTION = AttrsWriter.key("employeeFunction");
+    static final AttrsWriter.Key SERVICE_AFFECTATION = AttrsWriter.key("serviceAffectation");
+  }
+
+  private EmployeeAttrs() {}
+
+  /**
+   * Returns the attrs of an employee, with a reference to its radiation worker once the worker is
+   * saved, the worker being null before.
+   */
+  public static String of(
+      MetaJsonRecord service, MetaJsonRecord functionGrade, MetaJsonRecord radiationWorker) {
+    AttrsWriter writer =
+        AttrsWriter.begin()
+            .bool(AttrsWriter.DELETED, false)
+            .object(Keys.EMPLOYEE_SERVICE)
+            .number(AttrsWriter.ID, service.getId())
+            .string(AttrsWriter.NAME, service.getName())
+            .number(AttrsWriter.VERSION, 0)
+            .endObject();
+    if (radiationWorker != null) {
+      writer
+          .object(Keys.RADIATION_WORKER)
+          .number(AttrsWriter.ID, radiationWorker.getId())
+          .endObject();
+    }
+    return writer
+        .object(Keys.EMPLOYEE_FUNCTION)
+        .number(AttrsWriter.ID, functionGrade.getId())
+        .string(AttrsWriter.NAME, functionGrade.getName())
+        .number(AttrsWriter.VERSION, 0)
+        .endObject()
+        .object(Keys.SERVICE_AFFECTATION)
+        .number(AttrsWriter.ID, service.getId())
+        .string(AttrsWriter.NAME, service.getName())
+        .endObject()
+        .end();
+  }
+}
@@ -2,13 +2,12 @@ package com.dosilink.entity;
 
 import com.axelor.db.Model;
 import com.axelor.meta.db.MetaJsonRecord;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.GeneratorColumns;
 
 import java.time.LocalDate;
-import java.time.ZoneId;
 
 public class EquipmentTechnicalControl extends Model {
-    private static final int COMMOSSION_ING_DATE = 10;
     private MetaJsonRecord service;
     private MetaJsonRecord location;
     private MetaJsonRecord modality;
@@ -16,9 +15,9 @@ public class EquipmentTechnicalControl extends Model {
     private MetaJsonRecord xRayGenerator;
     private LocalDate commissioningDate;
 
-    public EquipmentTechnicalControl(Row row,MetaJsonRecord service, MetaJsonRecord location, MetaJsonRecord modality, MetaJsonRecord installationType, MetaJsonRecord xRayGenerator) {
-        if(validRow(row,COMMOSSION_ING_DATE)){
-            this.commissioningDate = row.getCell(COMMOSSION_ING_DATE).getDateCellValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    public EquipmentTechnicalControl(SheetRow row,MetaJsonRecord service, MetaJsonRecord location, MetaJsonRecord modality, MetaJsonRecord installationType, MetaJsonRecord xRayGenerator) {
+        if(row.hasCell(GeneratorColumns.COMMISSIONING_DATE)){
+            this.commissioningDate = row.getLocalDate(GeneratorColumns.COMMISSIONING_DATE);
         }
         this.service = service;
         this.location = location;
@@ -36,9 +35,6 @@ public class EquipmentTechnicalControl extends Model {
     public void setId(Long id) {
 
     }
-    private boolean validRow(Row row, int NUM_COLUMN) {
-        return row.getCell(NUM_COLUMN) != null;
-    }
 
     public MetaJsonRecord toMetaJsonRecord() {
         MetaJsonRecord metaJsonRecord = new MetaJsonRecord();
@@ -47,25 +43,66 @@ public class EquipmentTechnicalControl extends Model {
         return metaJsonRecord;
     }
 
+    private static final String TO_RECORD = "À enregistrer";
+    private static final String TO_RECORD_HTML =
+        "<span class=\"label label-default\" style=\"background-color: #858585; margin: 2px 0 "
+        + "!important; display: inline-table; line-height: initial; width: 82px !important;\">À "
+        + "enregistrer</span>";
+
+    /** The keys of the attrs. */
+    private static final class Keys {
+        static final AttrsWriter.Key SERVICE = AttrsWriter.key("service");
+        static final AttrsWriter.Key LOCATION = AttrsWriter.key("location");
+        static final AttrsWriter.Key MODALITY = AttrsWriter.key("modality");
+        static final AttrsWriter.Key GENERAL_STATUS = AttrsWriter.key("generalStatus");
+        static final AttrsWriter.Key INSTALLATION_TYPE = AttrsWriter.key("installationType");
+        static final AttrsWriter.Key MEDICAL_EQUIPMENT = AttrsWriter.key("medicalEquipment");
+        static final AttrsWriter.Key GENERAL_STATUS_HTML = AttrsWriter.key("generalStatusHtml");
+        static final AttrsWriter.Key MEDICAL_EQUIPMENT_ID = AttrsWriter.key("medicalEquipmentId");
+        static final AttrsWriter.Key INITIAL_VERIFICATION_UNIT =
+                AttrsWriter.key("initialVerificationUnit");
+        static final AttrsWriter.Key COMMISSIONING_DATE = AttrsWriter.key("commissioningDate");
+        static final AttrsWriter.Key PERIODIC_VERIFICATION_UNIT =
+                AttrsWriter.key("periodicVerificationUnit");
+        static final AttrsWriter.Key INITIAL_VERIFICATION_STATUS =
+                AttrsWriter.key("initialVerificationStatus");
+        static final AttrsWriter.Key INITIAL_VERIFICATION_RENEWAL =
+                AttrsWriter.key("initialVerificationRenewal");
+        static final AttrsWriter.Key PERIODIC_VERIFICATION_STATUS =
+                AttrsWriter.key("periodicVerificationStatus");
+        static final AttrsWriter.Key INITIAL_VERIFICATION_STATUS_HTML =
+                AttrsWriter.key("initialVerificationStatusHtml");
+        static final AttrsWriter.Key INITIAL_VERIFICATION_PERIODICITY =
+                AttrsWriter.key("initialVerificationPeriodicity");
+        static final AttrsWriter.Key PERIODIC_VERIFICATION_STATUS_HTML =
+                AttrsWriter.key("periodicVerificationStatusHtml");
+        static final AttrsWriter.Key PERIODIC_VERIFICATION_PERIODICITY =
+                AttrsWriter.key("periodicVerificationPeriodicity");
+    }
+
     private String getAttrs() {
-        return "{\"deleted\": false," +
-                " \"service\": {\"id\":"+service.getId()+", \"name\": \""+service.getName()+"\", \"$version\": 9}," +
-                " \"location\": {\"id\":"+location.getId()+", \"name\": \""+location.getName()+"\", \"$version\": 1}," +
-                " \"modality\": {\"id\":"+modality.getId()+", \"name\": \""+modality.getName()+"\", \"$version\": 2}," +
-                " \"generalStatus\": \"À enregistrer\"," +
-                " \"installationType\": {\"id\":"+installationType.getId()+", \"name\": \""+installationType.getName()+"\", \"$version\": 3}," +
-                " \"medicalEquipment\": {\"id\":"+xRayGenerator.getId()+", \"name\": \""+xRayGenerator.getName()+"\", \"$version\": 2}," +
-                " \"generalStatusHtml\": \"<span class=\\\"label label-default\\\" style=\\\"background-color: #858585; margin: 2px 0 !important; display: inline-table; line-height: initial; width: 82px !important;\\\">À enregistrer</span>\"," +
-                " \"medicalEquipmentId\":"+xRayGenerator.getId()+"," +
-                " \"initialVerificationUnit\": \"Année\"," +
-                " \"commissioningDate\": \""+commissioningDate+"\"," +
-                " \"periodicVerificationUnit\": \"Année\"," +
-                " \"initialVerificationStatus\": \"À enregistrer\"," +
-                " \"initialVerificationRenewal\":\""+""+"\"," +
-                " \"periodicVerificationStatus\": \"À enregistrer\"," +
-                " \"initialVerificationStatusHtml\": \"<span class=\\\"label label-default\\\" style=\\\"background-color: #858585; margin: 2px 0 !important; display: inline-table; line-height: initial; width: 82px !important;\\\">À enregistrer</span>\"," +
-                " \"initialVerificationPeriodicity\": \"3\"," +
-                " \"periodicVerificationStatusHtml\": \"<span class=\\\"label label-default\\\" style=\\\"background-color: #858585; margin: 2px 0 !important; display: inline-table; line-height: initial; width: 82px !important;\\\">À enregistrer</span>\", " +
-                "\"periodicVerificationPeriodicity\": \"1\"}";
+        return AttrsWriter.begin()
+                .bool(AttrsWriter.DELETED, false)
+                .reference(Keys.SERVICE, service).number(AttrsWriter.VERSION, 9).endObject()
+                .reference(Keys.LOCATION, location).number(AttrsWriter.VERSION, 1).endObject()
+                .reference(Keys.MODALITY, modality).number(AttrsWriter.VERSION, 2).endObject()
+                .string(Keys.GENERAL_STATUS, TO_RECORD)
+                .reference(Keys.INSTALLATION_TYPE, installationType)
+                .number(AttrsWriter.VERSION, 3)
+                .endObject()
+                .reference(Keys.MEDICAL_EQUIPMENT, xRayGenerator).number(AttrsWriter.VERSION, 2).endObject()
+                .string(Keys.GENERAL_STATUS_HTML, TO_RECORD_HTML)
+                .number(Keys.MEDICAL_EQUIPMENT_ID, xRayGenerator.getId())
+                .string(Keys.INITIAL_VERIFICATION_UNIT, "Année")
+                .string(Keys.COMMISSIONING_DATE, commissioningDate)
+                .string(Keys.PERIODIC_VERIFICATION_UNIT, "Année")
+                .string(Keys.INITIAL_VERIFICATION_STATUS, TO_RECORD)
+                .string(Keys.INITIAL_VERIFICATION_RENEWAL, "")
+                .string(Keys.PERIODIC_VERIFICATION_STATUS, TO_RECORD)
+                .string(Keys.INITIAL_VERIFICATION_STATUS_HTML, TO_RECORD_HTML)
+                .string(Keys.INITIAL_VERIFICATION_PERIODICITY, "3")
+                .string(Keys.PERIODIC_VERIFICATION_STATUS_HTML, TO_RECORD_HTML)
+                .string(Keys.PERIODIC_VERIFICATION_PERIODICITY, "1")
+                .end();
     }
 }
@@ -3,17 +3,17 @@ package com.dosilink.entity;
 import com.axelor.db.Model;
 import com.axelor.meta.db.MetaJsonRecord;
 import java.util.Objects;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.StructureColumns;
 
 public class FunctionGrade extends Model {
 
-  private static final int FUNCTIONGRADE_NAME = 5;
   private String name;
   private final boolean deleted = false;
 
-  public FunctionGrade(Row row) {
-    if (validRowString(row, FUNCTIONGRADE_NAME)) {
-      this.name = row.getCell(FUNCTIONGRADE_NAME).getStringCellValue();
+  public FunctionGrade(SheetRow row) {
+    if (row.hasValue(StructureColumns.FUNCTION_GRADE)) {
+      this.name = row.getString(StructureColumns.FUNCTION_GRADE);
     }
   }
 
@@ -64,11 +64,11 @@ public class FunctionGrade extends Model {
     metaJsonRecord.setAttrs(getAttrs());
     return metaJsonRecord;
   }
-  private boolean validRowString(Row row, int NUM_COLUMN) {
-    return !(row.getCell(NUM_COLUMN) == null || row.getCell(NUM_COLUMN).getStringCellValue().isEmpty());
-  }
 
   private String getAttrs() {
-    return "{\"name\": \"" + name + "\",\"deleted\": \"false\"}";
+    return AttrsWriter.begin()
+        .string(AttrsWriter.NAME, name)
+        .string(AttrsWriter.DELETED, "false")
+        .end();
   }
 }
@@ -0,0 +1,178 @@
+package com.dosilink.entity;
+
+import com.axelor.app.AppSettings;
+import com.axelor.meta.db.MetaJsonRecord;
+import com.dosilink.database.ReferenceResolver;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * The steps of the form of an X-ray generator, by modality, installation type and technology,
+ * read from a table of rules: {@code generator-steps.csv} next to this class, or the file named in
+ * the application settings. The file is read once, and again by {@link #refresh()} when the
+ * settings name another file or the file has changed.
+ *
+ * <p>A rule applies to a modality, an installation type and a technology, or to any of them with
+ * {@code *}; of the rules of a generator the most specific one, by modality first, then
+ * installation type, then technology, gives its steps. The steps of each combination met are kept,
+ * so that the generators after the first of a combination take a single lookup.
+ */
+public final class GeneratorSteps {
+
+  /** The file of the rules, replacing the ones bundled with the application. */
+  public static final String RULES = "data.import.generator.steps";
+
+  private static final String RESOURCE = "generator-steps.csv";
+  private static final String ANY = "*";
+  private static final Pattern APOSTROPHES = Pattern.compile("[\u2019\u02bc`]");
+  private static final Pattern STEP_SEPARATOR = Pattern.compile("[\\s,'\"]+");
+
+  private static volatile GeneratorSteps current;
+  private static String source;
+  private static long sourceModified;
+
+  private final Map<String, String> rules;
+  /** The steps by combination met, "" when no rule applies. */
+  private final Map<String, String> resolved = new ConcurrentHashMap<>();
+
+  private GeneratorSteps(Map<String, String> rules) {
+    this.rules = rules;
+  }
+
+  /** Reads the rules again if the settings name another file or the file has changed. */
+  public static synchronized void refresh() {
+    String path = AppSettings.get().get(RULES, null);
+    long modified = path == null ? 0 : new File(path).lastModified();
+    if (current == null || !Objects.equals(path, source) || modified != sourceModified) {
+      current = new GeneratorSteps(path == null ? readResource() : readFile(path));
+      source = path;
+      sourceModified = modified;
+    }
+  }
+
+  static GeneratorSteps current() {
+    if (current == null) {
+      refresh();
+    }
+    return current;
+  }
+
+  /**
+   * Returns the steps of a generator, its installation type and technology code being null when it
+   * has none, or null when no rule applies.
+   */
+  String resolve(MetaJsonRecord modality, MetaJsonRecord installationType, String technology) {
+    String modalityName = modality.getName();
+    String typeName = installationType == null ? null : installationType.getName();
+    String combination = modalityName + '\u0000' + typeName + '\u0000' + technology;
+    String steps = resolved.get(combination);
+    if (steps == null) {
+      steps = lookup(modalityName, typeName, technology);
+      resolved.put(combination, steps);
+    }
+    return steps.isEmpty() ? null : steps;
+  }
+
+  private String lookup(String modality, String installationType, String technology) {
+    String[] modalities = {normalizeName(String.valueOf(modality)), ANY};
+    String[] types = {installationType == null ? "" : normalizeName(installationType), ANY};
+    String[] technologies = {technology == null ? "" : normalizeCode(technology), ANY};
+    for (String m : modalities) {
+      for (String t : types) {
+        for (String c : technologies) {
+          String steps = rules.get(key(m, t, c));
+          if (steps != null) {
+            return steps;
+          }
+        }
+      }
+    }
+    return "";
+  }
+
+  private static Map<String, String> readResource() {
+    try (InputStream in = GeneratorSteps.class.getResourceAsStream(RESOURCE)) {
+      if (in == null) {
+        throw new IllegalStateException("Missing resource " + RESOURCE);
+      }
+      return read(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), RESOURCE);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read " + RESOURCE, e);
+    }
+  }
+
+  private static Map<String, String> readFile(String path) {
+    try (BufferedReader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+      return read(reader, path);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read the generator steps of " + path, e);
+    }
+  }
+
+  private static Map<String, String> read(BufferedReader reader, String name) throws IOException {
+    Map<String, String> rules = new HashMap<>();
+    String line;
+    int lineNum = 0;
+    while ((line = reader.readLine()) != null) {
+      lineNum++;
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] fields = line.split(";", -1);
+      if (fields.length != 4) {
+        throw new IllegalStateException(
+            "Line " + lineNum + " of " + name + " is not modality;type;technology;steps");
+      }
+      String key = key(name(fields[0]), name(fields[1]), normalizeCode(fields[2].trim()));
+      if (rules.put(key, steps(fields[3])) != null) {
+        throw new IllegalStateException(
+            "Line " + lineNum + " of " + name + " repeats the rule of an earlier line");
+      }
+    }
+    return rules;
+  }
+
+  private static String name(String field) {
+    String value = field.trim();
+    return value.equals(ANY) ? ANY : normalizeName(value);
+  }
+
+  /** Names are compared as the importers compare them, typed apostrophes aside. */
+  private static String normalizeName(String name) {
+    return ReferenceResolver.normalize(APOSTROPHES.matcher(name).replaceAll("'"));
+  }
+
+  private static String normalizeCode(String code) {
+    return code.equals(ANY) ? ANY : code.toLowerCase(Locale.ROOT);
+  }
+
+  /** The steps as the form expects them: separated by commas, once each. */
+  private static String steps(String field) {
+    Set<String> steps = new LinkedHashSet<>();
+    for (String step : STEP_SEPARATOR.split(field)) {
+      if (!step.isEmpty()) {
+        steps.add(step);
+      }
+    }
+    return String.join(",", steps);
+  }
+
+  private static String key(String modality, String installationType, String technology) {
+    return modality + '\u0000' + installationType + '\u0000' + technology;
+  }
+}
@@ -2,17 +2,11 @@ package com.dosilink.entity;
 
 import com.axelor.db.Model;
 import com.axelor.meta.db.MetaJsonRecord;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.IrmColumns;
 import java.time.LocalDate;
-import java.time.ZoneId;
 
 public class IRM extends Model {
-    private static final int WORKER_STATION = 3;
-    private static final int MACHINE_STATE = 2;
-    private static final int PUISSANCE_IRM = 4;
-    private static final int MODEL = 6;
-    private static final int SERIAL_NUMBER = 7;
-    private static final int DATE_MISE_EN_SERVICE = 8;
     private MetaJsonRecord service;
     private MetaJsonRecord location;
     private MetaJsonRecord brand;
@@ -24,24 +18,24 @@ public class IRM extends Model {
 
     private LocalDate dateMiseEnService;
 
-    public IRM(Row row , MetaJsonRecord service, MetaJsonRecord location, MetaJsonRecord brand) {
-        if(validRowString(row,MACHINE_STATE)){
-            this.machineState = row.getCell(MACHINE_STATE).getStringCellValue();
+    public IRM(SheetRow row , MetaJsonRecord service, MetaJsonRecord location, MetaJsonRecord brand) {
+        if(row.hasValue(IrmColumns.MACHINE_STATE)){
+            this.machineState = row.getString(IrmColumns.MACHINE_STATE);
         }
-        if(validRowString(row,WORKER_STATION)){
-            this.workerStation = row.getCell(WORKER_STATION).getStringCellValue();
+        if(row.hasValue(IrmColumns.WORK_STATION)){
+            this.workerStation = row.getString(IrmColumns.WORK_STATION);
         }
-        if(validRow(row,PUISSANCE_IRM)){
-            this.puissanceIRM = row.getCell(PUISSANCE_IRM).getNumericCellValue();
+        if(row.hasCell(IrmColumns.POWER)){
+            this.puissanceIRM = row.getCell(IrmColumns.POWER).getNumericCellValue();
         }
-        if(validRowString(row,MODEL)){
-            this.model = row.getCell(MODEL).getStringCellValue();
+        if(row.hasValue(IrmColumns.MODEL)){
+            this.model = row.getString(IrmColumns.MODEL);
         }
-        if(validRow(row,SERIAL_NUMBER)){
-            this.serialNumber = row.getCell(SERIAL_NUMBER).getNumericCellValue();
+        if(row.hasCell(IrmColumns.SERIAL_NUMBER)){
+            this.serialNumber = row.getCell(IrmColumns.SERIAL_NUMBER).getNumericCellValue();
         }
-        if (validRow(row,DATE_MISE_EN_SERVICE)){
-            this.dateMiseEnService = row.getCell(DATE_MISE_EN_SERVICE).getDateCellValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        if (row.hasCell(IrmColumns.COMMISSIONING_DATE)){
+            this.dateMiseEnService = row.getLocalDate(IrmColumns.COMMISSIONING_DATE);
         }
         this.service = service;
         this.location = location;
@@ -63,22 +57,46 @@ public class IRM extends Model {
         metaJsonRecord.setAttrs(getAttrs());
         return metaJsonRecord;
     }
-    private boolean validRow(Row row, int NUM_COLUMN) {
-        return row.getCell(NUM_COLUMN) != null;
+
+    private static final String STATUS_HTML =
+        "<span class=\"label hilite-success\" style=\"display: inline-block; line-height: "
+        + "initial; width: 65px !important;\" x-translate>Saisi</span>";
+
+    /** The keys of the attrs. */
+    private static final class Keys {
+        static final AttrsWriter.Key STEP = AttrsWriter.key("step");
+        static final AttrsWriter.Key MODEL = AttrsWriter.key("model");
+        static final AttrsWriter.Key POWER = AttrsWriter.key("power");
+        static final AttrsWriter.Key STATUS = AttrsWriter.key("status");
+        static final AttrsWriter.Key SERVICE = AttrsWriter.key("service");
+        static final AttrsWriter.Key LOCATION = AttrsWriter.key("location");
+        static final AttrsWriter.Key MACHINE_STATE = AttrsWriter.key("machineState");
+        static final AttrsWriter.Key MANUFACTURER = AttrsWriter.key("manufacturer");
+        static final AttrsWriter.Key SERIAL_NUMBER = AttrsWriter.key("serialNumber");
+        static final AttrsWriter.Key COMMISSIONING_DATE = AttrsWriter.key("commissioningDate");
     }
+
     private String getAttrs() {
-        return "{\"step\": \"2\"," +
-                " \"model\": \""+model+"\"," +
-                " \"power\": 10," +
-                " \"status\": \"<span class=\\\"label hilite-success\\\" style=\\\"display: inline-block; line-height: initial; width: 65px !important;\\\" x-translate>Saisi</span>\"," +
-                " \"service\": {\"id\":"+service.getId()+", \"name\": \""+service.getName()+"\", \"$version\": 9, \"$attachments\": 0}," +
-                " \"location\": {\"id\":"+location.getId()+", \"name\": \""+location.getName()+"\", \"$version\": 1, \"$attachments\": 0}," +
-                " \"machineState\": \""+machineState+"\"," +
-                " \"manufacturer\": {\"id\":"+brand.getId()+", \"name\": \""+brand.getName()+"\", \"$version\": 3, \"$attachments\": 0}," +
-                " \"serialNumber\": \""+serialNumber+"\", " +
-                "\"commissioningDate\": \""+dateMiseEnService+"\"}";
-    }
-    private boolean validRowString(Row row, int NUM_COLUMN) {
-        return !(row.getCell(NUM_COLUMN) == null || row.getCell(NUM_COLUMN).getStringCellValue().isEmpty());
+        return AttrsWriter.begin()
+                .string(Keys.STEP, "2")
+                .string(Keys.MODEL, model)
+                .number(Keys.POWER, 10)
+                .string(Keys.STATUS, STATUS_HTML)
+                .reference(Keys.SERVICE, service)
+                .number(AttrsWriter.VERSION, 9)
+                .number(AttrsWriter.ATTACHMENTS, 0)
+                .endObject()
+                .reference(Keys.LOCATION, location)
+                .number(AttrsWriter.VERSION, 1)
+                .number(AttrsWriter.ATTACHMENTS, 0)
+                .endObject()
+                .string(Keys.MACHINE_STATE, machineState)
+                .reference(Keys.MANUFACTURER, brand)
+                .number(AttrsWriter.VERSION, 3)
+                .number(AttrsWriter.ATTACHMENTS, 0)
+                .endObject()
+                .string(Keys.SERIAL_NUMBER, serialNumber)
+                .string(Keys.COMMISSIONING_DATE, dateMiseEnService)
+                .end();
     }
 }
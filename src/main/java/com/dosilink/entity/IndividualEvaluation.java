@@ -14,7 +14,13 @@ public class IndividualEvaluation {
     metaJsonRecord.setAttrs(getAttrs());
     return metaJsonRecord;
   }
+
+  /** The keys of the attrs. */
+  private static final class Keys {
+    static final AttrsWriter.Key PROTECTION_EQUIPMENT = AttrsWriter.key("protectionEquipment");
+  }
+
   private String getAttrs() {
-    return "{\"protectionEquipment\": \"" + protectionEquipment + "\"}";
+    return AttrsWriter.begin().string(Keys.PROTECTION_EQUIPMENT, protectionEquipment).end();
   }
 }
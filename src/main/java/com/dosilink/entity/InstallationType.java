@@ -2,10 +2,10 @@ package com.dosilink.entity;
 
 import com.axelor.db.Model;
 import com.axelor.meta.db.MetaJsonRecord;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.StructureColumns;
 
 public class InstallationType extends Model {
-  private static final int INSTALLATION_TYPE_NAME = 8;
   // private static final int INSTALLATION_TYPE_MODALITY = 11;
   // private static final int INSTALLATION_TYPE_QUALITY_PROCESS = 12;
   // private static final int INSTALLATION_TYPE_CODE = 13;
@@ -16,13 +16,13 @@ public class InstallationType extends Model {
   private String code;
   private final boolean deleted = false;
 
-  public InstallationType(Row row) {
-    if (validRow(row, INSTALLATION_TYPE_NAME)) {
-      this.name = row.getCell(INSTALLATION_TYPE_NAME).getStringCellValue();
+  public InstallationType(SheetRow row) {
+    if (row.hasValue(StructureColumns.INSTALLATION_TYPE)) {
+      this.name = row.getString(StructureColumns.INSTALLATION_TYPE);
     }
-    // this.modality = row.getCell(INSTALLATION_TYPE_MODALITY).getStringCellValue();
-    // this.qualityProcess = row.getCell(INSTALLATION_TYPE_QUALITY_PROCESS).getStringCellValue();
-    // this.code = row.getCell(INSTALLATION_TYPE_CODE).getStringCellValue();
+    // this.modality = row.getString(INSTALLATION_TYPE_MODALITY);
+    // this.qualityProcess = row.getString(INSTALLATION_TYPE_QUALITY_PROCESS);
+    // this.code = row.getString(INSTALLATION_TYPE_CODE);
 
   }
 
@@ -71,9 +71,6 @@ public class InstallationType extends Model {
   @Override
   public void setId(Long id) {}
 
-  private boolean validRow(Row row, int NUM_COLUMN) {
-    return row.getCell(NUM_COLUMN) != null;
-  }
 
   public MetaJsonRecord toMetaJsonRecord() {
     MetaJsonRecord metaJsonRecord = new MetaJsonRecord(name);
@@ -83,6 +80,9 @@ public class InstallationType extends Model {
   }
 
   private String getAttrs() {
-    return "{\"name\":\"" + name + "\",\"deleted\": \"false\"}";
+    return AttrsWriter.begin()
+        .string(AttrsWriter.NAME, name)
+        .string(AttrsWriter.DELETED, "false")
+        .end();
   }
 }
@@ -2,27 +2,23 @@ package com.dosilink.entity;
 
 import com.axelor.db.Model;
 import com.axelor.meta.db.MetaJsonRecord;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.StructureColumns;
 
 import java.util.Objects;
 
 public class Localisation extends Model {
-  private static final int LOCALISATION_NAME = 6;
-  private static final int LOCALISATION_SERVICE = 2;
   private String name;
   private MetaJsonRecord service;
   private final boolean deleted = false;
 
-  public Localisation(Row row, MetaJsonRecord service) {
-    if (validRowString(row, LOCALISATION_NAME)) {
-      this.name = row.getCell(LOCALISATION_NAME).getStringCellValue();
+  public Localisation(SheetRow row, MetaJsonRecord service) {
+    if (row.hasValue(StructureColumns.LOCALISATION)) {
+      this.name = row.getString(StructureColumns.LOCALISATION);
       this.service = service;
     }
   }
 
-  private boolean validRowString(Row row, int NUM_COLUMN) {
-    return !(row.getCell(NUM_COLUMN) == null || row.getCell(NUM_COLUMN).getStringCellValue().isEmpty());
-  }
 
   @Override
   public String toString() {
@@ -89,13 +85,21 @@ public class Localisation extends Model {
     return metaJsonRecord;
   }
 
+  /** The keys of the attrs. */
+  private static final class Keys {
+    static final AttrsWriter.Key SITE = AttrsWriter.key("site");
+  }
+
   private String getAttrs() {
-    return "{\"name\":\""
-        + name
-        + "\",\"deleted\": \"false\",\"site\":{\"id\":\""
-        + service.getId()
-        + "\",\"name\":\""
-        + service.getName()
-        + "\"},\"deleted\":\"false\"}";
+    // The service of a location is kept under "site", the attribute the parent of a record is read
+    // from (see ReferenceCache).
+    return AttrsWriter.begin()
+        .string(AttrsWriter.NAME, name)
+        .object(Keys.SITE)
+        .number(AttrsWriter.ID, service.getId())
+        .string(AttrsWriter.NAME, service.getName())
+        .endObject()
+        .string(AttrsWriter.DELETED, "false")
+        .end();
   }
 }
@@ -2,15 +2,11 @@ package com.dosilink.entity;
 
 import com.axelor.db.Model;
 import com.axelor.meta.db.MetaJsonRecord;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.MeasuringDeviceColumns;
 import java.time.LocalDate;
-import java.time.ZoneId;
 
 public class MeasuringDevice extends Model {
-    private static final int MODEL = 2;
-    private static final int DATE_DERNIER_VERFICATION = 6;
-    private static final int DATE_DERNIER_ETALONAGE = 7;
-    private static final int SERIAL_NUMBER = 3;
     private MetaJsonRecord measuringDeviceType;
     private MetaJsonRecord brand;
     private String model;
@@ -20,18 +16,18 @@ public class MeasuringDevice extends Model {
     private LocalDate dateDernierVerfication;
     private LocalDate dateDernierEtalonage;
 
-    public MeasuringDevice(Row row, MetaJsonRecord measuringDeviceType, MetaJsonRecord brand, MetaJsonRecord service, MetaJsonRecord location) {
-        if(validRowString(row,MODEL)){
-            this.model = row.getCell(MODEL).getStringCellValue();
+    public MeasuringDevice(SheetRow row, MetaJsonRecord measuringDeviceType, MetaJsonRecord brand, MetaJsonRecord service, MetaJsonRecord location) {
+        if(row.hasValue(MeasuringDeviceColumns.MODEL)){
+            this.model = row.getString(MeasuringDeviceColumns.MODEL);
         }
-        if(validRow(row,SERIAL_NUMBER)){
-            this.serialNumber = row.getCell(SERIAL_NUMBER).getNumericCellValue();
+        if(row.hasCell(MeasuringDeviceColumns.SERIAL_NUMBER)){
+            this.serialNumber = row.getCell(MeasuringDeviceColumns.SERIAL_NUMBER).getNumericCellValue();
         }
-        if(validRow(row,DATE_DERNIER_VERFICATION)){
-            this.dateDernierVerfication = row.getCell(DATE_DERNIER_VERFICATION).getDateCellValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        if(row.hasCell(MeasuringDeviceColumns.LAST_CHECK)){
+            this.dateDernierVerfication = row.getLocalDate(MeasuringDeviceColumns.LAST_CHECK);
         }
-        if (validRow(row,DATE_DERNIER_ETALONAGE)){
-            this.dateDernierEtalonage = row.getCell(DATE_DERNIER_ETALONAGE).getDateCellValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        if (row.hasCell(MeasuringDeviceColumns.LAST_CALIBRATION)){
+            this.dateDernierEtalonage = row.getLocalDate(MeasuringDeviceColumns.LAST_CALIBRATION);
         }
         this.measuringDeviceType = measuringDeviceType;
         this.brand = brand;
@@ -54,28 +50,63 @@ public class MeasuringDevice extends Model {
         metaJsonRecord.setAttrs(getAttrs());
         return metaJsonRecord;
     }
-    private boolean validRow(Row row, int NUM_COLUMN) {
-        return row.getCell(NUM_COLUMN) != null;
+
+    private static final String AVAILABLE_HTML =
+        "<span class=\"label label-success\" style=\"display: inline-table; line-height: "
+        + "initial; width: 80px !important;\">Disponible</span>";
+    private static final String COMPLIANT_HTML =
+        "<span class=\"label label-default\" style=\"background-color: #5cb85c; margin: 2px 0 "
+        + "!important; display: inline-table; line-height: initial; width: 100px !important;\" "
+        + ">Conforme</span>";
+
+    /** The keys of the attrs. */
+    private static final class Keys {
+        static final AttrsWriter.Key STEP = AttrsWriter.key("step");
+        static final AttrsWriter.Key MODEL = AttrsWriter.key("model");
+        static final AttrsWriter.Key STATUS = AttrsWriter.key("status");
+        static final AttrsWriter.Key SERVICE = AttrsWriter.key("service");
+        static final AttrsWriter.Key DEVICE_TYPE = AttrsWriter.key("deviceType");
+        static final AttrsWriter.Key STATUS_HTML = AttrsWriter.key("statusHtml");
+        static final AttrsWriter.Key MANUFACTURER = AttrsWriter.key("manufacturer");
+        static final AttrsWriter.Key SERIAL_NUMBER = AttrsWriter.key("serialnumber");
+        static final AttrsWriter.Key CALIBRATION_UNIT = AttrsWriter.key("calibrationUnit");
+        static final AttrsWriter.Key CONTROLS_FOLLOW_UP = AttrsWriter.key("controlsFollowUp");
+        static final AttrsWriter.Key CONTROL_STATUS_HTML = AttrsWriter.key("controlStatusHtml");
+        static final AttrsWriter.Key PERIODIC_VERIFICATION =
+                AttrsWriter.key("periodicVerification");
+        static final AttrsWriter.Key CALIBRATION_PERIODICITY =
+                AttrsWriter.key("calibrationPeriodicity");
+        static final AttrsWriter.Key PERIODIC_VERIFICATION_UNIT =
+                AttrsWriter.key("periodicVerificationUnit");
+        static final AttrsWriter.Key PERIODIC_VERIFICATION_PERIODICITY =
+                AttrsWriter.key("periodicVerificationPeriodicity");
     }
+
     private String getAttrs() {
-        return " {\"step\": \"end\"," +
-                " \"model\": \""+model+"\"," +
-                " \"status\": \"Disponible\"," +
-                " \"deleted\": \"false\"," +
-                " \"service\": {\"id\":"+service.getId()+", \"name\":\""+service.getName()+"\", \"$version\": 5}, "+
-                " \"deviceType\": {\"id\":"+measuringDeviceType.getId()+", \"name\": \""+measuringDeviceType.getName()+"\", \"$version\": 1, \"$attachments\": 0}," +
-                " \"statusHtml\": \"<span class=\\\"label label-success\\\" style=\\\"display: inline-table; line-height: initial; width: 80px !important;\\\">Disponible</span>\"," +
-                " \"manufacturer\": {\"id\":"+brand.getId()+", \"name\": \""+brand.getName()+"\", \"$version\": 1}," +
-                " \"serialnumber\": \""+serialNumber+"\" ,"+
-                " \"calibrationUnit\": \"Year\"," +
-                " \"controlsFollowUp\": [{\"id\": 28110}]," +
-                " \"controlStatusHtml\": \"<span class=\\\"label label-default\\\" style=\\\"background-color: #5cb85c; margin: 2px 0 !important; display: inline-table; line-height: initial; width: 100px !important;\\\" >Conforme</span>\"," +
-                " \"periodicVerification\": \""+dateDernierVerfication+"\"," +
-                " \"calibrationPeriodicity\": 3," +
-                " \"periodicVerificationUnit\": \"Year\"," +
-                " \"periodicVerificationPeriodicity\": 2}";
-    }
-    private boolean validRowString(Row row, int NUM_COLUMN) {
-        return !(row.getCell(NUM_COLUMN) == null || row.getCell(NUM_COLUMN).getStringCellValue().isEmpty());
+        return AttrsWriter.begin()
+                .string(Keys.STEP, "end")
+                .string(Keys.MODEL, model)
+                .string(Keys.STATUS, "Disponible")
+                .string(AttrsWriter.DELETED, "false")
+                .reference(Keys.SERVICE, service).number(AttrsWriter.VERSION, 5).endObject()
+                .reference(Keys.DEVICE_TYPE, measuringDeviceType)
+                .number(AttrsWriter.VERSION, 1)
+                .number(AttrsWriter.ATTACHMENTS, 0)
+                .endObject()
+                .string(Keys.STATUS_HTML, AVAILABLE_HTML)
+                .reference(Keys.MANUFACTURER, brand).number(AttrsWriter.VERSION, 1).endObject()
+                .string(Keys.SERIAL_NUMBER, serialNumber)
+                .string(Keys.CALIBRATION_UNIT, "Year")
+                .array(Keys.CONTROLS_FOLLOW_UP)
+                .object()
+                .number(AttrsWriter.ID, 28110)
+                .endObject()
+                .endArray()
+                .string(Keys.CONTROL_STATUS_HTML, COMPLIANT_HTML)
+                .string(Keys.PERIODIC_VERIFICATION, dateDernierVerfication)
+                .number(Keys.CALIBRATION_PERIODICITY, 3)
+                .string(Keys.PERIODIC_VERIFICATION_UNIT, "Year")
+                .number(Keys.PERIODIC_VERIFICATION_PERIODICITY, 2)
+                .end();
     }
 }
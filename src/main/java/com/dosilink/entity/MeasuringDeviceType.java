@@ -2,18 +2,18 @@ package com.dosilink.entity;
 
 import com.axelor.db.Model;
 import com.axelor.meta.db.MetaJsonRecord;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.StructureColumns;
 
 import java.util.Objects;
 
 public class MeasuringDeviceType extends Model {
-  private static final int MEASURING_DEVICE_TYPE = 12;
   private String nomenclature;
   private final boolean deleted = false;
 
-  public MeasuringDeviceType(Row row) {
-    if (validRowString(row, MEASURING_DEVICE_TYPE)) {
-      this.nomenclature = row.getCell(MEASURING_DEVICE_TYPE).getStringCellValue();
+  public MeasuringDeviceType(SheetRow row) {
+    if (row.hasValue(StructureColumns.MEASURING_DEVICE_TYPE)) {
+      this.nomenclature = row.getString(StructureColumns.MEASURING_DEVICE_TYPE);
     }
   }
 
@@ -28,9 +28,6 @@ public class MeasuringDeviceType extends Model {
         + '}';
   }
 
-  private boolean validRowString(Row row, int NUM_COLUMN) {
-    return !(row.getCell(NUM_COLUMN) == null || row.getCell(NUM_COLUMN).getStringCellValue().isEmpty());
-  }
 
   public String getNomenclature() {
     return nomenclature;
@@ -75,7 +72,15 @@ public class MeasuringDeviceType extends Model {
     return metaJsonRecord;
   }
 
+  /** The keys of the attrs. */
+  private static final class Keys {
+    static final AttrsWriter.Key NOMENCLATURE = AttrsWriter.key("nomenclature");
+  }
+
   private String getAttrs() {
-    return "{\"nomenclature\": \"" + nomenclature + "\", \"deleted\": \"false\"}";
+    return AttrsWriter.begin()
+        .string(Keys.NOMENCLATURE, nomenclature)
+        .string(AttrsWriter.DELETED, "false")
+        .end();
   }
 }
@@ -14,7 +14,13 @@ public class PassiveDosimetry {
     metaJsonRecord.setAttrs(getAttrs());
     return metaJsonRecord;
   }
+
+  /** The keys of the attrs. */
+  private static final class Keys {
+    static final AttrsWriter.Key POSITION = AttrsWriter.key("position");
+  }
+
   private String getAttrs() {
-    return "{\"position\": \"" + position + "\"}";
+    return AttrsWriter.begin().string(Keys.POSITION, position).end();
   }
 }
@@ -2,19 +2,12 @@ package com.dosilink.entity;
 
 import com.axelor.db.Model;
 import com.axelor.meta.db.MetaJsonRecord;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.ProtectionEquipmentColumns;
 
 import java.time.LocalDate;
-import java.time.ZoneId;
 
 public class ProtectionEquipment extends Model {
-    private static final int TYPE = 0;
-    private static final int DISPOSITIF = 1;
-    private static final int SERIAL_NUMBER = 3;
-    private static final int EPAISSEUR = 6;
-    private static final int ETAT = 7;
-    private static final int DATE_DERNIER_VERIFICATION = 8;
-    private static final int DATE_AQUISITION = 9;
     private String type;
     private String dispositif;
     private MetaJsonRecord brand;
@@ -26,9 +19,9 @@ public class ProtectionEquipment extends Model {
     private LocalDate dateDernierVerfication;
     private LocalDate dateAquisition;
 
-    public ProtectionEquipment(Row row, MetaJsonRecord brand, MetaJsonRecord service , MetaJsonRecord location) {
-        if (validRow(row,TYPE)){
-            switch (row.getCell(TYPE).getStringCellValue()){
+    public ProtectionEquipment(SheetRow row, MetaJsonRecord brand, MetaJsonRecord service , MetaJsonRecord location) {
+        if (row.hasValue(ProtectionEquipmentColumns.TYPE)){
+            switch (row.getString(ProtectionEquipmentColumns.TYPE)){
                 case "EPI":
                     this.type = "1";
                     break;
@@ -37,31 +30,28 @@ public class ProtectionEquipment extends Model {
             }
 
         }
-        if (validRow(row,DISPOSITIF)){
-            this.dispositif = row.getCell(DISPOSITIF).getStringCellValue();
+        if (row.hasValue(ProtectionEquipmentColumns.DEVICE)){
+            this.dispositif = row.getString(ProtectionEquipmentColumns.DEVICE);
         }
-        if (validRow(row,SERIAL_NUMBER)){
-            this.serialNumber = row.getCell(SERIAL_NUMBER).getNumericCellValue();
+        if (row.hasCell(ProtectionEquipmentColumns.SERIAL_NUMBER)){
+            this.serialNumber = row.getCell(ProtectionEquipmentColumns.SERIAL_NUMBER).getNumericCellValue();
         }
-        if (validRow(row,EPAISSEUR)){
-            this.epaisseur = row.getCell(EPAISSEUR).getNumericCellValue();
+        if (row.hasCell(ProtectionEquipmentColumns.THICKNESS)){
+            this.epaisseur = row.getCell(ProtectionEquipmentColumns.THICKNESS).getNumericCellValue();
         }
-        if (validRow(row,ETAT)){
-            this.etat = row.getCell(ETAT).getStringCellValue();
+        if (row.hasValue(ProtectionEquipmentColumns.STATE)){
+            this.etat = row.getString(ProtectionEquipmentColumns.STATE);
         }
-        if (validRow(row,DATE_DERNIER_VERIFICATION)){
-            this.dateDernierVerfication = row.getCell(DATE_DERNIER_VERIFICATION).getDateCellValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        if (row.hasCell(ProtectionEquipmentColumns.LAST_CHECK)){
+            this.dateDernierVerfication = row.getLocalDate(ProtectionEquipmentColumns.LAST_CHECK);
         }
-        if (validRow(row,DATE_AQUISITION)){
-            this.dateAquisition = row.getCell(DATE_AQUISITION).getDateCellValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        if (row.hasCell(ProtectionEquipmentColumns.ACQUISITION_DATE)){
+            this.dateAquisition = row.getLocalDate(ProtectionEquipmentColumns.ACQUISITION_DATE);
         }
         this.brand = brand;
         this.service = service;
         this.location = location;
     }
-    private boolean validRow(Row row, int NUM_COLUMN) {
-        return row.getCell(NUM_COLUMN) != null;
-    }
     @Override
     public Long getId() {
         return null;
@@ -78,21 +68,50 @@ public class ProtectionEquipment extends Model {
         return metaJsonRecord;
     }
 
+    private static final String TO_RECORD_HTML =
+        "<span class=\"label label-default\" style=\"background-color: #858585; margin: 2px 0 "
+        + "!important; display: inline-table; line-height: initial; width: 82px !important;\">À "
+        + "enregistrer</span>";
+
+    /** The keys of the attrs. */
+    private static final class Keys {
+        static final AttrsWriter.Key STEP = AttrsWriter.key("step");
+        static final AttrsWriter.Key UNIT = AttrsWriter.key("unit");
+        static final AttrsWriter.Key BRAND = AttrsWriter.key("brand");
+        static final AttrsWriter.Key DEVICE = AttrsWriter.key("device");
+        static final AttrsWriter.Key SERVICE = AttrsWriter.key("service");
+        static final AttrsWriter.Key CATEGORY = AttrsWriter.key("category");
+        static final AttrsWriter.Key LOCATION = AttrsWriter.key("location");
+        static final AttrsWriter.Key SERIAL_NUMBER = AttrsWriter.key("serialNumber");
+        static final AttrsWriter.Key EQUIPMENT_TYPE = AttrsWriter.key("equipmentType");
+        static final AttrsWriter.Key GENERAL_STATUS = AttrsWriter.key("generalStatus");
+        static final AttrsWriter.Key LEAD_THICKNESS = AttrsWriter.key("leadThickness");
+        static final AttrsWriter.Key STATE_EQUIPMENT = AttrsWriter.key("stateEquipment");
+        static final AttrsWriter.Key INITIAL_VERIFICATION_DATE =
+                AttrsWriter.key("initialVerificationDate");
+        static final AttrsWriter.Key YEAR_ACQUISITION_PPE = AttrsWriter.key("yearAcquisitionPPE");
+    }
+
     private String getAttrs() {
-        return " {\"step\": \"1\"," +
-                " \"unit\": \"Année\"," +
-                " \"brand\": {\"id\":"+brand.getId()+", \"name\": \""+brand.getName()+"\", \"$version\": 0, \"$attachments\": 0}," +
-                " \"device\": \"5\"," +
-                " \"deleted\": \"false\"," +
-                " \"service\": {\"id\":"+service.getId()+", \"name\": \""+service.getName()+"\", \"$version\": 0}," +
-                " \"category\": \"1\"," +
-                " \"location\": {\"id\":"+location.getId()+", \"name\":\""+location.getName()+"\"}," +
-                "\"serialNumber\": " + "\"" +serialNumber + "\"" + "," +
-                " \"equipmentType\": \""+type+"\"," +
-                " \"generalStatus\": \"<span class=\\\"label label-default\\\" style=\\\"background-color: #858585; margin: 2px 0 !important; display: inline-table; line-height: initial; width: 82px !important;\\\">À enregistrer</span>\"," +
-                " \"leadThickness\": \""+epaisseur+"\"," +
-                " \"stateEquipment\": \""+etat+"\", " +
-                " \"initialVerificationDate\":\""+dateDernierVerfication+"\", " +
-                "\"yearAcquisitionPPE\": \""+dateAquisition+"\"}";
+        return AttrsWriter.begin()
+                .string(Keys.STEP, "1")
+                .string(Keys.UNIT, "Année")
+                .reference(Keys.BRAND, brand)
+                .number(AttrsWriter.VERSION, 0)
+                .number(AttrsWriter.ATTACHMENTS, 0)
+                .endObject()
+                .string(Keys.DEVICE, "5")
+                .string(AttrsWriter.DELETED, "false")
+                .reference(Keys.SERVICE, service).number(AttrsWriter.VERSION, 0).endObject()
+                .string(Keys.CATEGORY, "1")
+                .reference(Keys.LOCATION, location).endObject()
+                .string(Keys.SERIAL_NUMBER, serialNumber)
+                .string(Keys.EQUIPMENT_TYPE, type)
+                .string(Keys.GENERAL_STATUS, TO_RECORD_HTML)
+                .string(Keys.LEAD_THICKNESS, epaisseur)
+                .string(Keys.STATE_EQUIPMENT, etat)
+                .string(Keys.INITIAL_VERIFICATION_DATE, dateDernierVerfication)
+                .string(Keys.YEAR_ACQUISITION_PPE, dateAquisition)
+                .end();
     }
 }
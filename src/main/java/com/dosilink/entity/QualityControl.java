@@ -2,17 +2,12 @@ package com.dosilink.entity;
 
 import com.axelor.db.Model;
 import com.axelor.meta.db.MetaJsonRecord;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.GeneratorColumns;
 
 import java.time.LocalDate;
-import java.time.ZoneId;
 
 public class QualityControl extends Model {
-    private static final int SERIAL_NUMBER = 5;
-    private static final int COMMOSSION_ING_DATE = 10;
-    private static final int DATE_OF_LAST_MONTHLY_CQI = 15;
-    private static final int DATE_OF_LAST_CQI = 14;
-    private static final int DATE_OF_LAST_EQC = 13;
 
     private MetaJsonRecord service;
     private MetaJsonRecord location;
@@ -35,21 +30,21 @@ public class QualityControl extends Model {
     private boolean hasSemiAnnualIQC;
     private String qualityControlSteps;
 
-    public QualityControl(Row row, MetaJsonRecord service, MetaJsonRecord location, MetaJsonRecord modality, MetaJsonRecord xRayGenerator,MetaJsonRecord installationType) {
-        if (validRow(row,SERIAL_NUMBER)){
-            this.serialNumber = row.getCell(SERIAL_NUMBER).getNumericCellValue();
+    public QualityControl(SheetRow row, MetaJsonRecord service, MetaJsonRecord location, MetaJsonRecord modality, MetaJsonRecord xRayGenerator,MetaJsonRecord installationType) {
+        if (row.hasCell(GeneratorColumns.SERIAL_NUMBER)){
+            this.serialNumber = row.getCell(GeneratorColumns.SERIAL_NUMBER).getNumericCellValue();
         }
-        if (validRow(row,COMMOSSION_ING_DATE)){
-           this.commissioningDate = row.getCell(COMMOSSION_ING_DATE).getDateCellValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        if (row.hasCell(GeneratorColumns.COMMISSIONING_DATE)){
+           this.commissioningDate = row.getLocalDate(GeneratorColumns.COMMISSIONING_DATE);
         }
-        if (validRow(row, DATE_OF_LAST_MONTHLY_CQI)){
-            this.dateOfLastMonthlyIQC = row.getCell(DATE_OF_LAST_MONTHLY_CQI).getDateCellValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        if (row.hasCell(GeneratorColumns.LAST_MONTHLY_CQI)){
+            this.dateOfLastMonthlyIQC = row.getLocalDate(GeneratorColumns.LAST_MONTHLY_CQI);
         }
-        if(validRow(row,DATE_OF_LAST_CQI)){
-            this.dailyIQCView = row.getCell(DATE_OF_LAST_CQI).getDateCellValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        if(row.hasCell(GeneratorColumns.LAST_CQI)){
+            this.dailyIQCView = row.getLocalDate(GeneratorColumns.LAST_CQI);
         }
-        if (validRow(row,DATE_OF_LAST_EQC)){
-            this.dateOfLastQuarterLyIQC = row.getCell(DATE_OF_LAST_EQC).getDateCellValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        if (row.hasCell(GeneratorColumns.LAST_EQC)){
+            this.dateOfLastQuarterLyIQC = row.getLocalDate(GeneratorColumns.LAST_EQC);
         }
         this.service = service;
         this.location = location;
@@ -74,50 +69,109 @@ public class QualityControl extends Model {
         metaJsonRecord.setAttrs(getAttrs());
         return metaJsonRecord;
     }
-    private boolean validRow(Row row, int NUM_COLUMN) {
-        return row.getCell(NUM_COLUMN) != null;
+
+    private static final String NOT_COMPLIANT = "Non conforme";
+    private static final String NOT_COMPLIANT_HTML =
+        "<span class=\"label label-default\" style=\"background-color: #d9534f; margin: 2px 0 "
+        + "!important; display: inline-table; line-height: initial; width: 82px "
+        + "!important;\">Non conforme</span>";
+
+    /** The keys of the attrs. */
+    private static final class Keys {
+        static final AttrsWriter.Key YEAR = AttrsWriter.key("year");
+        static final AttrsWriter.Key MONTH = AttrsWriter.key("month");
+        static final AttrsWriter.Key TASK_ID = AttrsWriter.key("taskId");
+        static final AttrsWriter.Key SERVICE = AttrsWriter.key("service");
+        static final AttrsWriter.Key LOCATION = AttrsWriter.key("location");
+        static final AttrsWriter.Key MODALITY = AttrsWriter.key("modality");
+        static final AttrsWriter.Key IQC_STATUS = AttrsWriter.key("iqcStatus");
+        static final AttrsWriter.Key HAS_DAILY_IQC = AttrsWriter.key("hasDailyIQC");
+        static final AttrsWriter.Key HAS_IQC_AUDIT = AttrsWriter.key("hasIQCAudit");
+        static final AttrsWriter.Key HAS_ANNUAL_EQC = AttrsWriter.key("hasAnnualEQC");
+        static final AttrsWriter.Key HAS_ANNUAL_IQC = AttrsWriter.key("hasAnnualIQC");
+        static final AttrsWriter.Key SERIAL_NUMBER = AttrsWriter.key("serialNumber");
+        static final AttrsWriter.Key GENERAL_STATUS = AttrsWriter.key("generalStatus");
+        static final AttrsWriter.Key HAS_INITIAL_IQC = AttrsWriter.key("hasInitialIQC");
+        static final AttrsWriter.Key HAS_MONTHLY_IQC = AttrsWriter.key("hasMonthlyIQC");
+        static final AttrsWriter.Key DAILY_IQC_STATUS = AttrsWriter.key("dailyIQCStatus");
+        static final AttrsWriter.Key MONTHLY_IQC_UNIT = AttrsWriter.key("monthlyIQCUnit");
+        static final AttrsWriter.Key HAS_FIVE_YEARS_EQC = AttrsWriter.key("hasFiveYearsEQC");
+        static final AttrsWriter.Key HAS_QUARTERLY_IQC = AttrsWriter.key("hasQuarterlyIQC");
+        static final AttrsWriter.Key HAS_SEMI_ANNUAL_EQC = AttrsWriter.key("hasSemiAnnualEQC");
+        static final AttrsWriter.Key HAS_SEMI_ANNUAL_IQC = AttrsWriter.key("hasSemiAnnualIQC");
+        static final AttrsWriter.Key DATE_OF_LAST_QUARTERLY_IQC =
+                AttrsWriter.key("dateOfLastQuarterLyIQC");
+        static final AttrsWriter.Key DAILY_IQC_VIEW = AttrsWriter.key("dailyIQCView");
+        static final AttrsWriter.Key INITIAL_IQC_STATUS = AttrsWriter.key("initialIQCStatus");
+        static final AttrsWriter.Key INSTALLATION_TYPE = AttrsWriter.key("installationType");
+        static final AttrsWriter.Key MONTHLY_IQC_STATUS = AttrsWriter.key("monthlyIQCStatus");
+        static final AttrsWriter.Key QUARTERLY_IQC_UNIT = AttrsWriter.key("quarterlyIQCUnit");
+        static final AttrsWriter.Key COMMISSIONING_DATE = AttrsWriter.key("commissioningDate");
+        static final AttrsWriter.Key GENERAL_STATUS_HTML = AttrsWriter.key("generalStatusHtml");
+        static final AttrsWriter.Key HAS_FOUR_QUARTER_IQC = AttrsWriter.key("hasFourQuarterIQC");
+        static final AttrsWriter.Key GENERAL_STATUS_COLOR = AttrsWriter.key("generalStatusColor");
+        static final AttrsWriter.Key MEDICAL_EQUIPMENT_ID = AttrsWriter.key("medicalEquipmentId");
+        static final AttrsWriter.Key MONTHLY_IQC_PLANNING = AttrsWriter.key("monthlyIQCPlanning");
+        static final AttrsWriter.Key QUARTERLY_IQC_STATUS = AttrsWriter.key("quarterlyIQCStatus");
+        static final AttrsWriter.Key QUALITY_CONTROL_STEPS = AttrsWriter.key("qualityControlSteps");
+        static final AttrsWriter.Key DATE_OF_LAST_MONTHLY_IQC =
+                AttrsWriter.key("dateOfLastMonthlyIQC");
+        static final AttrsWriter.Key MONTHLY_IQC_PERIODICITY =
+                AttrsWriter.key("monthlyIQCPeriodicity");
+        static final AttrsWriter.Key QUARTERLY_IQC_PERIODICITY =
+                AttrsWriter.key("quarterlyIQCPeriodicity");
+        static final AttrsWriter.Key HAS_IQC_FOLLOWING_MAINTENANCE =
+                AttrsWriter.key("hasIQCFollowingMaintenance");
+        static final AttrsWriter.Key HAS_IQC_FOLLOWING_A_CHANGE_OF_X_RAY_TUBE =
+                AttrsWriter.key("hasIQCFollowingAChangeOfXRayTube");
     }
+
     private String getAttrs() {
-        return "{\"year\":\""+ LocalDate.now().getYear()+"\" ," +
-                " \"month\":\""+ LocalDate.now().getMonth()+"\"," +
-                " \"taskId\":\""+""+"\" ," +
-                " \"deleted\": false," +
-                " \"service\": {\"id\":"+service.getId()+", \"name\": \""+service.getName()+"\", \"$version\": 9}," +
-                " \"location\": {\"id\":"+location.getId()+", \"name\": \""+location.getName()+"\", \"$version\": 3}," +
-                " \"modality\": {\"id\":"+modality.getId()+", \"name\": \""+modality.getName()+"\", \"$version\": 2}," +
-                " \"iqcStatus\": \"Non conforme\"," +
-                " \"hasDailyIQC\": true," +
-                " \"hasIQCAudit\": false," +
-                " \"hasAnnualEQC\": false," +
-                " \"hasAnnualIQC\": false," +
-                " \"serialNumber\": \""+serialNumber+"\"," +
-                " \"generalStatus\": \"Non conforme\"," +
-                " \"hasInitialIQC\": true," +
-                " \"hasMonthlyIQC\": true," +
-                " \"dailyIQCStatus\": \"<span class=\\\"label label-default\\\" style=\\\"background-color: #d9534f; margin: 2px 0 !important; display: inline-table; line-height: initial; width: 82px !important;\\\">Non conforme</span>\"," +
-                " \"monthlyIQCUnit\": \"Mois\"," +
-                " \"hasFiveYearsEQC\": false," +
-                " \"hasQuarterlyIQC\": true," +
-                " \"hasSemiAnnualEQC\": false," +
-                " \"hasSemiAnnualIQC\": false," +
-                " \"dateOfLastQuarterLyIQC\":\""+this.dateOfLastQuarterLyIQC+"\", "+
-                " \"dailyIQCView\":\""+this.dailyIQCView+"\", "+
-                " \"initialIQCStatus\": \"<span class=\\\"label label-default\\\" style=\\\"background-color: #d9534f; margin: 2px 0 !important; display: inline-table; line-height: initial; width: 82px !important;\\\">Non conforme</span>\"," +
-                " \"installationType\": {\"id\":"+installationType.getId()+", \"name\": \""+installationType.getName()+"\", \"$version\": 1}," +
-                " \"monthlyIQCStatus\": \"<span class=\\\"label label-default\\\" style=\\\"background-color: #d9534f; margin: 2px 0 !important; display: inline-table; line-height: initial; width: 82px !important;\\\">Non conforme</span>\"," +
-                " \"quarterlyIQCUnit\": \"Mois\"," +
-                " \"commissioningDate\": \""+commissioningDate+"\"," +
-                " \"generalStatusHtml\": \"<span class=\\\"label label-default\\\" style=\\\"background-color: #d9534f; margin: 2px 0 !important; display: inline-table; line-height: initial; width: 82px !important;\\\">Non conforme</span>\"," +
-                " \"hasFourQuarterIQC\": false," +
-                " \"generalStatusColor\": \"⬤\"," +
-                " \"medicalEquipmentId\":"+xRayGenerator.getId()+"," +
-                " \"monthlyIQCPlanning\":\""+""+"\" ," +
-                " \"quarterlyIQCStatus\": \"<span class=\\\"label label-default\\\" style=\\\"background-color: #d9534f; margin: 2px 0 !important; display: inline-table; line-height: initial; width: 82px !important;\\\">Non conforme</span>\"," +
-                " \"qualityControlSteps\": \"IQC/daily,IQC/initial,IQC/monthly,IQC/quarterly,\"," +
-                " \"dateOfLastMonthlyIQC\": \""+dateOfLastMonthlyIQC+"\"," +
-                " \"monthlyIQCPeriodicity\": \"1\"," +
-                " \"quarterlyIQCPeriodicity\": \"3\"," +
-                " \"hasIQCFollowingMaintenance\": false, " +
-                "\"hasIQCFollowingAChangeOfXRayTube\": false}";
+        LocalDate today = LocalDate.now();
+        return AttrsWriter.begin()
+                .string(Keys.YEAR, today.getYear())
+                .string(Keys.MONTH, today.getMonth())
+                .string(Keys.TASK_ID, "")
+                .bool(AttrsWriter.DELETED, false)
+                .reference(Keys.SERVICE, service).number(AttrsWriter.VERSION, 9).endObject()
+                .reference(Keys.LOCATION, location).number(AttrsWriter.VERSION, 3).endObject()
+                .reference(Keys.MODALITY, modality).number(AttrsWriter.VERSION, 2).endObject()
+                .string(Keys.IQC_STATUS, NOT_COMPLIANT)
+                .bool(Keys.HAS_DAILY_IQC, true)
+                .bool(Keys.HAS_IQC_AUDIT, false)
+                .bool(Keys.HAS_ANNUAL_EQC, false)
+                .bool(Keys.HAS_ANNUAL_IQC, false)
+                .string(Keys.SERIAL_NUMBER, serialNumber)
+                .string(Keys.GENERAL_STATUS, NOT_COMPLIANT)
+                .bool(Keys.HAS_INITIAL_IQC, true)
+                .bool(Keys.HAS_MONTHLY_IQC, true)
+                .string(Keys.DAILY_IQC_STATUS, NOT_COMPLIANT_HTML)
+                .string(Keys.MONTHLY_IQC_UNIT, "Mois")
+                .bool(Keys.HAS_FIVE_YEARS_EQC, false)
+                .bool(Keys.HAS_QUARTERLY_IQC, true)
+                .bool(Keys.HAS_SEMI_ANNUAL_EQC, false)
+                .bool(Keys.HAS_SEMI_ANNUAL_IQC, false)
+                .string(Keys.DATE_OF_LAST_QUARTERLY_IQC, dateOfLastQuarterLyIQC)
+                .string(Keys.DAILY_IQC_VIEW, dailyIQCView)
+                .string(Keys.INITIAL_IQC_STATUS, NOT_COMPLIANT_HTML)
+                .reference(Keys.INSTALLATION_TYPE, installationType)
+                .number(AttrsWriter.VERSION, 1)
+                .endObject()
+                .string(Keys.MONTHLY_IQC_STATUS, NOT_COMPLIANT_HTML)
+                .string(Keys.QUARTERLY_IQC_UNIT, "Mois")
+                .string(Keys.COMMISSIONING_DATE, commissioningDate)
+                .string(Keys.GENERAL_STATUS_HTML, NOT_COMPLIANT_HTML)
+                .bool(Keys.HAS_FOUR_QUARTER_IQC, false)
+                .string(Keys.GENERAL_STATUS_COLOR, "⬤")
+                .number(Keys.MEDICAL_EQUIPMENT_ID, xRayGenerator.getId())
+                .string(Keys.MONTHLY_IQC_PLANNING, "")
+                .string(Keys.QUARTERLY_IQC_STATUS, NOT_COMPLIANT_HTML)
+                .string(Keys.QUALITY_CONTROL_STEPS, "IQC/daily,IQC/initial,IQC/monthly,IQC/quarterly,")
+                .string(Keys.DATE_OF_LAST_MONTHLY_IQC, dateOfLastMonthlyIQC)
+                .string(Keys.MONTHLY_IQC_PERIODICITY, "1")
+                .string(Keys.QUARTERLY_IQC_PERIODICITY, "3")
+                .bool(Keys.HAS_IQC_FOLLOWING_MAINTENANCE, false)
+                .bool(Keys.HAS_IQC_FOLLOWING_A_CHANGE_OF_X_RAY_TUBE, false)
+                .end();
     }
 }
@@ -1,29 +1,27 @@
 package com.dosilink.entity;
 
-
 import com.axelor.apps.base.db.Partner;
 import com.axelor.apps.hr.db.Employee;
 import com.axelor.apps.hr.db.EmploymentContract;
 import com.axelor.apps.message.db.EmailAddress;
 import com.axelor.db.Model;
 import com.axelor.meta.db.MetaJsonRecord;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.WorkerColumns;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Date;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 
 public class RadiationWorker extends Model {
 
-    private static final int  RADIATION_WORKER_SISERINumber = 10;
-    private static final int  RADIATION_WORKER_exposureToIonizingRadiation = 8;
-    private static final int  RADIATION_WORKER_magneticFieldExposures = 9;
-    private static final int RADIOLOGICAL_CLASSIFICATION = 13;
 
     private Employee employee;
     private String name;
-    private String defaultStatus = "À Enregistrer";
+    private String defaultStatus = DEFAULT_STATUS;
 
     private String ionizingRadiationStep;
     private String magneticFieldStep;
@@ -45,11 +43,11 @@ public class RadiationWorker extends Model {
     private Integer civility;
     private String activeAttribution = "Non concernée";
     private String passiveAttribution = "Non attribuée";
-    private String patientRadiationProtectionTraining = "Non concerné";
-    private String staffRadiationProtectionTraining = "Non concerné";
-    private String activeDosimeterUseTraining = "Non concerné";
-    private String magnetoprotectionTraining = "Non concerné";
-    private String medicalDevicesTraining = "Non concerné";
+    private String patientRadiationProtectionTraining = NOT_CONCERNED;
+    private String staffRadiationProtectionTraining = NOT_CONCERNED;
+    private String activeDosimeterUseTraining = NOT_CONCERNED;
+    private String magnetoprotectionTraining = NOT_CONCERNED;
+    private String medicalDevicesTraining = NOT_CONCERNED;
     private String status = defaultStatus;
     private String trainingStatus = defaultStatus;
     private String medicalFollowUpStatus = defaultStatus;
@@ -66,7 +64,7 @@ public class RadiationWorker extends Model {
     private EmploymentContract contract;
 
 
-    public RadiationWorker(Employee employee, Row row, MetaJsonRecord functionGrade, MetaJsonRecord serviceAffectation, Partner partner, MetaJsonRecord[] doseConstraint, MetaJsonRecord[] individualEvaluation, MetaJsonRecord[] passiveDosimetry) {
+    public RadiationWorker(Employee employee, SheetRow row, MetaJsonRecord functionGrade, MetaJsonRecord serviceAffectation, Partner partner, MetaJsonRecord[] doseConstraint, MetaJsonRecord[] individualEvaluation, MetaJsonRecord[] passiveDosimetry) {
         this.employee = employee;
         this.functionGrade = functionGrade;
         this.serviceAffectation = serviceAffectation;
@@ -76,18 +74,18 @@ public class RadiationWorker extends Model {
         this.fullName = partner.getFullName();
         this.birthDate = employee.getBirthDate();
         this.civility = partner.getTitleSelect();
-        if (validRow(row, RADIATION_WORKER_SISERINumber)) {
-            this.SISERINumber = row.getCell(RADIATION_WORKER_SISERINumber).getNumericCellValue();
+        if (row.hasCell(WorkerColumns.SISERI_NUMBER)) {
+            this.SISERINumber = row.getCell(WorkerColumns.SISERI_NUMBER).getNumericCellValue();
         }
-        if (validRowString(row, RADIATION_WORKER_exposureToIonizingRadiation) && validRow(row, RADIATION_WORKER_magneticFieldExposures)) {
-            switch (row.getCell(RADIATION_WORKER_exposureToIonizingRadiation).getStringCellValue()) {
+        if (row.hasValue(WorkerColumns.IONIZING_RADIATION_EXPOSURE) && row.hasCell(WorkerColumns.MAGNETIC_FIELD_EXPOSURE)) {
+            switch (row.getString(WorkerColumns.IONIZING_RADIATION_EXPOSURE)) {
                 case "Oui":
                     this.exposureToIonizingRadiation = true;
                     break;
                 case "Non":
                     this.exposureToIonizingRadiation = false;
             }
-            switch (row.getCell(RADIATION_WORKER_magneticFieldExposures).getStringCellValue()) {
+            switch (row.getCell(WorkerColumns.MAGNETIC_FIELD_EXPOSURE).getStringCellValue()) {
                 case "Oui":
                     this.magneticFieldExposures = true;
                     break;
@@ -96,8 +94,8 @@ public class RadiationWorker extends Model {
             }
 
         }
-        if(validRowString(row,RADIOLOGICAL_CLASSIFICATION)){
-            switch (row.getCell(RADIOLOGICAL_CLASSIFICATION).getStringCellValue()){
+        if(row.hasValue(WorkerColumns.RADIOLOGICAL_CLASSIFICATION)){
+            switch (row.getString(WorkerColumns.RADIOLOGICAL_CLASSIFICATION)){
                 case "Non classé":
                     this.radiologicalClassification = "1";
                     break;
@@ -147,62 +145,183 @@ public class RadiationWorker extends Model {
         return metaJsonRecord;
     }
 
-    private boolean validRow(Row row, int NUM_COLUMN) {
-        return row.getCell(NUM_COLUMN) != null;
+
+    private static final Pattern EMPLOYEE_ID =
+        Pattern.compile("\"employee\"\\s*:\\s*\\{[^{}]*?\"id\"\\s*:\\s*\"?(\\d+)");
+
+    /** Returns the id of the employee referred to by the attrs of a worker, or null. */
+    public static Long employeeIdOf(String attrs) {
+        Matcher matcher = EMPLOYEE_ID.matcher(String.valueOf(attrs));
+        return matcher.find() ? Long.valueOf(matcher.group(1)) : null;
     }
 
-    private String getAttrs() {
-        return " {\"name\": \"" + this.name + "\", "
-                + "\"step\": \""+this.step+"\", "
-                + " \"email\": \"" + this.email.getAddress() + "\", "
-                + " \"status\": \"À Enregistrer\", "
-                + "\"deleted\": \"" + this.deleted + "\", "
-                + "\"civility\": " + this.civility + ", "
-                + "\"radiologicalClassification\": " + this.radiologicalClassification + ", "
-                + "\"birthDate\": \"" + this.employee.getBirthDate() + "\", "
-                + "\"employee\": {\"id\": " + employee.getId() + ", \"name\": \"" + employee.getName() + "\"}, "
-                + "\"finished\": \"" + this.finished + "\", "
-                + "\"fullName\": \"" + this.fullName + "\", "
-                + "\"firstName\": \"" + this.firstName + "\", "
-                + "\"firstStep\": \""+this.firstStep+"\", "
-                + "\"isEmployee\": true, "
-                + "\"reinforced\": true, "
-                + "\"minorWorker\": "+this.minWorker+ ", "
-                + "\"SISERINumber\": \"" +this.SISERINumber + "\" "
-                + ",\"functionGrade\": {\"id\": " + functionGrade.getId() + ", \"name\": \"" + functionGrade.getName() + "\"}, "
-                + "\"contractNature\": {\"id\": " + contract.getId() + ", \"name\": \"" + contract.getContractType().getName() + "\"}, "
-                + "\"doseConstraint\": [{\"id\": " + doseConstraint[0].getId() + "}, {\"id\": " + doseConstraint[1].getId() + "}, {\"id\": " + doseConstraint[2].getId() + "}], "
-                + "\"frequentedArea\": \"1\", "
-                + "\"trainingStatus\": \""+this.trainingStatus+"\", "
-                + "\"medicalFollowUpStatus\": \""+this.medicalFollowUpStatus+"\", "
-                + "\"dosimetricFollowUpStatus\": \""+this.dosimetricFollowUpStatus+"\", "
-                + "\"oldDosimetricFollowUpStatus\": \""+this.oldDosimetricFollowUpStatus+"\", "
-                + "\"statusLabel\": \"<span class=\\\"label label-default\\\" style=\\\"background-color: #858585; margin: 2px 0 !important; display: inline-table; line-height: initial; width: 82px !important;\\\">À enregistrer</span>\","
-                + "\"trainingStatusHtml\": \"<span class=\\\"label label-default\\\" style=\\\"background-color: #858585; margin: 2px 0 !important; display: inline-table; line-height: initial; width: 82px !important;\\\">À enregistrer</span>\","
-                + "\"medicalFollowUpStatusHtml\": \"<span class=\\\"label label-default\\\" style=\\\"background-color: #858585; margin: 2px 0 !important; display: inline-table; line-height: initial; width: 82px !important;\\\">À enregistrer</span>\","
-                + "\"dosimetricFollowUpStatusHtml\": \"<span class=\\\"label label-default\\\" style=\\\"background-color: #858585; margin: 2px 0 !important; display: inline-table; line-height: initial; width: 82px !important;\\\">À enregistrer</span>\","
-                + "\"presenceType\":\""+""+"\" ,"
-                + "\"weeklyDay\":\""+""+"\" ,"
-                + "\"estimatedDepartureDate\": \""+""+"\" ,"
-                + "\"endContractDate\": \"" + contract.getEndContractDetails() + "\", " 
-                + "\"passiveDosimetry\": [{\"id\": " + passiveDosimetry[0].getId() + "}, {\"id\": " + passiveDosimetry[1].getId() + "}, {\"id\": " + passiveDosimetry[2].getId() + "}, {\"id\": " + passiveDosimetry[3].getId() + "}], " 
-                + " \"activeAttribution\": \"Non concernée\", " 
-                + "\"startContractDate\": \"" + contract.getStartDate() + "\", "
-                + "\"endContractDate\": \"" + contract.getEndDate() + "\", "
-                + "\"passiveAttribution\": \"Non attribuée\", " 
-                + "\"serviceAffectation\": {\"id\": " + serviceAffectation.getId() + ", \"name\": \"" + serviceAffectation.getName() + "\"}, " 
-                + "\"individualEvaluation\": [{\"id\": " + individualEvaluation[0].getId() + "}, {\"id\": " + individualEvaluation[1].getId() + "}], " 
-                + "\"medicalFollowUpStatus\": \"À Enregistrer\", "
-                + "\"magneticFieldExposures\": \"" + this.magneticFieldExposures + "\", " 
-                + "\"medicalDevicesTraining\": \"Non concerné\", "
-                + "\"magnetoprotectionTraining\": \"Non concerné\", " 
-                + "\"activeDosimeterUseTraining\": \"Non concerné\", " 
-                + "\"exposureToIonizingRadiation\":\"" + this.exposureToIonizingRadiation + "\", " 
-                + "\"staffRadiationProtectionTraining\": \"Non concerné\", " 
-                + "\"patientRadiationProtectionTraining\": \"Non concerné\""
-                + "}";
+    private static final String DEFAULT_STATUS = "À Enregistrer";
+    private static final String NOT_CONCERNED = "Non concerné";
+    private static final String TO_RECORD_HTML =
+        "<span class=\"label label-default\" style=\"background-color: #858585; margin: 2px 0 "
+        + "!important; display: inline-table; line-height: initial; width: 82px !important;\">À "
+        + "enregistrer</span>";
+
+    /** The keys of the attrs. */
+    private static final class Keys {
+        static final AttrsWriter.Key STEP = AttrsWriter.key("step");
+        static final AttrsWriter.Key EMAIL = AttrsWriter.key("email");
+        static final AttrsWriter.Key STATUS = AttrsWriter.key("status");
+        static final AttrsWriter.Key CIVILITY = AttrsWriter.key("civility");
+        static final AttrsWriter.Key RADIOLOGICAL_CLASSIFICATION =
+                AttrsWriter.key("radiologicalClassification");
+        static final AttrsWriter.Key BIRTH_DATE = AttrsWriter.key("birthDate");
+        static final AttrsWriter.Key EMPLOYEE = AttrsWriter.key("employee");
+        static final AttrsWriter.Key FINISHED = AttrsWriter.key("finished");
+        static final AttrsWriter.Key FULL_NAME = AttrsWriter.key("fullName");
+        static final AttrsWriter.Key FIRST_NAME = AttrsWriter.key("firstName");
+        static final AttrsWriter.Key FIRST_STEP = AttrsWriter.key("firstStep");
+        static final AttrsWriter.Key IS_EMPLOYEE = AttrsWriter.key("isEmployee");
+        static final AttrsWriter.Key REINFORCED = AttrsWriter.key("reinforced");
+        static final AttrsWriter.Key MINOR_WORKER = AttrsWriter.key("minorWorker");
+        static final AttrsWriter.Key SISERI_NUMBER = AttrsWriter.key("SISERINumber");
+        static final AttrsWriter.Key FUNCTION_GRADE = AttrsWriter.key("functionGrade");
+        static final AttrsWriter.Key CONTRACT_NATURE = AttrsWriter.key("contractNature");
+        static final AttrsWriter.Key DOSE_CONSTRAINT = AttrsWriter.key("doseConstraint");
+        static final AttrsWriter.Key FREQUENTED_AREA = AttrsWriter.key("frequentedArea");
+        static final AttrsWriter.Key TRAINING_STATUS = AttrsWriter.key("trainingStatus");
+        static final AttrsWriter.Key MEDICAL_FOLLOW_UP_STATUS =
+                AttrsWriter.key("medicalFollowUpStatus");
+        static final AttrsWriter.Key DOSIMETRIC_FOLLOW_UP_STATUS =
+                AttrsWriter.key("dosimetricFollowUpStatus");
+        static final AttrsWriter.Key OLD_DOSIMETRIC_FOLLOW_UP_STATUS =
+                AttrsWriter.key("oldDosimetricFollowUpStatus");
+        static final AttrsWriter.Key STATUS_LABEL = AttrsWriter.key("statusLabel");
+        static final AttrsWriter.Key TRAINING_STATUS_HTML = AttrsWriter.key("trainingStatusHtml");
+        static final AttrsWriter.Key MEDICAL_FOLLOW_UP_STATUS_HTML =
+                AttrsWriter.key("medicalFollowUpStatusHtml");
+        static final AttrsWriter.Key DOSIMETRIC_FOLLOW_UP_STATUS_HTML =
+                AttrsWriter.key("dosimetricFollowUpStatusHtml");
+        static final AttrsWriter.Key PRESENCE_TYPE = AttrsWriter.key("presenceType");
+        static final AttrsWriter.Key WEEKLY_DAY = AttrsWriter.key("weeklyDay");
+        static final AttrsWriter.Key ESTIMATED_DEPARTURE_DATE =
+                AttrsWriter.key("estimatedDepartureDate");
+        static final AttrsWriter.Key PASSIVE_DOSIMETRY = AttrsWriter.key("passiveDosimetry");
+        static final AttrsWriter.Key ACTIVE_ATTRIBUTION = AttrsWriter.key("activeAttribution");
+        static final AttrsWriter.Key START_CONTRACT_DATE = AttrsWriter.key("startContractDate");
+        static final AttrsWriter.Key END_CONTRACT_DATE = AttrsWriter.key("endContractDate");
+        static final AttrsWriter.Key PASSIVE_ATTRIBUTION = AttrsWriter.key("passiveAttribution");
+        static final AttrsWriter.Key SERVICE_AFFECTATION = AttrsWriter.key("serviceAffectation");
+        static final AttrsWriter.Key INDIVIDUAL_EVALUATION =
+                AttrsWriter.key("individualEvaluation");
+        static final AttrsWriter.Key MAGNETIC_FIELD_EXPOSURES =
+                AttrsWriter.key("magneticFieldExposures");
+        static final AttrsWriter.Key MEDICAL_DEVICES_TRAINING =
+                AttrsWriter.key("medicalDevicesTraining");
+        static final AttrsWriter.Key MAGNETOPROTECTION_TRAINING =
+                AttrsWriter.key("magnetoprotectionTraining");
+        static final AttrsWriter.Key ACTIVE_DOSIMETER_USE_TRAINING =
+                AttrsWriter.key("activeDosimeterUseTraining");
+        static final AttrsWriter.Key EXPOSURE_TO_IONIZING_RADIATION =
+                AttrsWriter.key("exposureToIonizingRadiation");
+        static final AttrsWriter.Key STAFF_RADIATION_PROTECTION_TRAINING =
+                AttrsWriter.key("staffRadiationProtectionTraining");
+        static final AttrsWriter.Key PATIENT_RADIATION_PROTECTION_TRAINING =
+                AttrsWriter.key("patientRadiationProtectionTraining");
     }
-    private boolean validRowString(Row row, int NUM_COLUMN) {
-        return !(row.getCell(NUM_COLUMN) == null || row.getCell(NUM_COLUMN).getStringCellValue().isEmpty());
+
+    /** The attrs of a worker, the slots filled in {@link #getAttrs()}. */
+    private static final AttrsTemplate ATTRS =
+            AttrsWriter.template()
+                    .slot(AttrsWriter.NAME)
+                    .slot(Keys.STEP)
+                    .slot(Keys.EMAIL)
+                    .string(Keys.STATUS, DEFAULT_STATUS)
+                    .slot(AttrsWriter.DELETED)
+                    .slot(Keys.CIVILITY)
+                    .slot(Keys.RADIOLOGICAL_CLASSIFICATION)
+                    .slot(Keys.BIRTH_DATE)
+                    .object(Keys.EMPLOYEE)
+                    .slot(AttrsWriter.ID)
+                    .slot(AttrsWriter.NAME)
+                    .endObject()
+                    .slot(Keys.FINISHED)
+                    .slot(Keys.FULL_NAME)
+                    .slot(Keys.FIRST_NAME)
+                    .slot(Keys.FIRST_STEP)
+                    .bool(Keys.IS_EMPLOYEE, true)
+                    .bool(Keys.REINFORCED, true)
+                    .slot(Keys.MINOR_WORKER)
+                    .slot(Keys.SISERI_NUMBER)
+                    .object(Keys.FUNCTION_GRADE)
+                    .slot(AttrsWriter.ID)
+                    .slot(AttrsWriter.NAME)
+                    .endObject()
+                    .object(Keys.CONTRACT_NATURE)
+                    .slot(AttrsWriter.ID)
+                    .slot(AttrsWriter.NAME)
+                    .endObject()
+                    .slot(Keys.DOSE_CONSTRAINT)
+                    .string(Keys.FREQUENTED_AREA, "1")
+                    .string(Keys.TRAINING_STATUS, DEFAULT_STATUS)
+                    .string(Keys.DOSIMETRIC_FOLLOW_UP_STATUS, DEFAULT_STATUS)
+                    .string(Keys.OLD_DOSIMETRIC_FOLLOW_UP_STATUS, DEFAULT_STATUS)
+                    .string(Keys.STATUS_LABEL, TO_RECORD_HTML)
+                    .string(Keys.TRAINING_STATUS_HTML, TO_RECORD_HTML)
+                    .string(Keys.MEDICAL_FOLLOW_UP_STATUS_HTML, TO_RECORD_HTML)
+                    .string(Keys.DOSIMETRIC_FOLLOW_UP_STATUS_HTML, TO_RECORD_HTML)
+                    .string(Keys.PRESENCE_TYPE, "")
+                    .string(Keys.WEEKLY_DAY, "")
+                    .string(Keys.ESTIMATED_DEPARTURE_DATE, "")
+                    .slot(Keys.PASSIVE_DOSIMETRY)
+                    .string(Keys.ACTIVE_ATTRIBUTION, "Non concernée")
+                    .slot(Keys.START_CONTRACT_DATE)
+                    .slot(Keys.END_CONTRACT_DATE)
+                    .string(Keys.PASSIVE_ATTRIBUTION, "Non attribuée")
+                    .object(Keys.SERVICE_AFFECTATION)
+                    .slot(AttrsWriter.ID)
+                    .slot(AttrsWriter.NAME)
+                    .endObject()
+                    .slot(Keys.INDIVIDUAL_EVALUATION)
+                    .string(Keys.MEDICAL_FOLLOW_UP_STATUS, DEFAULT_STATUS)
+                    .slot(Keys.MAGNETIC_FIELD_EXPOSURES)
+                    .string(Keys.MEDICAL_DEVICES_TRAINING, NOT_CONCERNED)
+                    .string(Keys.MAGNETOPROTECTION_TRAINING, NOT_CONCERNED)
+                    .string(Keys.ACTIVE_DOSIMETER_USE_TRAINING, NOT_CONCERNED)
+                    .slot(Keys.EXPOSURE_TO_IONIZING_RADIATION)
+                    .string(Keys.STAFF_RADIATION_PROTECTION_TRAINING, NOT_CONCERNED)
+                    .string(Keys.PATIENT_RADIATION_PROTECTION_TRAINING, NOT_CONCERNED)
+                    .compile();
+
+    private String getAttrs() {
+        // The medical follow-up status and the end of the contract were written twice, the database
+        // keeping the last of each: "À Enregistrer" and the end date of the contract.
+        return ATTRS.fill()
+                .string(name)
+                .string(step)
+                .string(email.getAddress())
+                .string(deleted)
+                .number(civility)
+                .number(radiologicalClassification == null
+                        ? null
+                        : Integer.valueOf(radiologicalClassification))
+                .string(employee.getBirthDate())
+                .number(employee.getId())
+                .string(employee.getName())
+                .string(finished)
+                .string(fullName)
+                .string(firstName)
+                .string(firstStep)
+                .bool(minWorker)
+                .string(SISERINumber)
+                .number(functionGrade.getId())
+                .string(functionGrade.getName())
+                .number(contract.getId())
+                .string(contract.getContractType().getName())
+                .ids(doseConstraint)
+                .ids(passiveDosimetry)
+                .string(contract.getStartDate())
+                .string(contract.getEndDate())
+                .number(serviceAffectation.getId())
+                .string(serviceAffectation.getName())
+                .ids(individualEvaluation)
+                .string(magneticFieldExposures)
+                .string(exposureToIonizingRadiation)
+                .end();
     }
 }
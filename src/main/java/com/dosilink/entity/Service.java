@@ -2,14 +2,12 @@ package com.dosilink.entity;
 
 import com.axelor.db.Model;
 import com.axelor.meta.db.MetaJsonRecord;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.StructureColumns;
 
 import java.util.Objects;
 
 public class Service extends Model {
-  private static final int SERVICE_NAME = 2;
-  private static final int SERVICE_SITE = 0;
-  private static final int SERVICE_RESPONSIBLE = 4;
 
   private String name;
   private String responsible;
@@ -22,17 +20,14 @@ public class Service extends Model {
     this.site = site;
   }
 
-  public Service(Row row, MetaJsonRecord site) {
-    if (validRowString(row, SERVICE_NAME)) {
-      this.name = row.getCell(SERVICE_NAME).getStringCellValue();
-      // this.responsible = row.getCell(SERVICE_RESPONSIBLE).getStringCellValue();
+  public Service(SheetRow row, MetaJsonRecord site) {
+    if (row.hasValue(StructureColumns.SERVICE_NAME)) {
+      this.name = row.getString(StructureColumns.SERVICE_NAME);
+      // this.responsible = row.getString(StructureColumns.SERVICE_RESPONSIBLE);
       this.site = site;
     }
   }
 
-  private boolean validRowString(Row row, int NUM_COLUMN) {
-    return !(row.getCell(NUM_COLUMN) == null || row.getCell(NUM_COLUMN).getStringCellValue().isEmpty());
-  }
 
   @Override
   public boolean equals(Object o) {
@@ -110,13 +105,20 @@ public class Service extends Model {
     return metaJsonRecord;
   }
 
+  /** The keys of the attrs. */
+  private static final class Keys {
+    static final AttrsWriter.Key SITE = AttrsWriter.key("site");
+  }
+
   private String getAttrs() {
-    return "{\"name\":\""
-        + name
-        + "\",\"site\":{\"id\":\""
-        + site.getId()
-        + "\",\"name\":\""
-        + site.getName()
-        + "\",\"$version\":\"1\"},\"deleted\":\"false\"}";
+    return AttrsWriter.begin()
+        .string(AttrsWriter.NAME, name)
+        .object(Keys.SITE)
+        .number(AttrsWriter.ID, site.getId())
+        .string(AttrsWriter.NAME, site.getName())
+        .string(AttrsWriter.VERSION, "1")
+        .endObject()
+        .string(AttrsWriter.DELETED, "false")
+        .end();
   }
 }
@@ -2,25 +2,24 @@ package com.dosilink.entity;
 
 import com.axelor.db.Model;
 import com.axelor.meta.db.MetaJsonRecord;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.StructureColumns;
 
 import java.util.Objects;
 
 public class Site extends Model {
 
-  private static final int SITE_NAME = 0;
-  private static final int SITE_ADDRESS = 1;
   private String name;
   private String address;
 
   private static final boolean deleted = false;
 
-  public Site(Row row) {
-    if (validRowString(row, SITE_NAME)) {
-      this.name = row.getCell(SITE_NAME).getStringCellValue();
+  public Site(SheetRow row) {
+    if (row.hasValue(StructureColumns.SITE_NAME)) {
+      this.name = row.getString(StructureColumns.SITE_NAME);
     }
-    if (validRowString(row, SITE_ADDRESS)) {
-      this.address = row.getCell(SITE_ADDRESS).getStringCellValue();
+    if (row.hasValue(StructureColumns.SITE_ADDRESS)) {
+      this.address = row.getString(StructureColumns.SITE_ADDRESS);
     }
   }
 
@@ -86,10 +85,16 @@ public class Site extends Model {
     return metaJsonRecord;
   }
 
-  private String getAttrs() {
-    return "{\"name\": \"" + name + "\",\"adress\": \"" + address + "\",\"deleted\": \"false\"}";
+  /** The keys of the attrs. */
+  private static final class Keys {
+    static final AttrsWriter.Key ADRESS = AttrsWriter.key("adress");
   }
-  private boolean validRowString(Row row, int NUM_COLUMN) {
-    return !(row.getCell(NUM_COLUMN) == null || row.getCell(NUM_COLUMN).getStringCellValue().isEmpty());
+
+  private String getAttrs() {
+    return AttrsWriter.begin()
+        .string(AttrsWriter.NAME, name)
+        .string(Keys.ADRESS, address)
+        .string(AttrsWriter.DELETED, "false")
+        .end();
   }
 }
@@ -2,17 +2,14 @@ package com.dosilink.entity;
 
 import com.axelor.db.Model;
 import com.axelor.meta.db.MetaJsonRecord;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.TrainingColumns;
 
 public class Training extends Model {
 
-  private static final int TRAINING_NAME = 1;
 
-  private static final int TRAINING_PERIODICITY = 5;
 
-  private static final int TRAINING_Periodique = 4;
 
-  private static final int TRAINING_COMMENT = 6;
 
   private MetaJsonRecord type;
   private String name;
@@ -28,18 +25,18 @@ public class Training extends Model {
   private String comment;
   private final boolean deleted = false;
 
-  public Training(Row row, MetaJsonRecord type, MetaJsonRecord functionGrad) {
-    if (validRowString(row, TRAINING_NAME)) {
-      this.name = row.getCell(TRAINING_NAME).getStringCellValue();
+  public Training(SheetRow row, MetaJsonRecord type, MetaJsonRecord functionGrad) {
+    if (row.hasValue(TrainingColumns.NAME)) {
+      this.name = row.getString(TrainingColumns.NAME);
     }
-    if (validRowString(row, TRAINING_PERIODICITY)) {
-      this.periodicity = row.getCell(TRAINING_PERIODICITY).getStringCellValue();
+    if (row.hasValue(TrainingColumns.PERIODICITY)) {
+      this.periodicity = row.getString(TrainingColumns.PERIODICITY);
     }
-    if (validRow(row, TRAINING_Periodique)) {
-      this.expectedSkills = row.getCell(TRAINING_Periodique).getNumericCellValue();
+    if (row.hasCell(TrainingColumns.PERIODIC)) {
+      this.expectedSkills = row.getCell(TrainingColumns.PERIODIC).getNumericCellValue();
     }
-    if (validRowString(row, TRAINING_COMMENT)) {
-      this.comment = row.getCell(TRAINING_COMMENT).getStringCellValue();
+    if (row.hasValue(TrainingColumns.COMMENT)) {
+      this.comment = row.getString(TrainingColumns.COMMENT);
     }
     this.type = type;
     this.functionGrad = functionGrad;
@@ -157,26 +154,32 @@ public class Training extends Model {
     return metaJsonRecord;
   }
 
-  private boolean validRow(Row row, int NUM_COLUMN) {
-    return row.getCell(NUM_COLUMN) != null;
+
+  /** The keys of the attrs. */
+  private static final class Keys {
+    static final AttrsWriter.Key TYPE = AttrsWriter.key("type");
+    static final AttrsWriter.Key PERIODICITY = AttrsWriter.key("periodicity");
+    static final AttrsWriter.Key FUNCTION_GRAD = AttrsWriter.key("functionGrad");
+    static final AttrsWriter.Key TRAINING_STEP = AttrsWriter.key("trainingStep");
   }
 
   private String getAttrs() {
-    return "{\"name\": \""
-        + name
-        + "\", \"type\": {\"id\":\""
-        + type.getId()
-        + "\", \"name\": \""
-        + type.getName()
-        + "\", \"$version\": 5}, \"deleted\": \"false\", \"periodicity\": \""
-        + periodicity
-        + "\", \"functionGrad\": [{\"id\":\""
-        + functionGrad.getId()
-        + "\",\"name\":\""
-        + type.getName()
-        + "\"}], \"trainingStep\": \"1\"}";
-  }
-  private boolean validRowString(Row row, int NUM_COLUMN) {
-    return !(row.getCell(NUM_COLUMN) == null || row.getCell(NUM_COLUMN).getStringCellValue().isEmpty());
+    return AttrsWriter.begin()
+        .string(AttrsWriter.NAME, name)
+        .object(Keys.TYPE)
+        .number(AttrsWriter.ID, type.getId())
+        .string(AttrsWriter.NAME, type.getName())
+        .number(AttrsWriter.VERSION, 5)
+        .endObject()
+        .string(AttrsWriter.DELETED, "false")
+        .string(Keys.PERIODICITY, periodicity)
+        .array(Keys.FUNCTION_GRAD)
+        .object()
+        .number(AttrsWriter.ID, functionGrad.getId())
+        .string(AttrsWriter.NAME, type.getName())
+        .endObject()
+        .endArray()
+        .string(Keys.TRAINING_STEP, "1")
+        .end();
   }
 }
@@ -2,21 +2,18 @@ package com.dosilink.entity;
 
 import com.axelor.db.Model;
 import com.axelor.meta.db.MetaJsonRecord;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.GeneratorColumns;
 
 public class WorkStation extends Model {
-    private static final int WORK_STATION_NAME =7;
     private String name;
 
-    public WorkStation(Row row) {
-      if(validRowString(row,WORK_STATION_NAME)){
-          this.name = row.getCell(WORK_STATION_NAME).getStringCellValue();
+    public WorkStation(SheetRow row) {
+      if(row.hasValue(GeneratorColumns.WORK_STATION)){
+          this.name = row.getString(GeneratorColumns.WORK_STATION);
       }
     }
 
-    private boolean validRowString(Row row, int NUM_COLUMN) {
-        return !(row.getCell(NUM_COLUMN) == null || row.getCell(NUM_COLUMN).getStringCellValue().isEmpty());
-    }
 
     @Override
     public Long getId() {
@@ -34,6 +31,9 @@ public class WorkStation extends Model {
         return metaJsonRecord;
     }
     private String getAttrs() {
-        return "{\"name\": \"" + name + "\",\"deleted\": \"false\"}";
+        return AttrsWriter.begin()
+                .string(AttrsWriter.NAME, name)
+                .string(AttrsWriter.DELETED, "false")
+                .end();
     }
 }
@@ -2,20 +2,15 @@ package com.dosilink.entity;
 
 import com.axelor.db.Model;
 import com.axelor.meta.db.MetaJsonRecord;
-import org.apache.poi.ss.usermodel.Row;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.SheetSchemas.GeneratorColumns;
 
 import java.time.LocalDate;
-import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 
 public class XRayGenerator extends Model {
-  private static final int MODEL = 4;
-  private static final int TECHNOLOGY = 8;
 
-  private static final int SERIAL_NUMBER = 5;
-  private static final int MACHINE_STATE = 6;
-  private static final int COMMOSSION_ING_DATE = 10;
   private MetaJsonRecord modality ;
   private MetaJsonRecord service;
   private MetaJsonRecord location;
@@ -31,18 +26,18 @@ public class XRayGenerator extends Model {
 
 
 
-  public XRayGenerator(Row row, MetaJsonRecord modality, MetaJsonRecord service, MetaJsonRecord location, MetaJsonRecord brand, MetaJsonRecord workstations, MetaJsonRecord installationType) {
-    if(validRowString(row,MODEL)){
-      this.model = row.getCell(MODEL).getStringCellValue();
+  public XRayGenerator(SheetRow row, MetaJsonRecord modality, MetaJsonRecord service, MetaJsonRecord location, MetaJsonRecord brand, MetaJsonRecord workstations, MetaJsonRecord installationType) {
+    if(row.hasValue(GeneratorColumns.MODEL)){
+      this.model = row.getString(GeneratorColumns.MODEL);
     }
-    if(validRow(row,SERIAL_NUMBER)){
-      this.serialNumber = row.getCell(SERIAL_NUMBER).getNumericCellValue();
+    if(row.hasCell(GeneratorColumns.SERIAL_NUMBER)){
+      this.serialNumber = row.getCell(GeneratorColumns.SERIAL_NUMBER).getNumericCellValue();
     }
-    if(validRowString(row,MACHINE_STATE)){
-      this.machineState = row.getCell(MACHINE_STATE).getStringCellValue();
+    if(row.hasValue(GeneratorColumns.MACHINE_STATE)){
+      this.machineState = row.getString(GeneratorColumns.MACHINE_STATE);
     }
-    if(validRowString(row,TECHNOLOGY)){
-      switch (row.getCell(TECHNOLOGY).getStringCellValue()){
+    if(row.hasValue(GeneratorColumns.TECHNOLOGY)){
+      switch (row.getString(GeneratorColumns.TECHNOLOGY)){
         case "Numérique directe":
           this.technology = "ND";
           break;
@@ -53,98 +48,12 @@ public class XRayGenerator extends Model {
           this.technology = "Analog";
       }
     }
-    if(validRow(row,COMMOSSION_ING_DATE)){
-      this.commissioningDate = row.getCell(COMMOSSION_ING_DATE).getDateCellValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    if(row.hasCell(GeneratorColumns.COMMISSIONING_DATE)){
+      this.commissioningDate = row.getLocalDate(GeneratorColumns.COMMISSIONING_DATE);
     }
     this.modality = modality;
     this.installationType = installationType;
-    if(modality.getName() != "Accélérateur de particules" && modality.getName() != "Imageur RX de centrage" && modality.getName() != "Scanner de radiothérapie" && modality.getName() != "Arceau mobile" && modality.getName() != "Cône Beam" && modality.getName() != "Installation de Radiologie Rétroalvéolaire" && modality.getName() != "Lithotripteur" && modality.getName() != "Mini C-Arm" && modality.getName() != "Mobile de graphie" && modality.getName() != "Panoramique dentaire" && modality.getName() != "Salle d’Os" && modality.getName() != "Salle d’os + Télécrâne" && modality.getName() != "Salle interventionnelle fixe biplan" && modality.getName() != "Salle interventionnelle fixe monoplan" && modality.getName() != "Scanner bi-tube" && modality.getName() != "Scanner monotube" && modality.getName() != "Table télécommandée" && modality.getName() != "Table télécommandée + suspension"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage";
-    }else if(modality.getName() == "Médecine nucléaire"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage";
-    }else if(modality.getName() == "Radiothérapie" && installationType.getName() == "Accélérateur de particules"){
-      this.listSteps = "RadiotherapyAccelerator,AcceleratorGenerator,XRTube,DigitalImage";
-    }else if(modality.getName() == "Radiothérapie" && installationType.getName() == "Imageur RX de centrage" && technology == "ND"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage,AntiDiffusingGrid,RegisterOperations";
-    }else if(modality.getName() == "Radiothérapie" && installationType.getName() == "Imageur RX de centrage" && technology == "NID"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,AntiDiffusingGrid,DirectPlateReadingSystem,RegisterOperations";
-    }else if(modality.getName() == "Radiothérapie" && installationType.getName() == "Imageur RX de centrage" && technology == "Analog"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,AntiDiffusingGrid,DevelopingMachine,UsedFilms,RegisterOperations";
-    }else if(modality.getName() == "Radiothérapie" && installationType.getName() == "Scanner dosimétrique"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube";
-    }else if(modality.getName() == "Radiologie Conventionnelle" && installationType.getName() == "Table télécommandée" && technology == "ND"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage,AntiDiffusingGrid,RegisterOperations";
-    }else if(modality.getName() == "Radiologie Conventionnelle" && installationType.getName() == "Salle d’Os" && technology == "ND"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage,AntiDiffusingGrid,RegisterOperations";
-    }else if(modality.getName() == "Radiologie Conventionnelle" && installationType.getName() == "Salle d’os + Télécrâne" && technology == "ND"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage,RegisterOperations";
-    }else if(modality.getName() == "Radiologie Conventionnelle" && installationType.getName() == "Mobile de graphie" && technology == "ND"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage,RegisterOperations";
-    }else if(modality.getName() == "Radiologie Conventionnelle" && installationType.getName() == "Table télécommandée + suspension" && technology == "ND"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage,RegisterOperations";
-    }else if(modality.getName() == "Radiologie Conventionnelle" && installationType.getName() == "Table télécommandée" && technology == "NID"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,ImageIntensif,AntiDiffusingGrid,DirectPlateReadingSystem,RegisterOperations";
-    }else if(modality.getName() == "Radiologie Conventionnelle" && installationType.getName() == "Salle d’Os" && technology == "NID"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,AntiDiffusingGrid,DirectPlateReadingSystem,RegisterOperations";
-    }else if(modality.getName() == "Radiologie Conventionnelle" && installationType.getName() == "Salle d’os + Télécrâne" && technology == "NID"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DirectPlateReadingSystem,RegisterOperations";
-    }else if(modality.getName() == "Radiologie Conventionnelle" && installationType.getName() == "Mobile de graphie" && technology == "NID"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DirectPlateReadingSystem,RegisterOperations";
-    }else if(modality.getName() == "Radiologie Conventionnelle" && installationType.getName() == "Table télécommandée + suspension" && technology == "NID"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DirectPlateReadingSystem,RegisterOperations";
-    }else if(modality.getName() == "Radiologie Conventionnelle" && installationType.getName() == "Table télécommandée" && technology == "Analog"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,ImageIntensif,AntiDiffusingGrid,DevelopingMachine,UsedFilms,RegisterOperations";
-    }else if(modality.getName() == "Radiologie Conventionnelle" && installationType.getName() == "Salle d’Os" && technology == "Analog"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,AntiDiffusingGrid,DevelopingMachine,UsedFilms,RegisterOperations";
-    }else if(modality.getName() == "Radiologie Conventionnelle" && installationType.getName() == "Salle d’os + Télécrâne" && technology == "Analog"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DevelopingMachine,UsedFilms,RegisterOperations";
-    }else if(modality.getName() == "Radiologie Conventionnelle" && installationType.getName() == "Mobile de graphie" && technology == "Analog") {
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DevelopingMachine,UsedFilms,RegisterOperations";
-    }else if(modality.getName() == "Radiologie Conventionnelle" && installationType.getName() == "Table télécommandée + suspension" && technology == "Analog"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DevelopingMachine,UsedFilms,RegisterOperations";
-    }else if(modality.getName() == "Radiologie interventionnelle" && installationType == null){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage,AntiDiffusingGrid,RegisterOperations";
-    }else if(modality.getName() == "Radiologie interventionnelle" && installationType != null && installationType.getName() == "Arceau mobile"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage,AntiDiffusingGrid,RegisterOperations";
-    }else if(modality.getName() == "Radiologie interventionnelle" && installationType != null && installationType.getName() == "Lithotripteur"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage,AntiDiffusingGrid,RegisterOperations";
-    }else if(modality.getName() == "Radiologie interventionnelle" && installationType != null && installationType.getName() == "Mini C-Arm"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage,AntiDiffusingGrid,RegisterOperations";
-    }else if(modality.getName() == "Radiologie interventionnelle" && installationType != null && installationType.getName() == "Salle interventionnelle fixe biplan"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage,AntiDiffusingGrid,RegisterOperations";
-    }else if(modality.getName() == "Radiologie interventionnelle" && installationType != null && installationType.getName() == "Salle interventionnelle fixe monoplan"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage,AntiDiffusingGrid,RegisterOperations";
-    }else if(modality.getName() == "Radiologie dentaire" && installationType == null){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage,AntiDiffusingGrid,RegisterOperations";
-    }else if(modality.getName() == "Radiologie dentaire" && installationType != null && installationType.getName() == "Cône Beam" && technology == "ND"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage,AntiDiffusingGrid,RegisterOperations";
-    }else if(modality.getName() == "Radiologie dentaire" && installationType != null && installationType.getName() == "Installation de Radiologie Rétroalvéolaire" && technology == "ND"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage,AntiDiffusingGrid,RegisterOperations";
-    }else if(modality.getName() == "Radiologie dentaire" && installationType != null && installationType.getName() == "Panoramique dentaire" && technology == "ND"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage,AntiDiffusingGrid,RegisterOperations";
-    }else if(modality.getName() == "Radiologie dentaire" && installationType != null && installationType.getName() == "Cône Beam" && technology == "NID"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,AntiDiffusingGrid,DirectPlateReadingSystem,RegisterOperations";
-    }else if(modality.getName() == "Radiologie dentaire" && installationType != null && installationType.getName() == "Installation de Radiologie Rétroalvéolaire" && technology == "NID"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,AntiDiffusingGrid,DirectPlateReadingSystem,RegisterOperations";
-    }else if(modality.getName() == "Radiologie dentaire" && installationType != null && installationType.getName() == "Panoramique dentaire" && technology == "NID"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,AntiDiffusingGrid,DirectPlateReadingSystem,RegisterOperations";
-    }else if(modality.getName() == "Radiologie dentaire" && installationType != null && installationType.getName() == "Cône Beam" && technology == "Analog"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,AntiDiffusingGrid,DevelopingMachine,UsedFilms,RegisterOperations";
-    }else if(modality.getName() == "Radiologie dentaire" && installationType != null && installationType.getName() == "Installation de Radiologie Rétroalvéolaire" && technology == "Analog"){
-      this.listSteps = "ProductionDevice', 'XRGenerator', 'XRTube', 'AntiDiffusingGrid', 'DevelopingMachine', 'UsedFilms', 'RegisterOperations";
-    }else if(modality.getName() == "Radiologie dentaire" && installationType != null && installationType.getName() == "Panoramique dentaire" && technology == "Analog"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,AntiDiffusingGrid,DevelopingMachine,UsedFilms,RegisterOperations";
-    }else if(modality.getName() == "Mammographie" && technology == "ND"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,DigitalImage,UsedFilms,DiagnosticConsoles,Negatoscopes,Reprographers,RegisterOperations";
-    }else if(modality.getName() == "Mammographie" && technology == "NID"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,UsedFilms,ERLMPlate,DiagnosticConsoles,Negatoscopes,Reprographers,ERLMPlate,IndirectPlateReadingSystem,RegisterOperations";
-    }else if(modality.getName() == "Mammographie" && technology == "Analog"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube,UsedFilms,DiagnosticConsoles,Negatoscopes,Reprographers,Cassette,CassetteScreens,UsedChemistry,RegisterOperations";
-    }else if(modality.getName() == "Scanner"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube";
-    }else if(modality.getName() == "Ostéodensitométrie"){
-      this.listSteps = "ProductionDevice,XRGenerator,XRTube";
-    }
+    this.listSteps = GeneratorSteps.current().resolve(modality, installationType, technology);
     this.service = service;
     this.location = location;
     this.brand = brand;
@@ -152,9 +61,6 @@ public class XRayGenerator extends Model {
   }
 
 
-  private boolean validRow(Row row, int NUM_COLUMN) {
-    return row.getCell(NUM_COLUMN) != null;
-  }
   @Override
   public Long getId() {
     return null;
@@ -169,51 +75,203 @@ public class XRayGenerator extends Model {
     metaJsonRecord.setAttrs(getAttrs());
     return metaJsonRecord;
   }
-  private String getAttrs() {
-    return " {\"name\": \""+model+"\","+
-            " \"step\": \""+""+"\"," +
-            " \"brand\": {\"id\":"+brand.getId()+", \"name\": \""+brand.getName()+"\", \"$version\": 3}," +
-            " \"model\": \""+model+"\"," +
-            " \"service\": {\"id\":\""+service.getId()+"\", \"name\": \""+service.getName()+"\", \"$version\": 8}," +
-            " \"brandXRG\": {\"id\":"+brand.getId()+", \"name\": \""+brand.getName()+"\", \"$version\": 1}," +
-            " \"isDirect\": false," +
-            " \"isScreen\": false," +
-            " \"location\": {\"id\":\""+location.getId()+"\", \"name\": \""+location.getName()+"\", \"$version\": 1, \"$attachments\": 0}," +
-            " \"modality\": {\"id\":\""+modality.getId()+"\", \"name\": \""+modality.getName()+"\", \"$version\": 2}," +
-            " \"modelXRG\": \""+model+"\"," +
-            " \"nextStep\": \""+""+"\"," +
-            " \"ASNNumber\":\""+serialNumber+"\"," +
-            " \"ASNregime\": \"Autorisation\"," +
-            " \"isCasette\": false," +
-            " \"isConsole\": false," +
-            " \"listSteps\": \""+listSteps+"\"," +
-            " \"isAntiGrid\": false," +
-            " \"isIndirect\": false," +
-            " \"isReciever\": false," +
-            " \"isRegister\": true," +
-            " \"statusHtml\": \"<span class=\\\"label label-success\\\" style=\\\"display: inline-table; line-height: initial; width: 65px !important;\\\" x-translate>Saisi</span>\"," +
-            " \"technology\": \""+technology+"\"," +
-            " \"CODEPNumber\": \""+serialNumber+"\"," +
-            " \"isUsedFilms\": false," +
-            " \"ASNDocuments\": [{\"id\": 28027}]," +
-            " \"isReprograph\": false," +
-            " \"machineState\": \""+machineState+"\"," +
-            " \"serialNumber\": \""+serialNumber+"\"," +
-            " \"workstations\": [{\"id\":"+workstations.getId()+"}]," +
-            " \"isDevelopping\": false," +
-            " \"isIntensifier\": false," +
-            " \"isNegatoscope\": false," +
-            " \"iSUsedChemisty\": false," +
-            " \"qualityConrolId\": 27932," +
-            " \"installationType\": {\"id\":\""+installationType.getId()+"\", \"name\": \""+installationType.getName()+"\", \"$version\": 1}," +
-            " \"commissioningDate\": \""+commissioningDate+"\"," +
-            " \"informationStatus\": \"⬤\"," +
-            " \"serialNumberSystemXRG\": \"tt\"," +
-            " \"retrievedIdentification\": {\"id\": 284, \"version\": 0, \"fileName\": \"Dositrace_brochure.pdf\", \"filePath\": \"Dositrace_brochure.pdf\", \"fileSize\": 1557721, \"fileType\": \"application/pdf\", \"importId\": null, \"selected\": false, \"sizeText\": \"1.56 MB\", \"createdBy\": {\"id\": 1, \"code\": \"admin\", \"$version\": 77, \"fullName\": \"Admin\"}, \"createdOn\": \"2022-04-15T08:05:57.681Z\", \"updatedBy\": null, \"updatedOn\": null, \"description\": null, \"importOrigin\": null}," +
-            " \"equipmentTechnicalControlId\": 27933," +
-            " \"retrievedIdentificationSheet\": \"false\"}";
+
+  private static final String ENTERED_HTML =
+    "<span class=\"label label-success\" style=\"display: inline-table; line-height: initial; "
+    + "width: 65px !important;\" x-translate>Saisi</span>";
+
+  /** The keys of the attrs. */
+  private static final class Keys {
+    static final AttrsWriter.Key STEP = AttrsWriter.key("step");
+    static final AttrsWriter.Key BRAND = AttrsWriter.key("brand");
+    static final AttrsWriter.Key MODEL = AttrsWriter.key("model");
+    static final AttrsWriter.Key SERVICE = AttrsWriter.key("service");
+    static final AttrsWriter.Key BRAND_XRG = AttrsWriter.key("brandXRG");
+    static final AttrsWriter.Key IS_DIRECT = AttrsWriter.key("isDirect");
+    static final AttrsWriter.Key IS_SCREEN = AttrsWriter.key("isScreen");
+    static final AttrsWriter.Key LOCATION = AttrsWriter.key("location");
+    static final AttrsWriter.Key MODALITY = AttrsWriter.key("modality");
+    static final AttrsWriter.Key MODEL_XRG = AttrsWriter.key("modelXRG");
+    static final AttrsWriter.Key NEXT_STEP = AttrsWriter.key("nextStep");
+    static final AttrsWriter.Key ASN_NUMBER = AttrsWriter.key("ASNNumber");
+    static final AttrsWriter.Key ASN_REGIME = AttrsWriter.key("ASNregime");
+    static final AttrsWriter.Key IS_CASETTE = AttrsWriter.key("isCasette");
+    static final AttrsWriter.Key IS_CONSOLE = AttrsWriter.key("isConsole");
+    static final AttrsWriter.Key LIST_STEPS = AttrsWriter.key("listSteps");
+    static final AttrsWriter.Key IS_ANTI_GRID = AttrsWriter.key("isAntiGrid");
+    static final AttrsWriter.Key IS_INDIRECT = AttrsWriter.key("isIndirect");
+    static final AttrsWriter.Key IS_RECIEVER = AttrsWriter.key("isReciever");
+    static final AttrsWriter.Key IS_REGISTER = AttrsWriter.key("isRegister");
+    static final AttrsWriter.Key STATUS_HTML = AttrsWriter.key("statusHtml");
+    static final AttrsWriter.Key TECHNOLOGY = AttrsWriter.key("technology");
+    static final AttrsWriter.Key CODEP_NUMBER = AttrsWriter.key("CODEPNumber");
+    static final AttrsWriter.Key IS_USED_FILMS = AttrsWriter.key("isUsedFilms");
+    static final AttrsWriter.Key ASN_DOCUMENTS = AttrsWriter.key("ASNDocuments");
+    static final AttrsWriter.Key IS_REPROGRAPH = AttrsWriter.key("isReprograph");
+    static final AttrsWriter.Key MACHINE_STATE = AttrsWriter.key("machineState");
+    static final AttrsWriter.Key SERIAL_NUMBER = AttrsWriter.key("serialNumber");
+    static final AttrsWriter.Key WORKSTATIONS = AttrsWriter.key("workstations");
+    static final AttrsWriter.Key IS_DEVELOPPING = AttrsWriter.key("isDevelopping");
+    static final AttrsWriter.Key IS_INTENSIFIER = AttrsWriter.key("isIntensifier");
+    static final AttrsWriter.Key IS_NEGATOSCOPE = AttrsWriter.key("isNegatoscope");
+    static final AttrsWriter.Key IS_USED_CHEMISTY = AttrsWriter.key("iSUsedChemisty");
+    static final AttrsWriter.Key QUALITY_CONROL_ID = AttrsWriter.key("qualityConrolId");
+    static final AttrsWriter.Key INSTALLATION_TYPE = AttrsWriter.key("installationType");
+    static final AttrsWriter.Key COMMISSIONING_DATE = AttrsWriter.key("commissioningDate");
+    static final AttrsWriter.Key INFORMATION_STATUS = AttrsWriter.key("informationStatus");
+    static final AttrsWriter.Key SERIAL_NUMBER_SYSTEM_XRG =
+        AttrsWriter.key("serialNumberSystemXRG");
+    static final AttrsWriter.Key RETRIEVED_IDENTIFICATION =
+        AttrsWriter.key("retrievedIdentification");
+    static final AttrsWriter.Key EQUIPMENT_TECHNICAL_CONTROL_ID =
+        AttrsWriter.key("equipmentTechnicalControlId");
+    static final AttrsWriter.Key RETRIEVED_IDENTIFICATION_SHEET =
+        AttrsWriter.key("retrievedIdentificationSheet");
+    static final AttrsWriter.Key FILE_VERSION = AttrsWriter.key("version");
+    static final AttrsWriter.Key FILE_NAME = AttrsWriter.key("fileName");
+    static final AttrsWriter.Key FILE_PATH = AttrsWriter.key("filePath");
+    static final AttrsWriter.Key FILE_SIZE = AttrsWriter.key("fileSize");
+    static final AttrsWriter.Key FILE_TYPE = AttrsWriter.key("fileType");
+    static final AttrsWriter.Key IMPORT_ID = AttrsWriter.key("importId");
+    static final AttrsWriter.Key SELECTED = AttrsWriter.key("selected");
+    static final AttrsWriter.Key SIZE_TEXT = AttrsWriter.key("sizeText");
+    static final AttrsWriter.Key CREATED_BY = AttrsWriter.key("createdBy");
+    static final AttrsWriter.Key CODE = AttrsWriter.key("code");
+    static final AttrsWriter.Key FULL_NAME = AttrsWriter.key("fullName");
+    static final AttrsWriter.Key CREATED_ON = AttrsWriter.key("createdOn");
+    static final AttrsWriter.Key UPDATED_BY = AttrsWriter.key("updatedBy");
+    static final AttrsWriter.Key UPDATED_ON = AttrsWriter.key("updatedOn");
+    static final AttrsWriter.Key DESCRIPTION = AttrsWriter.key("description");
+    static final AttrsWriter.Key IMPORT_ORIGIN = AttrsWriter.key("importOrigin");
   }
-  private boolean validRowString(Row row, int NUM_COLUMN) {
-    return !(row.getCell(NUM_COLUMN) == null || row.getCell(NUM_COLUMN).getStringCellValue().isEmpty());
+
+  /** The attrs of a generator, the slots filled in {@link #getAttrs()}. */
+  private static final AttrsTemplate ATTRS =
+      AttrsWriter.template()
+          .slot(AttrsWriter.NAME)
+          .string(Keys.STEP, "")
+          .object(Keys.BRAND)
+          .slot(AttrsWriter.ID)
+          .slot(AttrsWriter.NAME)
+          .number(AttrsWriter.VERSION, 3)
+          .endObject()
+          .slot(Keys.MODEL)
+          .object(Keys.SERVICE)
+          .slot(AttrsWriter.ID)
+          .slot(AttrsWriter.NAME)
+          .number(AttrsWriter.VERSION, 8)
+          .endObject()
+          .object(Keys.BRAND_XRG)
+          .slot(AttrsWriter.ID)
+          .slot(AttrsWriter.NAME)
+          .number(AttrsWriter.VERSION, 1)
+          .endObject()
+          .bool(Keys.IS_DIRECT, false)
+          .bool(Keys.IS_SCREEN, false)
+          .object(Keys.LOCATION)
+          .slot(AttrsWriter.ID)
+          .slot(AttrsWriter.NAME)
+          .number(AttrsWriter.VERSION, 1)
+          .number(AttrsWriter.ATTACHMENTS, 0)
+          .endObject()
+          .object(Keys.MODALITY)
+          .slot(AttrsWriter.ID)
+          .slot(AttrsWriter.NAME)
+          .number(AttrsWriter.VERSION, 2)
+          .endObject()
+          .slot(Keys.MODEL_XRG)
+          .string(Keys.NEXT_STEP, "")
+          .slot(Keys.ASN_NUMBER)
+          .string(Keys.ASN_REGIME, "Autorisation")
+          .bool(Keys.IS_CASETTE, false)
+          .bool(Keys.IS_CONSOLE, false)
+          .slot(Keys.LIST_STEPS)
+          .bool(Keys.IS_ANTI_GRID, false)
+          .bool(Keys.IS_INDIRECT, false)
+          .bool(Keys.IS_RECIEVER, false)
+          .bool(Keys.IS_REGISTER, true)
+          .string(Keys.STATUS_HTML, ENTERED_HTML)
+          .slot(Keys.TECHNOLOGY)
+          .slot(Keys.CODEP_NUMBER)
+          .bool(Keys.IS_USED_FILMS, false)
+          .array(Keys.ASN_DOCUMENTS)
+          .object()
+          .number(AttrsWriter.ID, 28027)
+          .endObject()
+          .endArray()
+          .bool(Keys.IS_REPROGRAPH, false)
+          .slot(Keys.MACHINE_STATE)
+          .slot(Keys.SERIAL_NUMBER)
+          .array(Keys.WORKSTATIONS)
+          .object()
+          .slot(AttrsWriter.ID)
+          .endObject()
+          .endArray()
+          .bool(Keys.IS_DEVELOPPING, false)
+          .bool(Keys.IS_INTENSIFIER, false)
+          .bool(Keys.IS_NEGATOSCOPE, false)
+          .bool(Keys.IS_USED_CHEMISTY, false)
+          .number(Keys.QUALITY_CONROL_ID, 27932)
+          .object(Keys.INSTALLATION_TYPE)
+          .slot(AttrsWriter.ID)
+          .slot(AttrsWriter.NAME)
+          .number(AttrsWriter.VERSION, 1)
+          .endObject()
+          .slot(Keys.COMMISSIONING_DATE)
+          .string(Keys.INFORMATION_STATUS, "⬤")
+          .string(Keys.SERIAL_NUMBER_SYSTEM_XRG, "tt")
+          .object(Keys.RETRIEVED_IDENTIFICATION)
+          .number(AttrsWriter.ID, 284)
+          .number(Keys.FILE_VERSION, 0)
+          .string(Keys.FILE_NAME, "Dositrace_brochure.pdf")
+          .string(Keys.FILE_PATH, "Dositrace_brochure.pdf")
+          .number(Keys.FILE_SIZE, 1557721)
+          .string(Keys.FILE_TYPE, "application/pdf")
+          .nullValue(Keys.IMPORT_ID)
+          .bool(Keys.SELECTED, false)
+          .string(Keys.SIZE_TEXT, "1.56 MB")
+          .object(Keys.CREATED_BY)
+          .number(AttrsWriter.ID, 1)
+          .string(Keys.CODE, "admin")
+          .number(AttrsWriter.VERSION, 77)
+          .string(Keys.FULL_NAME, "Admin")
+          .endObject()
+          .string(Keys.CREATED_ON, "2022-04-15T08:05:57.681Z")
+          .nullValue(Keys.UPDATED_BY)
+          .nullValue(Keys.UPDATED_ON)
+          .nullValue(Keys.DESCRIPTION)
+          .nullValue(Keys.IMPORT_ORIGIN)
+          .endObject()
+          .number(Keys.EQUIPMENT_TECHNICAL_CONTROL_ID, 27933)
+          .string(Keys.RETRIEVED_IDENTIFICATION_SHEET, "false")
+          .compile();
+
+  private String getAttrs() {
+    return ATTRS
+        .fill()
+        .string(model)
+        .number(brand.getId())
+        .string(brand.getName())
+        .string(model)
+        .number(service.getId())
+        .string(service.getName())
+        .number(brand.getId())
+        .string(brand.getName())
+        .number(location.getId())
+        .string(location.getName())
+        .number(modality.getId())
+        .string(modality.getName())
+        .string(model)
+        .string(serialNumber)
+        .string(listSteps)
+        .string(technology)
+        .string(serialNumber)
+        .string(machineState)
+        .string(serialNumber)
+        .number(workstations.getId())
+        .number(installationType.getId())
+        .string(installationType.getName())
+        .string(commissioningDate)
+        .end();
   }
 }
@@ -1,11 +1,13 @@
 package com.jobs;
 
-import static org.apache.poi.ss.usermodel.Cell.CELL_TYPE_NUMERIC;
-import static org.apache.poi.ss.usermodel.Cell.CELL_TYPE_STRING;
-
 import com.axelor.app.AppSettings;
 import com.axelor.db.tenants.TenantResolver;
-import java.io.FileInputStream;
+import com.dosilink.datasource.CellKind;
+import com.dosilink.datasource.ImportChunks;
+import com.dosilink.datasource.SheetCell;
+import com.dosilink.datasource.SheetRow;
+import com.dosilink.datasource.StreamingXlsReader;
+import java.io.File;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.math.BigInteger;
@@ -14,10 +16,6 @@ import java.util.List;
 import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import wslite.json.JSONArray;
@@ -40,6 +38,14 @@ public class DosimeterData {
 
   public static final int CRYSTALLINE = 3;
 
+  public static final int HEADER_ROW = 1;
+
+  public static final int HEADER_COLUMN = 1;
+
+  public static final int HEADER_CELL_COUNT = 7;
+
+  public static final String HEADER_TITLE = "RÉSULTATS DOSIMÉTRIQUES";
+
   public static final int DATA_FIRST_ROW = 4;
 
   public static final String EMPTY_CELL_CONTENT = "-";
@@ -52,20 +58,25 @@ public class DosimeterData {
     this.em = em;
   }
 
+  /**
+   * Reads the lab export and updates the doses of the workers it lists. With a chunk size set in
+   * {@link ImportChunks#CHUNK_SIZE}, the doses are updated and committed as soon as that many rows
+   * are read, and the persistence context is cleared before the next rows are.
+   */
   public List<InsertStatus> run(String fileName) throws IOException {
     logger.info("Importing dosimeter data from file {}", fileName);
     List<InsertStatus> statuses = new ArrayList<>();
-    Sheet sheet = readFile(fileName, statuses);
+    DosimetryRowHandler handler =
+        new DosimetryRowHandler(AppSettings.get().getInt(ImportChunks.CHUNK_SIZE, 0));
+    readFile(fileName, handler, statuses);
     if (!statuses.isEmpty()) {
       logger.warn("Import can not be performed.");
       return statuses;
     }
 
-    List<RadiationWorkerDosimetry> workerDosimetryData = parseData(sheet);
-    updatePassiveDosimetry(workerDosimetryData);
-    List<InsertStatus> results = getStatuses(workerDosimetryData);
-    logger.info("{} workers have been updated.", results.size());
-    return results;
+    handler.flush();
+    logger.info("{} workers have been updated.", handler.results.size());
+    return handler.results;
   }
 
   private List<InsertStatus> getStatuses(List<RadiationWorkerDosimetry> workerDosimetryData) {
@@ -74,53 +85,106 @@ public class DosimeterData {
         .collect(Collectors.toList());
   }
 
-  private List<RadiationWorkerDosimetry> parseData(Sheet sheet) {
-    List<RadiationWorkerDosimetry> workerDosimetry = new ArrayList<>();
-    for (Row row : sheet) {
-      if (row.getRowNum() < DATA_FIRST_ROW) {
-        continue;
-      }
-      RadiationWorkerDosimetry radiationWorkerDosimetry = new RadiationWorkerDosimetry();
-      workerDosimetry.add(radiationWorkerDosimetry);
-      try {
-        findDosimetersByRadiationWorkerFullName(
-            row.getCell(NAME_COLUMN).getStringCellValue(), radiationWorkerDosimetry);
-      } catch (NoResultException e) {
-        radiationWorkerDosimetry.updateStatus(
-            "Radiation worker is not found.", 1 + row.getRowNum());
-        logger.error("Radiation worker at row {} is not found .", 1 + row.getRowNum());
-        continue;
-      } catch (Exception e) {
-        radiationWorkerDosimetry.updateStatus(
-            "Impossible to update dosimeter for radiation worker.", 1 + row.getRowNum());
-        logger.error(
-            "Impossible to update dosimeter for radiation worker at row {}.", 1 + row.getRowNum());
-        e.printStackTrace();
-        continue;
-      }
-      radiationWorkerDosimetry.setDoseValues(
-          row.getCell(BODY_COLUMN), row.getCell(EXTREMITY_COLUMN), row.getCell(CRYSTALLINE_COLUMN));
+  private RadiationWorkerDosimetry parseRow(SheetRow row) {
+    RadiationWorkerDosimetry radiationWorkerDosimetry = new RadiationWorkerDosimetry();
+    SheetCell name = row.getCell(NAME_COLUMN);
+    try {
+      findDosimetersByRadiationWorkerFullName(
+          name == null ? null : name.getStringCellValue(), radiationWorkerDosimetry);
+    } catch (NoResultException e) {
+      radiationWorkerDosimetry.updateStatus("Radiation worker is not found.", 1 + row.getRowNum());
+      logger.error("Radiation worker at row {} is not found .", 1 + row.getRowNum());
+      return radiationWorkerDosimetry;
+    } catch (Exception e) {
+      radiationWorkerDosimetry.updateStatus(
+          "Impossible to update dosimeter for radiation worker.", 1 + row.getRowNum());
+      logger.error(
+          "Impossible to update dosimeter for radiation worker at row {}.", 1 + row.getRowNum());
+      e.printStackTrace();
+      return radiationWorkerDosimetry;
     }
-    return workerDosimetry;
+    radiationWorkerDosimetry.setDoseValues(
+        row.getRowNum(),
+        row.getCell(BODY_COLUMN),
+        row.getCell(EXTREMITY_COLUMN),
+        row.getCell(CRYSTALLINE_COLUMN));
+    return radiationWorkerDosimetry;
   }
 
-  private Sheet readFile(String fileName, List<InsertStatus> statuses) throws IOException {
+  /**
+   * Streams the first sheet of the lab export with the HSSF event model. The header is checked
+   * when its row goes by, so a file in the wrong format is rejected before any worker is looked up.
+   */
+  private void readFile(String fileName, DosimetryRowHandler handler, List<InsertStatus> statuses)
+      throws IOException {
     String dataFolder = AppSettings.get().get("file.upload.dir");
     String tenant = TenantResolver.currentTenantIdentifier();
-    FileInputStream fis = new FileInputStream(dataFolder + "/" + tenant + "/" + fileName);
-    logger.info("Reading data from {}", dataFolder + "/" + tenant + "/" + fileName);
-    Sheet sheet = new HSSFWorkbook(fis).getSheetAt(0);
-    if (sheet.getRow(1) == null
-        || sheet.getRow(1).getCell(1) == null
-        || sheet.getRow(1).getCell(1).getCellType() != CELL_TYPE_STRING
-        || !sheet.getRow(1).getCell(1).getStringCellValue().equals("RÉSULTATS DOSIMÉTRIQUES")
-        || sheet.getRow(1).getLastCellNum() != 7) {
+    File file = new File(dataFolder + "/" + tenant + "/" + fileName);
+    logger.info("Reading data from {}", file.getPath());
+    new StreamingXlsReader(file).readSheet(0, handler);
+    if (!handler.headerValid) {
       InsertStatus fileIssue = new InsertStatus();
       fileIssue.addReason("File format is not recognized");
       statuses.add(fileIssue);
       logger.error("File {} format is not recognized.", fileName);
     }
-    return sheet;
+  }
+
+  private static boolean isHeader(SheetRow row) {
+    SheetCell title = row.getCell(HEADER_COLUMN);
+    return title != null
+        && title.getCellKind() == CellKind.STRING
+        && title.getStringCellValue().equals(HEADER_TITLE)
+        && row.getLastCellNum() == HEADER_CELL_COUNT;
+  }
+
+  private class DosimetryRowHandler implements StreamingXlsReader.RowHandler {
+    private final int chunkSize;
+    private final List<RadiationWorkerDosimetry> workerDosimetry = new ArrayList<>();
+    private final List<InsertStatus> results = new ArrayList<>();
+    private boolean headerValid;
+
+    DosimetryRowHandler(int chunkSize) {
+      this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public boolean onRow(SheetRow row) {
+      if (row.getRowNum() == HEADER_ROW) {
+        headerValid = isHeader(row);
+        return headerValid;
+      }
+      if (!headerValid && row.getRowNum() > HEADER_ROW) {
+        return false;
+      }
+      if (row.getRowNum() >= DATA_FIRST_ROW) {
+        workerDosimetry.add(parseRow(row));
+        if (chunkSize > 0 && workerDosimetry.size() == chunkSize) {
+          flush();
+          commitChunk();
+        }
+      }
+      return true;
+    }
+
+    /** Updates the doses of the rows read so far and releases them. */
+    void flush() {
+      if (workerDosimetry.isEmpty()) {
+        return;
+      }
+      updatePassiveDosimetry(workerDosimetry);
+      results.addAll(getStatuses(workerDosimetry));
+      workerDosimetry.clear();
+    }
+  }
+
+  private void commitChunk() {
+    if (em.getTransaction().isActive()) {
+      em.flush();
+      em.getTransaction().commit();
+      em.getTransaction().begin();
+    }
+    em.clear();
   }
 
   public void findDosimetersByRadiationWorkerFullName(
@@ -217,45 +281,47 @@ public class DosimeterData {
       status.fine = true;
     }
 
-    public void setDoseValues(Cell body, Cell extremity, Cell crystalline) {
-      status.rowIndex = body.getRowIndex() + 1;
+    public void setDoseValues(
+        int rowNum, SheetCell body, SheetCell extremity, SheetCell crystalline) {
+      status.rowIndex = rowNum + 1;
       setBodyDose(body);
       setExtremityDose(extremity);
       setCrystallineDose(crystalline);
     }
 
-    private void setBodyDose(Cell cell) {
+    private void setBodyDose(SheetCell cell) {
       if (!isCellValide(cell, "body")) {
         return;
       }
       bodyDose = cell.getNumericCellValue();
     }
 
-    private void setExtremityDose(Cell cell) {
+    private void setExtremityDose(SheetCell cell) {
       if (!isCellValide(cell, "extremity")) {
         return;
       }
       extremityDose = cell.getNumericCellValue();
     }
 
-    private void setCrystallineDose(Cell cell) {
+    private void setCrystallineDose(SheetCell cell) {
       if (!isCellValide(cell, "crystalline")) {
         return;
       }
       crystallineDose = cell.getNumericCellValue();
     }
 
-    private boolean isCellValide(Cell cell, String doseType) {
-      if (cell.getCellType() == CELL_TYPE_STRING
+    private boolean isCellValide(SheetCell cell, String doseType) {
+      if (cell != null
+          && cell.getCellKind() == CellKind.STRING
           && cell.getStringCellValue().equals(EMPTY_CELL_CONTENT)) {
         return false;
       }
-      if (cell.getCellType() != CELL_TYPE_NUMERIC) {
+      if (cell == null || cell.getCellKind() != CellKind.NUMERIC) {
         logger.warn(
             "Dose {} value {} at line {} is incorrect",
             doseType,
-            cell.getStringCellValue(),
-            1 + cell.getRowIndex());
+            cell,
+            status.rowIndex);
         status.addReason(String.format("Impossible to read %s dose.", doseType));
         status.fine = false;
         return false;